@@ -0,0 +1,28 @@
+package com.stock.stock_management.bench;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.stock.stock_management.error.ConstraintCatalog;
+import com.stock.stock_management.error.ErrorCode;
+
+/** Constraint-name lookup done by the exception handler on every integrity violation. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstraintCatalogBenchmark {
+
+    /** A known FK name, the same name in upper case (normalized on lookup), and a miss. */
+    @Param({"fk_sales_order_line_product_id", "FK_SALES_ORDER_LINE_PRODUCT_ID", "uq_not_a_constraint"})
+    public String constraint;
+
+    @Benchmark
+    public Optional<ErrorCode> resolve() {
+        return ConstraintCatalog.resolve(constraint);
+    }
+}
@@ -0,0 +1,99 @@
+package com.stock.stock_management.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import com.stock.stock_management.dto.CategoryDto;
+import com.stock.stock_management.dto.ClientDto;
+import com.stock.stock_management.dto.EnterpriseDto;
+import com.stock.stock_management.dto.PaymentDto;
+import com.stock.stock_management.dto.ProductDto;
+import com.stock.stock_management.dto.PurchaseInvoiceDto;
+import com.stock.stock_management.dto.PurchaseOrderDto;
+import com.stock.stock_management.dto.PurchaseOrderLineDto;
+import com.stock.stock_management.dto.SalesInvoiceDto;
+import com.stock.stock_management.dto.SalesOrderDto;
+import com.stock.stock_management.dto.SalesOrderLineDto;
+import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.dto.StockMovementDto;
+import com.stock.stock_management.dto.SupplierDto;
+import com.stock.stock_management.dto.UserDto;
+import com.stock.stock_management.dto.WarehouseDto;
+
+/** Jackson (de)serialization of every DTO, with the same date handling Spring Boot configures. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    /** Rows in the list case, matching the default /page size. */
+    private static final int PAGE = 20;
+
+    @Param({"category", "client", "enterprise", "payment", "product", "purchase_invoice", "purchase_order", "purchase_order_line", "sales_invoice", "sales_order", "sales_order_line", "stock_level", "stock_movement", "supplier", "user", "warehouse"})
+    public String dto;
+
+    private ObjectMapper objectMapper;
+    private Class<?> type;
+    private Object one;
+    private List<Object> page;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        type = dtoType(dto);
+        one = Samples.filled(type);
+        page = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) page.add(Samples.filled(type));
+        json = objectMapper.writeValueAsBytes(one);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(one);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return objectMapper.readValue(json, type);
+    }
+
+    static Class<?> dtoType(String name) {
+        return switch (name) {
+            case "category" -> CategoryDto.class;
+            case "client" -> ClientDto.class;
+            case "enterprise" -> EnterpriseDto.class;
+            case "payment" -> PaymentDto.class;
+            case "product" -> ProductDto.class;
+            case "purchase_invoice" -> PurchaseInvoiceDto.class;
+            case "purchase_order" -> PurchaseOrderDto.class;
+            case "purchase_order_line" -> PurchaseOrderLineDto.class;
+            case "sales_invoice" -> SalesInvoiceDto.class;
+            case "sales_order" -> SalesOrderDto.class;
+            case "sales_order_line" -> SalesOrderLineDto.class;
+            case "stock_level" -> StockLevelDto.class;
+            case "stock_movement" -> StockMovementDto.class;
+            case "supplier" -> SupplierDto.class;
+            case "user" -> UserDto.class;
+            case "warehouse" -> WarehouseDto.class;
+            default -> throw new IllegalArgumentException("unknown dto " + name);
+        };
+    }
+}
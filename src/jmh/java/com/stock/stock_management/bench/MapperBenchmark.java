@@ -0,0 +1,173 @@
+package com.stock.stock_management.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import com.stock.stock_management.dto.CategoryDto;
+import com.stock.stock_management.dto.ClientDto;
+import com.stock.stock_management.dto.EnterpriseDto;
+import com.stock.stock_management.dto.PaymentDto;
+import com.stock.stock_management.dto.ProductDto;
+import com.stock.stock_management.dto.PurchaseInvoiceDto;
+import com.stock.stock_management.dto.PurchaseOrderDto;
+import com.stock.stock_management.dto.PurchaseOrderLineDto;
+import com.stock.stock_management.dto.SalesInvoiceDto;
+import com.stock.stock_management.dto.SalesOrderDto;
+import com.stock.stock_management.dto.SalesOrderLineDto;
+import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.dto.StockMovementDto;
+import com.stock.stock_management.dto.SupplierDto;
+import com.stock.stock_management.dto.UserDto;
+import com.stock.stock_management.dto.WarehouseDto;
+import com.stock.stock_management.entity.Category;
+import com.stock.stock_management.entity.Client;
+import com.stock.stock_management.entity.Enterprise;
+import com.stock.stock_management.entity.Payment;
+import com.stock.stock_management.entity.Product;
+import com.stock.stock_management.entity.PurchaseInvoice;
+import com.stock.stock_management.entity.PurchaseOrder;
+import com.stock.stock_management.entity.PurchaseOrderLine;
+import com.stock.stock_management.entity.SalesInvoice;
+import com.stock.stock_management.entity.SalesOrder;
+import com.stock.stock_management.entity.SalesOrderLine;
+import com.stock.stock_management.entity.StockLevel;
+import com.stock.stock_management.entity.StockMovement;
+import com.stock.stock_management.entity.Supplier;
+import com.stock.stock_management.entity.User;
+import com.stock.stock_management.entity.Warehouse;
+import com.stock.stock_management.mapper.CategoryMapper;
+import com.stock.stock_management.mapper.ClientMapper;
+import com.stock.stock_management.mapper.EnterpriseMapper;
+import com.stock.stock_management.mapper.PaymentMapper;
+import com.stock.stock_management.mapper.ProductMapper;
+import com.stock.stock_management.mapper.PurchaseInvoiceMapper;
+import com.stock.stock_management.mapper.PurchaseOrderLineMapper;
+import com.stock.stock_management.mapper.PurchaseOrderMapper;
+import com.stock.stock_management.mapper.SalesInvoiceMapper;
+import com.stock.stock_management.mapper.SalesOrderLineMapper;
+import com.stock.stock_management.mapper.SalesOrderMapper;
+import com.stock.stock_management.mapper.StockLevelMapper;
+import com.stock.stock_management.mapper.StockMovementMapper;
+import com.stock.stock_management.mapper.SupplierMapper;
+import com.stock.stock_management.mapper.UserMapper;
+import com.stock.stock_management.mapper.WarehouseMapper;
+
+/** MapStruct entity/DTO conversions for every mapper, on fully populated samples. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @State(Scope.Thread)
+    public static class Mapping {
+        @Param({"category", "client", "enterprise", "payment", "product", "purchase_invoice", "purchase_order", "purchase_order_line", "sales_invoice", "sales_order", "sales_order_line", "stock_level", "stock_movement", "supplier", "user", "warehouse"})
+        public String entity;
+        Case<?, ?, ?> c;
+
+        @Setup
+        public void setup() { c = caseFor(entity); }
+    }
+
+    /** Ledger rows (stock_movement) are append-only and have no update mapping. */
+    @State(Scope.Thread)
+    public static class Update {
+        @Param({"category", "client", "enterprise", "payment", "product", "purchase_invoice", "purchase_order", "purchase_order_line", "sales_invoice", "sales_order", "sales_order_line", "stock_level", "supplier", "user", "warehouse"})
+        public String entity;
+        Case<?, ?, ?> c;
+
+        @Setup
+        public void setup() { c = caseFor(entity); }
+    }
+
+    @Benchmark
+    public Object toDto(Mapping s) {
+        return s.c.toDto();
+    }
+
+    @Benchmark
+    public Object toEntity(Mapping s) {
+        return s.c.toEntity();
+    }
+
+    @Benchmark
+    public Object updateEntityFromDto(Update s) {
+        return s.c.update();
+    }
+
+    // ========= Cases =========
+    @FunctionalInterface
+    interface Updater<M, D, E> {
+        void apply(M mapper, D dto, E entity);
+    }
+
+    static final class Case<M, E, D> {
+        private final M mapper;
+        private final E entity;
+        private final D dto;
+        private final BiFunction<M, E, D> toDto;
+        private final BiFunction<M, D, E> toEntity;
+        private final Updater<M, D, E> update;
+
+        Case(M mapper, Class<E> entityType, Class<D> dtoType,
+             BiFunction<M, E, D> toDto, BiFunction<M, D, E> toEntity, Updater<M, D, E> update) {
+            this.mapper = mapper;
+            this.entity = Samples.filled(entityType);
+            this.dto = Samples.filled(dtoType);
+            this.toDto = toDto;
+            this.toEntity = toEntity;
+            this.update = update;
+        }
+
+        D toDto() { return toDto.apply(mapper, entity); }
+
+        E toEntity() { return toEntity.apply(mapper, dto); }
+
+        E update() {
+            update.apply(mapper, dto, entity);
+            return entity;
+        }
+    }
+
+    static Case<?, ?, ?> caseFor(String name) {
+        return switch (name) {
+            case "category" -> new Case<>(Mappers.getMapper(CategoryMapper.class), Category.class, CategoryDto.class,
+                CategoryMapper::toDto, CategoryMapper::toEntity, CategoryMapper::updateEntityFromDto);
+            case "client" -> new Case<>(Mappers.getMapper(ClientMapper.class), Client.class, ClientDto.class,
+                ClientMapper::toDto, ClientMapper::toEntity, ClientMapper::updateEntityFromDto);
+            case "enterprise" -> new Case<>(Mappers.getMapper(EnterpriseMapper.class), Enterprise.class, EnterpriseDto.class,
+                EnterpriseMapper::toDto, EnterpriseMapper::toEntity, EnterpriseMapper::updateEntityFromDto);
+            case "payment" -> new Case<>(Mappers.getMapper(PaymentMapper.class), Payment.class, PaymentDto.class,
+                PaymentMapper::toDto, PaymentMapper::toEntity, PaymentMapper::updateEntityFromDto);
+            case "product" -> new Case<>(Mappers.getMapper(ProductMapper.class), Product.class, ProductDto.class,
+                ProductMapper::toDto, ProductMapper::toEntity, ProductMapper::updateEntityFromDto);
+            case "purchase_invoice" -> new Case<>(Mappers.getMapper(PurchaseInvoiceMapper.class), PurchaseInvoice.class, PurchaseInvoiceDto.class,
+                PurchaseInvoiceMapper::toDto, PurchaseInvoiceMapper::toEntity, PurchaseInvoiceMapper::updateEntityFromDto);
+            case "purchase_order" -> new Case<>(Mappers.getMapper(PurchaseOrderMapper.class), PurchaseOrder.class, PurchaseOrderDto.class,
+                PurchaseOrderMapper::toDto, PurchaseOrderMapper::toEntity, PurchaseOrderMapper::updateEntityFromDto);
+            case "purchase_order_line" -> new Case<>(Mappers.getMapper(PurchaseOrderLineMapper.class), PurchaseOrderLine.class, PurchaseOrderLineDto.class,
+                PurchaseOrderLineMapper::toDto, PurchaseOrderLineMapper::toEntity, PurchaseOrderLineMapper::updateEntityFromDto);
+            case "sales_invoice" -> new Case<>(Mappers.getMapper(SalesInvoiceMapper.class), SalesInvoice.class, SalesInvoiceDto.class,
+                SalesInvoiceMapper::toDto, SalesInvoiceMapper::toEntity, SalesInvoiceMapper::updateEntityFromDto);
+            case "sales_order" -> new Case<>(Mappers.getMapper(SalesOrderMapper.class), SalesOrder.class, SalesOrderDto.class,
+                SalesOrderMapper::toDto, SalesOrderMapper::toEntity, SalesOrderMapper::updateEntityFromDto);
+            case "sales_order_line" -> new Case<>(Mappers.getMapper(SalesOrderLineMapper.class), SalesOrderLine.class, SalesOrderLineDto.class,
+                SalesOrderLineMapper::toDto, SalesOrderLineMapper::toEntity, SalesOrderLineMapper::updateEntityFromDto);
+            case "stock_level" -> new Case<>(Mappers.getMapper(StockLevelMapper.class), StockLevel.class, StockLevelDto.class,
+                StockLevelMapper::toDto, StockLevelMapper::toEntity, StockLevelMapper::updateEntityFromDto);
+            case "stock_movement" -> new Case<>(Mappers.getMapper(StockMovementMapper.class), StockMovement.class, StockMovementDto.class,
+                StockMovementMapper::toDto, StockMovementMapper::toEntity, null);
+            case "supplier" -> new Case<>(Mappers.getMapper(SupplierMapper.class), Supplier.class, SupplierDto.class,
+                SupplierMapper::toDto, SupplierMapper::toEntity, SupplierMapper::updateEntityFromDto);
+            case "user" -> new Case<>(Mappers.getMapper(UserMapper.class), User.class, UserDto.class,
+                UserMapper::toDto, UserMapper::toEntity, UserMapper::updateEntityFromDto);
+            case "warehouse" -> new Case<>(Mappers.getMapper(WarehouseMapper.class), Warehouse.class, WarehouseDto.class,
+                WarehouseMapper::toDto, WarehouseMapper::toEntity, WarehouseMapper::updateEntityFromDto);
+            default -> throw new IllegalArgumentException("unknown mapper " + name);
+        };
+    }
+}
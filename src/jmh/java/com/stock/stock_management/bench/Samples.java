@@ -0,0 +1,87 @@
+package com.stock.stock_management.bench;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import com.stock.stock_management.entity.BaseEntity;
+
+/**
+ * Deterministic, fully populated sample instances for entities and DTOs, so every mapped property is
+ * exercised. Associations get a bare target carrying only its id, like a Hibernate reference.
+ */
+final class Samples {
+
+    static final OffsetDateTime NOW = OffsetDateTime.of(2025, 1, 15, 10, 30, 0, 0, ZoneOffset.UTC);
+    static final UUID UUID_1 = UUID.fromString("7f1c1b52-6c1e-4f4e-9a53-2f0f5c3b8d11");
+
+    private Samples() {}
+
+    static <T> T filled(Class<T> type) {
+        return filled(type, 2);
+    }
+
+    private static <T> T filled(Class<T> type, int depth) {
+        T target = instantiate(type);
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()) || Modifier.isFinal(f.getModifiers())) continue;
+                Object value = valueFor(f, depth);
+                if (value == null) continue;
+                try {
+                    f.setAccessible(true);
+                    f.set(target, value);
+                } catch (IllegalAccessException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        return target;
+    }
+
+    private static Object valueFor(Field f, int depth) {
+        Class<?> t = f.getType();
+        if (t == Long.class || t == long.class) return 42L;
+        if (t == Integer.class || t == int.class) return 7;
+        if (t == String.class) return "sample-" + f.getName();
+        if (t == BigDecimal.class) return new BigDecimal("12.50");
+        if (t == Boolean.class) return Boolean.TRUE;
+        if (t == OffsetDateTime.class) return NOW;
+        if (t == LocalDate.class) return NOW.toLocalDate();
+        if (t == UUID.class) return UUID_1;
+        if (t.isEnum()) return t.getEnumConstants()[0];
+        if (t.isPrimitive() || Collection.class.isAssignableFrom(t) || Map.class.isAssignableFrom(t)) return null;
+        if (depth <= 0) return null;
+        if (BaseEntity.class.isAssignableFrom(t)) return reference(t);
+        // Embedded ids and other value objects
+        return filled(t, depth - 1);
+    }
+
+    private static Object reference(Class<?> entityType) {
+        Object ref = instantiate(entityType);
+        try {
+            Field id = entityType.getDeclaredField("id");
+            id.setAccessible(true);
+            if (id.getType() == Long.class) id.set(ref, 42L);
+        } catch (NoSuchFieldException | IllegalAccessException ignored) {
+            // Composite-key entity: leave the reference empty
+        }
+        return ref;
+    }
+
+    private static <T> T instantiate(Class<T> type) {
+        try {
+            var ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            return ctor.newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("no no-arg constructor on " + type.getName(), ex);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.stock.stock_management.bench;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import com.stock.stock_management.StockManagementApplication;
+import com.stock.stock_management.dto.EnterpriseDto;
+import com.stock.stock_management.dto.ProductDto;
+import com.stock.stock_management.dto.SalesOrderDto;
+import com.stock.stock_management.dto.SalesOrderLineDto;
+import com.stock.stock_management.dto.SalesOrderWithLinesDto;
+import com.stock.stock_management.dto.WarehouseDto;
+import com.stock.stock_management.service.EnterpriseService;
+import com.stock.stock_management.service.ProductService;
+import com.stock.stock_management.service.SalesOrderService;
+import com.stock.stock_management.service.WarehouseService;
+
+/**
+ * Full service-layer create/read through the real Spring context (transactions, prechecks, caches, Hibernate)
+ * on an in-memory H2 in PostgreSQL mode. The schema comes from the entity mappings since the Liquibase
+ * changelogs are PostgreSQL-specific; absolute numbers are for trend comparison, not for capacity planning.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int ORDER_LINES = 100;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private SalesOrderService salesOrderService;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private Long warehouseId;
+    private Long productId;
+    private List<Long> productIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(StockManagementApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=USER,VALUE",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.liquibase.enabled=false",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+        productService = context.getBean(ProductService.class);
+        salesOrderService = context.getBean(SalesOrderService.class);
+
+        EnterpriseDto enterprise = context.getBean(EnterpriseService.class)
+            .create(EnterpriseDto.builder().name("bench").build());
+        warehouseId = context.getBean(WarehouseService.class)
+            .create(WarehouseDto.builder().name("bench").code("BENCH").enterpriseId(enterprise.getId()).build())
+            .getId();
+        productIds = new ArrayList<>(ORDER_LINES);
+        for (int i = 0; i < ORDER_LINES; i++) {
+            productIds.add(productService.create(newProduct()).getId());
+        }
+        productId = productIds.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductDto createProduct() {
+        return productService.create(newProduct());
+    }
+
+    /** Served by the DTO cache after the first call. */
+    @Benchmark
+    public Object findProductById() {
+        return productService.findById(productId).orElseThrow();
+    }
+
+    @Benchmark
+    public Object findProductPage() {
+        return productService.findAll(PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public SalesOrderWithLinesDto createSalesOrderWithLines() {
+        List<SalesOrderLineDto> lines = new ArrayList<>(ORDER_LINES);
+        for (Long id : productIds) {
+            lines.add(SalesOrderLineDto.builder()
+                .productId(id)
+                .quantity(BigDecimal.ONE)
+                .unitPrice(new BigDecimal("9.99"))
+                .discount(BigDecimal.ZERO)
+                .build());
+        }
+        return salesOrderService.createWithLines(SalesOrderWithLinesDto.builder()
+            .order(SalesOrderDto.builder().warehouseId(warehouseId).status("draft").build())
+            .lines(lines)
+            .build());
+    }
+
+    private ProductDto newProduct() {
+        long n = sequence.incrementAndGet();
+        return ProductDto.builder()
+            .name("bench-" + n)
+            .description("bench product " + n)
+            .price(new BigDecimal("9.99"))
+            .tva(new BigDecimal("20.00"))
+            .build();
+    }
+}
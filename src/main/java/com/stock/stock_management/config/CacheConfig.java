@@ -0,0 +1,41 @@
+package com.stock.stock_management.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+
+/**
+ * Read-through DTO caches for the reference entities (see {@code spring.cache} in application.yml).
+ * The caching advice runs outside the transactional one (and just inside the service timer), so hits
+ * never borrow a connection. The Caffeine caches are wrapped transaction-aware: puts and evictions made
+ * while a transaction is active (a service call joining a batch chunk, say) are deferred until it commits
+ * and dropped if it rolls back. Hit/miss/eviction counts are published as {@code cache.gets} /
+ * {@code cache.evictions} under /actuator/metrics.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE + 1)
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String WAREHOUSES = "warehouses";
+    public static final String ENTERPRISES = "enterprises";
+
+    /** Replaces Boot's Caffeine cache manager, built from the same {@code spring.cache} properties. */
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        String spec = properties.getCaffeine().getSpec();
+        if (StringUtils.hasText(spec)) { caffeine.setCacheSpecification(spec); }
+        if (!properties.getCacheNames().isEmpty()) { caffeine.setCacheNames(properties.getCacheNames()); }
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
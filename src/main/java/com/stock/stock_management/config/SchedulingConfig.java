@@ -0,0 +1,13 @@
+package com.stock.stock_management.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs. Each {@code @Scheduled} cron is read from application.yml and defaults to
+ * {@code "-"} (disabled), so a job only runs where it has been switched on.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
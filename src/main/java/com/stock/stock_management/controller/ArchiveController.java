@@ -0,0 +1,23 @@
+package com.stock.stock_management.controller;
+
+import com.stock.stock_management.dto.ArchiveRunDto;
+import com.stock.stock_management.service.ArchiveService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+/** On-demand run of the soft-delete archival job. */
+@RestController
+@RequestMapping(path = "/api/archive", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ArchiveController {
+
+    private final ArchiveService service;
+
+    public ArchiveController(ArchiveService service) {
+        this.service = service;
+    }
+
+    @PostMapping("/run")
+    public ArchiveRunDto run() {
+        return service.archive();
+    }
+}
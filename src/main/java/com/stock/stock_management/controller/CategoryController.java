@@ -1,8 +1,14 @@
 package com.stock.stock_management.controller;
 
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.dto.BatchResultDto;
 import com.stock.stock_management.dto.CategoryDto;
+import com.stock.stock_management.dto.CategoryStockDto;
+import com.stock.stock_management.dto.ProductDto;
 import com.stock.stock_management.service.CategoryService;
+import com.stock.stock_management.service.BatchService;
 import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.error.MissingRequiredFieldException;
 import org.springframework.http.*;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,8 +16,16 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.web.ETags;
+import com.stock.stock_management.web.ExportWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.*;
 import java.util.UUID;
@@ -21,10 +35,16 @@ import java.util.UUID;
 @RequestMapping(path = "/api/category", produces = MediaType.APPLICATION_JSON_VALUE)
 public class CategoryController {
 
+    private static final int BATCH_MAX = 10_000;
+
     private final CategoryService service;
+    private final ExportWriter exportWriter;
+    private final BatchService batchService;
 
-    public CategoryController(CategoryService service) {
+    public CategoryController(CategoryService service, ExportWriter exportWriter, BatchService batchService) {
         this.service = service;
+        this.exportWriter = exportWriter;
+        this.batchService = batchService;
     }
 
     // ===== Read =====
@@ -34,12 +54,15 @@ public class CategoryController {
     }
 
     @GetMapping("/page")
-    public Page<CategoryDto> listPage(
+    public Page<?> listPage(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String fields,
             Sort sort) {
         var pageable = org.springframework.data.domain.PageRequest.of(page, size, sort);
-        return service.findAll(pageable);
+        if (fields != null && !fields.isBlank()) { return service.findFields(fields, filter, pageable); }
+        return service.findAll(filter, pageable);
     }
 
     @GetMapping("/sorted")
@@ -47,16 +70,46 @@ public class CategoryController {
         return service.findAll(sort);
     }
 
+    @GetMapping("/scroll")
+    public CursorPageDto<CategoryDto> listScroll(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(200) int size) {
+        return service.scroll(after, size);
+    }
+
+    @GetMapping(path = "/stream", produces = {ExportWriter.NDJSON, ExportWriter.CSV})
+    public void stream(@RequestParam(required = false) String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                       HttpServletResponse response) throws IOException {
+        exportWriter.write(response, ExportWriter.wantsCsv(format, accept), CategoryDto.class, "category", service::streamAll);
+    }
+
     @GetMapping("/{id}")
-    public CategoryDto get(@PathVariable Long id) {
-        return service.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("category not found with id=" + id));
+    public ResponseEntity<CategoryDto> get(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersion(id), () -> service.findById(id),
+                () -> new ResourceNotFoundException("category not found with id=" + id));
     }
 
     @GetMapping("/uuid/{uuid}")
-    public CategoryDto getByUuid(@PathVariable UUID uuid) {
-        return service.findByUuid(uuid)
-                .orElseThrow(() -> new ResourceNotFoundException("category not found with uuid=" + uuid));
+    public ResponseEntity<CategoryDto> getByUuid(@PathVariable UUID uuid,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersionByUuid(uuid), () -> service.findByUuid(uuid),
+                () -> new ResourceNotFoundException("category not found with uuid=" + uuid));
+    }
+
+    // ===== Subtree (category and all descendants) =====
+    @GetMapping("/{id}/products")
+    public Page<ProductDto> subtreeProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(200) int size) {
+        return service.findSubtreeProducts(id, org.springframework.data.domain.PageRequest.of(page, size));
+    }
+
+    @GetMapping("/{id}/stock")
+    public List<CategoryStockDto> subtreeStock(@PathVariable Long id) {
+        return service.findSubtreeStock(id);
     }
 
     // ===== Create =====
@@ -73,16 +126,44 @@ public class CategoryController {
 
     // ===== Update (full replace) =====
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public CategoryDto update(@PathVariable Long id, @Valid @RequestBody CategoryDto dto) {
+    public CategoryDto update(@PathVariable Long id, @Valid @RequestBody CategoryDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("category not found with id=" + id));
         return service.update(id, dto);
     }
 
     // ===== Patch (partial) =====
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public CategoryDto patch(@PathVariable Long id, @RequestBody CategoryDto dto) {
+    public CategoryDto patch(@PathVariable Long id, @RequestBody CategoryDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("category not found with id=" + id));
         return service.patch(id, dto);
     }
 
+    // ===== Batch (per-item results, chunked transactions) =====
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<CategoryDto> createBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<CategoryDto> dtos) {
+        return batchService.executeValidated(dtos, service::create);
+    }
+
+    @PatchMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<CategoryDto> patchBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<CategoryDto> dtos) {
+        return batchService.execute(dtos, dto -> {
+            if (dto.getId() == null) { throw new MissingRequiredFieldException("id is required"); }
+            return service.patch(dto.getId(), dto);
+        });
+    }
+
+    @DeleteMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<Long> deleteBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<Long> ids) {
+        return batchService.execute(ids, id -> {
+            service.deleteById(id);
+            return id;
+        });
+    }
+
     // ===== Delete =====
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -1,8 +1,12 @@
 package com.stock.stock_management.controller;
 
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.dto.BatchResultDto;
 import com.stock.stock_management.dto.EnterpriseDto;
 import com.stock.stock_management.service.EnterpriseService;
+import com.stock.stock_management.service.BatchService;
 import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.error.MissingRequiredFieldException;
 import org.springframework.http.*;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,8 +14,16 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.web.ETags;
+import com.stock.stock_management.web.ExportWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.*;
 import java.util.UUID;
@@ -21,10 +33,16 @@ import java.util.UUID;
 @RequestMapping(path = "/api/enterprise", produces = MediaType.APPLICATION_JSON_VALUE)
 public class EnterpriseController {
 
+    private static final int BATCH_MAX = 10_000;
+
     private final EnterpriseService service;
+    private final ExportWriter exportWriter;
+    private final BatchService batchService;
 
-    public EnterpriseController(EnterpriseService service) {
+    public EnterpriseController(EnterpriseService service, ExportWriter exportWriter, BatchService batchService) {
         this.service = service;
+        this.exportWriter = exportWriter;
+        this.batchService = batchService;
     }
 
     // ===== Read =====
@@ -34,12 +52,15 @@ public class EnterpriseController {
     }
 
     @GetMapping("/page")
-    public Page<EnterpriseDto> listPage(
+    public Page<?> listPage(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String fields,
             Sort sort) {
         var pageable = org.springframework.data.domain.PageRequest.of(page, size, sort);
-        return service.findAll(pageable);
+        if (fields != null && !fields.isBlank()) { return service.findFields(fields, filter, pageable); }
+        return service.findAll(filter, pageable);
     }
 
     @GetMapping("/sorted")
@@ -47,16 +68,32 @@ public class EnterpriseController {
         return service.findAll(sort);
     }
 
+    @GetMapping("/scroll")
+    public CursorPageDto<EnterpriseDto> listScroll(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(200) int size) {
+        return service.scroll(after, size);
+    }
+
+    @GetMapping(path = "/stream", produces = {ExportWriter.NDJSON, ExportWriter.CSV})
+    public void stream(@RequestParam(required = false) String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                       HttpServletResponse response) throws IOException {
+        exportWriter.write(response, ExportWriter.wantsCsv(format, accept), EnterpriseDto.class, "enterprise", service::streamAll);
+    }
+
     @GetMapping("/{id}")
-    public EnterpriseDto get(@PathVariable Long id) {
-        return service.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("enterprise not found with id=" + id));
+    public ResponseEntity<EnterpriseDto> get(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersion(id), () -> service.findById(id),
+                () -> new ResourceNotFoundException("enterprise not found with id=" + id));
     }
 
     @GetMapping("/uuid/{uuid}")
-    public EnterpriseDto getByUuid(@PathVariable UUID uuid) {
-        return service.findByUuid(uuid)
-                .orElseThrow(() -> new ResourceNotFoundException("enterprise not found with uuid=" + uuid));
+    public ResponseEntity<EnterpriseDto> getByUuid(@PathVariable UUID uuid,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersionByUuid(uuid), () -> service.findByUuid(uuid),
+                () -> new ResourceNotFoundException("enterprise not found with uuid=" + uuid));
     }
 
     // ===== Create =====
@@ -73,16 +110,44 @@ public class EnterpriseController {
 
     // ===== Update (full replace) =====
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public EnterpriseDto update(@PathVariable Long id, @Valid @RequestBody EnterpriseDto dto) {
+    public EnterpriseDto update(@PathVariable Long id, @Valid @RequestBody EnterpriseDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("enterprise not found with id=" + id));
         return service.update(id, dto);
     }
 
     // ===== Patch (partial) =====
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public EnterpriseDto patch(@PathVariable Long id, @RequestBody EnterpriseDto dto) {
+    public EnterpriseDto patch(@PathVariable Long id, @RequestBody EnterpriseDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("enterprise not found with id=" + id));
         return service.patch(id, dto);
     }
 
+    // ===== Batch (per-item results, chunked transactions) =====
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<EnterpriseDto> createBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<EnterpriseDto> dtos) {
+        return batchService.executeValidated(dtos, service::create);
+    }
+
+    @PatchMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<EnterpriseDto> patchBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<EnterpriseDto> dtos) {
+        return batchService.execute(dtos, dto -> {
+            if (dto.getId() == null) { throw new MissingRequiredFieldException("id is required"); }
+            return service.patch(dto.getId(), dto);
+        });
+    }
+
+    @DeleteMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<Long> deleteBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<Long> ids) {
+        return batchService.execute(ids, id -> {
+            service.deleteById(id);
+            return id;
+        });
+    }
+
     // ===== Delete =====
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -1,8 +1,15 @@
 package com.stock.stock_management.controller;
 
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.dto.StockMovementDto;
+import com.stock.stock_management.dto.BatchResultDto;
 import com.stock.stock_management.dto.SalesOrderDto;
+import com.stock.stock_management.dto.SalesOrderWithLinesDto;
 import com.stock.stock_management.service.SalesOrderService;
+import com.stock.stock_management.service.StockMovementService;
+import com.stock.stock_management.service.BatchService;
 import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.error.MissingRequiredFieldException;
 import org.springframework.http.*;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,8 +17,16 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.web.ETags;
+import com.stock.stock_management.web.ExportWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.*;
 import java.util.UUID;
@@ -21,10 +36,18 @@ import java.util.UUID;
 @RequestMapping(path = "/api/sales-order", produces = MediaType.APPLICATION_JSON_VALUE)
 public class SalesOrderController {
 
+    private static final int BATCH_MAX = 10_000;
+
     private final SalesOrderService service;
+    private final ExportWriter exportWriter;
+    private final BatchService batchService;
+    private final StockMovementService stockMovementService;
 
-    public SalesOrderController(SalesOrderService service) {
+    public SalesOrderController(SalesOrderService service, ExportWriter exportWriter, StockMovementService stockMovementService, BatchService batchService) {
         this.service = service;
+        this.exportWriter = exportWriter;
+        this.stockMovementService = stockMovementService;
+        this.batchService = batchService;
     }
 
     // ===== Read =====
@@ -34,12 +57,15 @@ public class SalesOrderController {
     }
 
     @GetMapping("/page")
-    public Page<SalesOrderDto> listPage(
+    public Page<?> listPage(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String fields,
             Sort sort) {
         var pageable = org.springframework.data.domain.PageRequest.of(page, size, sort);
-        return service.findAll(pageable);
+        if (fields != null && !fields.isBlank()) { return service.findFields(fields, filter, pageable); }
+        return service.findAll(filter, pageable);
     }
 
     @GetMapping("/sorted")
@@ -47,16 +73,38 @@ public class SalesOrderController {
         return service.findAll(sort);
     }
 
+    @GetMapping("/scroll")
+    public CursorPageDto<SalesOrderDto> listScroll(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(200) int size) {
+        return service.scroll(after, size);
+    }
+
+    @GetMapping(path = "/stream", produces = {ExportWriter.NDJSON, ExportWriter.CSV})
+    public void stream(@RequestParam(required = false) String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                       HttpServletResponse response) throws IOException {
+        exportWriter.write(response, ExportWriter.wantsCsv(format, accept), SalesOrderDto.class, "sales_order", service::streamAll);
+    }
+
     @GetMapping("/{id}")
-    public SalesOrderDto get(@PathVariable Long id) {
-        return service.findById(id)
+    public ResponseEntity<SalesOrderDto> get(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersion(id), () -> service.findById(id),
+                () -> new ResourceNotFoundException("salesOrder not found with id=" + id));
+    }
+
+    @GetMapping("/{id}/with-lines")
+    public SalesOrderWithLinesDto getWithLines(@PathVariable Long id) {
+        return service.findWithLines(id)
                 .orElseThrow(() -> new ResourceNotFoundException("salesOrder not found with id=" + id));
     }
 
     @GetMapping("/uuid/{uuid}")
-    public SalesOrderDto getByUuid(@PathVariable UUID uuid) {
-        return service.findByUuid(uuid)
-                .orElseThrow(() -> new ResourceNotFoundException("salesOrder not found with uuid=" + uuid));
+    public ResponseEntity<SalesOrderDto> getByUuid(@PathVariable UUID uuid,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersionByUuid(uuid), () -> service.findByUuid(uuid),
+                () -> new ResourceNotFoundException("salesOrder not found with uuid=" + uuid));
     }
 
     // ===== Create =====
@@ -71,18 +119,65 @@ public class SalesOrderController {
         return ResponseEntity.created(location).body(created);
     }
 
+    /** Order header plus lines in one request (one product lookup, one batched insert). */
+    @PostMapping(path = "/with-lines", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SalesOrderWithLinesDto> createWithLines(@Valid @RequestBody SalesOrderWithLinesDto dto) {
+        SalesOrderWithLinesDto created = service.createWithLines(dto);
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath()
+                .path("/api/sales-order/{id}/with-lines")
+                .buildAndExpand(created.getOrder().getId())
+                .toUri();
+        return ResponseEntity.created(location).body(created);
+    }
+
     // ===== Update (full replace) =====
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public SalesOrderDto update(@PathVariable Long id, @Valid @RequestBody SalesOrderDto dto) {
+    public SalesOrderDto update(@PathVariable Long id, @Valid @RequestBody SalesOrderDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("salesOrder not found with id=" + id));
         return service.update(id, dto);
     }
 
     // ===== Patch (partial) =====
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public SalesOrderDto patch(@PathVariable Long id, @RequestBody SalesOrderDto dto) {
+    public SalesOrderDto patch(@PathVariable Long id, @RequestBody SalesOrderDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("salesOrder not found with id=" + id));
         return service.patch(id, dto);
     }
 
+    // ===== Stock =====
+    /** Issue the order lines from stock (issue movements); rejected if the order was already booked. */
+    @PostMapping("/{id}/confirm")
+    public List<StockMovementDto> confirm(@PathVariable Long id) {
+        return stockMovementService.confirmSalesOrder(id);
+    }
+
+    // ===== Batch (per-item results, chunked transactions) =====
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<SalesOrderDto> createBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<SalesOrderDto> dtos) {
+        return batchService.executeValidated(dtos, service::create);
+    }
+
+    @PatchMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<SalesOrderDto> patchBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<SalesOrderDto> dtos) {
+        return batchService.execute(dtos, dto -> {
+            if (dto.getId() == null) { throw new MissingRequiredFieldException("id is required"); }
+            return service.patch(dto.getId(), dto);
+        });
+    }
+
+    @DeleteMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<Long> deleteBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<Long> ids) {
+        return batchService.execute(ids, id -> {
+            service.deleteById(id);
+            return id;
+        });
+    }
+
     // ===== Delete =====
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
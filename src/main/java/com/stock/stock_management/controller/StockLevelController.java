@@ -1,18 +1,40 @@
 package com.stock.stock_management.controller;
 
+import com.stock.stock_management.dto.StockAlertDto;
+import com.stock.stock_management.dto.StockLevelBulkResultDto;
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.dto.BatchResultDto;
 import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.dto.StockLevelIdDto;
+import com.stock.stock_management.dto.StockReservationDto;
 import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.service.StockLevelBulkService;
 import com.stock.stock_management.service.StockLevelService;
+import com.stock.stock_management.service.StockReservationService;
+import com.stock.stock_management.service.BatchService;
+import com.stock.stock_management.service.support.StockAlertEngine;
+import com.stock.stock_management.service.support.StockLevelFeed;
 import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.error.MissingRequiredFieldException;
 import org.springframework.http.*;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.web.ETags;
+import com.stock.stock_management.web.ExportWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.*;
 import java.util.UUID;
@@ -22,10 +44,24 @@ import java.util.UUID;
 @RequestMapping(path = "/api/stock-level", produces = MediaType.APPLICATION_JSON_VALUE)
 public class StockLevelController {
 
+    private static final int BATCH_MAX = 10_000;
+
     private final StockLevelService service;
+    private final StockReservationService reservationService;
+    private final StockLevelBulkService bulkService;
+    private final ExportWriter exportWriter;
+    private final BatchService batchService;
+    private final StockAlertEngine alertEngine;
+    private final StockLevelFeed feed;
 
-    public StockLevelController(StockLevelService service) {
+    public StockLevelController(StockLevelService service, StockReservationService reservationService, StockLevelBulkService bulkService, ExportWriter exportWriter, BatchService batchService, StockAlertEngine alertEngine, StockLevelFeed feed) {
         this.service = service;
+        this.reservationService = reservationService;
+        this.bulkService = bulkService;
+        this.exportWriter = exportWriter;
+        this.batchService = batchService;
+        this.alertEngine = alertEngine;
+        this.feed = feed;
     }
 
     // ===== Read =====
@@ -35,12 +71,15 @@ public class StockLevelController {
     }
 
     @GetMapping("/page")
-    public Page<StockLevelDto> listPage(
+    public Page<?> listPage(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String fields,
             Sort sort) {
         var pageable = org.springframework.data.domain.PageRequest.of(page, size, sort);
-        return service.findAll(pageable);
+        if (fields != null && !fields.isBlank()) { return service.findFields(fields, filter, pageable); }
+        return service.findAll(filter, pageable);
     }
 
     @GetMapping("/sorted")
@@ -48,18 +87,43 @@ public class StockLevelController {
         return service.findAll(sort);
     }
 
+    @GetMapping("/scroll")
+    public CursorPageDto<StockLevelDto> listScroll(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(200) int size) {
+        return service.scroll(after, size);
+    }
+
+    @GetMapping(path = "/stream", produces = {ExportWriter.NDJSON, ExportWriter.CSV})
+    public void stream(@RequestParam(required = false) String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                       HttpServletResponse response) throws IOException {
+        exportWriter.write(response, ExportWriter.wantsCsv(format, accept), StockLevelDto.class, "stock_level", service::streamAll);
+    }
+
+    /**
+     * Server-Sent Events of committed changes in one warehouse, coalesced per product. Open the stream first,
+     * then read the levels once; {@code resync} asks the client to read them again.
+     */
+    @GetMapping(path = "/stream", params = "warehouseId", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestParam Long warehouseId) {
+        return feed.subscribe(warehouseId);
+    }
+
     // --- ID parts in path ---
     @GetMapping("/{product_id}/{warehouse_id}")
-    public StockLevelDto get(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId) {
+    public ResponseEntity<StockLevelDto> get(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         StockLevelId id = new StockLevelId(productId, warehouseId);
-        return service.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("stockLevel not found with id parts"));
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersion(id), () -> service.findById(id),
+                () -> new ResourceNotFoundException("stockLevel not found with id parts"));
     }
 
     @GetMapping("/uuid/{uuid}")
-    public StockLevelDto getByUuid(@PathVariable UUID uuid) {
-        return service.findByUuid(uuid)
-                .orElseThrow(() -> new ResourceNotFoundException("stockLevel not found with uuid=" + uuid));
+    public ResponseEntity<StockLevelDto> getByUuid(@PathVariable UUID uuid,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersionByUuid(uuid), () -> service.findByUuid(uuid),
+                () -> new ResourceNotFoundException("stockLevel not found with uuid=" + uuid));
     }
 
     // ===== Create =====
@@ -74,20 +138,92 @@ public class StockLevelController {
         return ResponseEntity.created(location).body(created);
     }
 
+    // ===== Bulk upsert (warehouse counts) =====
+    @PostMapping(path = "/bulk", consumes = "text/csv")
+    public StockLevelBulkResultDto bulkUpsertCsv(InputStream body) {
+        return bulkService.upsertCsv(body);
+    }
+
+    @PostMapping(path = "/bulk", consumes = "application/x-ndjson")
+    public StockLevelBulkResultDto bulkUpsertNdjson(InputStream body) {
+        return bulkService.upsertNdjson(body);
+    }
+
     // ===== Update (full replace) =====
     @PutMapping(path = "/{product_id}/{warehouse_id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public StockLevelDto update(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId, @Valid @RequestBody StockLevelDto dto) {
+    public StockLevelDto update(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId, @Valid @RequestBody StockLevelDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         StockLevelId id = new StockLevelId(productId, warehouseId);
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("stockLevel not found with id parts"));
         return service.update(id, dto);
     }
 
     // ===== Patch (partial) =====
     @PatchMapping(path = "/{product_id}/{warehouse_id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public StockLevelDto patch(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId, @RequestBody StockLevelDto dto) {
+    public StockLevelDto patch(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId, @RequestBody StockLevelDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         StockLevelId id = new StockLevelId(productId, warehouseId);
+        ETags.requireMatch(ifMatch, () -> service.findVersion(id), dto,
+                () -> new ResourceNotFoundException("stockLevel not found with id parts"));
         return service.patch(id, dto);
     }
 
+    // ===== Reservations (atomic quantity moves) =====
+    @PostMapping(path = "/{product_id}/{warehouse_id}/reserve", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public StockLevelDto reserve(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId, @Valid @RequestBody StockReservationDto dto) {
+        StockLevelId id = new StockLevelId(productId, warehouseId);
+        return reservationService.reserve(id, dto.getQuantity());
+    }
+
+    @PostMapping(path = "/{product_id}/{warehouse_id}/release", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public StockLevelDto release(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId, @Valid @RequestBody StockReservationDto dto) {
+        StockLevelId id = new StockLevelId(productId, warehouseId);
+        return reservationService.release(id, dto.getQuantity());
+    }
+
+    @PostMapping(path = "/{product_id}/{warehouse_id}/commit", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public StockLevelDto commit(@PathVariable("product_id") Long productId, @PathVariable("warehouse_id") Long warehouseId, @Valid @RequestBody StockReservationDto dto) {
+        StockLevelId id = new StockLevelId(productId, warehouseId);
+        return reservationService.commit(id, dto.getQuantity());
+    }
+
+    // ===== Low-stock alerts =====
+    /** Levels whose available quantity (current - reserved) is under stock_alert_qty, oldest first. */
+    @GetMapping("/alerts")
+    public List<StockAlertDto> alerts(@RequestParam(required = false) Long warehouseId) {
+        return alertEngine.current(warehouseId);
+    }
+
+    /** "low" / "recovered" events as thresholds are crossed. */
+    @GetMapping(path = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter alertStream() {
+        return alertEngine.subscribe();
+    }
+
+    // ===== Batch (per-item results, chunked transactions) =====
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<StockLevelDto> createBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<StockLevelDto> dtos) {
+        return batchService.executeValidated(dtos, service::create);
+    }
+
+    @PatchMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<StockLevelDto> patchBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<StockLevelDto> dtos) {
+        return batchService.execute(dtos, dto -> {
+            StockLevelIdDto key = dto.getId();
+            if (key == null || key.getProductId() == null || key.getWarehouseId() == null) { throw new MissingRequiredFieldException("id.productId and id.warehouseId are required"); }
+            return service.patch(new StockLevelId(key.getProductId(), key.getWarehouseId()), dto);
+        });
+    }
+
+    @DeleteMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto<StockLevelIdDto> deleteBatch(@RequestBody @NotEmpty @Size(max = BATCH_MAX) List<StockLevelIdDto> ids) {
+        return batchService.executeValidated(ids, id -> {
+            service.deleteById(new StockLevelId(id.getProductId(), id.getWarehouseId()));
+            return id;
+        });
+    }
+
     // ===== Delete =====
     @DeleteMapping("/{product_id}/{warehouse_id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -0,0 +1,83 @@
+package com.stock.stock_management.controller;
+
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.dto.StockMovementDto;
+import com.stock.stock_management.dto.StockTransferDto;
+import com.stock.stock_management.service.StockMovementService;
+import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.web.ETags;
+import org.springframework.http.*;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import java.net.URI;
+import java.util.*;
+
+/** Append-only ledger: no update, patch or delete endpoints. */
+@RestController
+@Validated
+@RequestMapping(path = "/api/stock-movement", produces = MediaType.APPLICATION_JSON_VALUE)
+public class StockMovementController {
+
+    private final StockMovementService service;
+
+    public StockMovementController(StockMovementService service) {
+        this.service = service;
+    }
+
+    // ===== Read =====
+    @GetMapping("/page")
+    public Page<?> listPage(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String fields,
+            Sort sort) {
+        var pageable = org.springframework.data.domain.PageRequest.of(page, size, sort);
+        if (fields != null && !fields.isBlank()) { return service.findFields(fields, filter, pageable); }
+        return service.findAll(filter, pageable);
+    }
+
+    @GetMapping("/scroll")
+    public CursorPageDto<StockMovementDto> listScroll(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(200) int size) {
+        return service.scroll(after, size);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<StockMovementDto> get(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, () -> service.findVersion(id), () -> service.findById(id),
+                () -> new ResourceNotFoundException("stockMovement not found with id=" + id));
+    }
+
+    // ===== Append =====
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StockMovementDto> create(@Valid @RequestBody StockMovementDto dto) {
+        StockMovementDto created = service.record(dto);
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(created.getId())
+                .toUri();
+        return ResponseEntity.created(location).body(created);
+    }
+
+    @PostMapping(path = "/transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<StockMovementDto> transfer(@Valid @RequestBody StockTransferDto dto) {
+        return service.transfer(dto);
+    }
+
+    // ===== Reconciliation =====
+    @PostMapping("/rebuild")
+    public Map<String, Long> rebuild(@RequestParam Long warehouseId) {
+        return Map.of("rows", service.rebuildWarehouse(warehouseId));
+    }
+}
@@ -0,0 +1,23 @@
+package com.stock.stock_management.controller;
+
+import com.stock.stock_management.dto.TotalsAuditDto;
+import com.stock.stock_management.service.TotalsAuditService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+/** Drift check of the server-maintained order and invoice totals. */
+@RestController
+@RequestMapping(path = "/api/totals", produces = MediaType.APPLICATION_JSON_VALUE)
+public class TotalsAuditController {
+
+    private final TotalsAuditService service;
+
+    public TotalsAuditController(TotalsAuditService service) {
+        this.service = service;
+    }
+
+    @PostMapping("/verify")
+    public TotalsAuditDto verify(@RequestParam(defaultValue = "false") boolean repair) {
+        return service.verify(repair);
+    }
+}
@@ -0,0 +1,24 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchiveRunDto implements Serializable {
+
+    private OffsetDateTime startedAt;
+    /** Rows soft-deleted before this instant were eligible. */
+    private OffsetDateTime cutoff;
+    /** Rows moved in total. */
+    private long archived;
+    /** True when some table hit the per-run batch cap; the next run continues from there. */
+    private boolean truncated;
+    /** Rows moved per table, in archival order. */
+    @Builder.Default private Map<String, Long> tables = new LinkedHashMap<>();
+
+}
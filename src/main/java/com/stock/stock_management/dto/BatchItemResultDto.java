@@ -0,0 +1,22 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.io.Serializable;
+
+/** Outcome of one item of a batch request; {@code index} is its position in the request body. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class BatchItemResultDto<R> implements Serializable {
+
+    private int index;
+    private int status;
+    private R data;
+    private String code;
+    private String message;
+
+}
@@ -0,0 +1,18 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchResultDto<R> implements Serializable {
+
+    private int received;
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDto<R>> results;
+
+}
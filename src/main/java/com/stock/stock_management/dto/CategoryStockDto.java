@@ -0,0 +1,21 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryStockDto implements Serializable {
+
+    private Long warehouseId;
+    /** Products of the subtree with a stock level in this warehouse. */
+    private long products;
+    private BigDecimal currentQty;
+    private BigDecimal reservedQty;
+    /** currentQty - reservedQty. */
+    private BigDecimal availableQty;
+
+}
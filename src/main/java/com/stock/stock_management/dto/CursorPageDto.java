@@ -0,0 +1,22 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.io.Serializable;
+import java.util.*;
+
+/** One window of a keyset scroll; pass {@code next} back as {@code after} to fetch the following window. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class CursorPageDto<T> implements Serializable {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String next;
+
+}
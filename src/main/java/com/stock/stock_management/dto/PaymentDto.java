@@ -21,5 +21,6 @@ public class PaymentDto extends BaseDto {
     @NotNull @Size(max = 32) private String paymentMethod;
     @NotNull @Size(max = 16) private String paymentType;
     private Long salesOrderId;
+    @Size(max = 64) private String idempotencyKey;
 
 }
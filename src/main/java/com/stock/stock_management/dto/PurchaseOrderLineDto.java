@@ -17,10 +17,12 @@ import java.time.*;
 public class PurchaseOrderLineDto extends BaseDto {
 
     private Long id;
-    @NotNull private Long purchaseOrderId;
+    /** Required on its own (checked by the service); assigned by the server inside an order-with-lines document. */
+    private Long purchaseOrderId;
     @NotNull private Long productId;
     @NotNull @Digits(integer = 11, fraction = 3) @PositiveOrZero private java.math.BigDecimal quantity;
     @NotNull @Digits(integer = 10, fraction = 2) @PositiveOrZero private java.math.BigDecimal unitPrice;
     @NotNull @Digits(integer = 1, fraction = 4) private java.math.BigDecimal discount;
+    private java.math.BigDecimal lineTotal;
 
 }
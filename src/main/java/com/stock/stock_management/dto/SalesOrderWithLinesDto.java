@@ -0,0 +1,19 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.util.List;
+
+/** A sales order and its lines as one document; each line's {@code salesOrderId} is assigned by the server. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesOrderWithLinesDto implements Serializable {
+
+    @Valid @NotNull private SalesOrderDto order;
+    @NotEmpty @Size(max = 1000) private List<@NotNull @Valid SalesOrderLineDto> lines;
+
+}
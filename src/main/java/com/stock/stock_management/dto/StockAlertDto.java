@@ -0,0 +1,29 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/** A stock level whose available quantity (current - reserved) crossed its stock_alert_qty threshold. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class StockAlertDto implements Serializable {
+
+    public static final String STATE_LOW = "low";
+    public static final String STATE_RECOVERED = "recovered";
+
+    private Long productId;
+    private Long warehouseId;
+    private String state;
+    private BigDecimal availableQty;
+    private BigDecimal stockAlertQty;
+    /** When the level went low (kept on the matching "recovered" event). */
+    private OffsetDateTime since;
+
+}
@@ -0,0 +1,19 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import java.io.Serializable;
+import java.util.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockLevelBulkResultDto implements Serializable {
+
+    private long received;
+    private long upserted;
+    private long rejected;
+    /** First rejected rows, as "line N: reason" (capped). */
+    @Builder.Default private List<String> errors = new ArrayList<>();
+
+}
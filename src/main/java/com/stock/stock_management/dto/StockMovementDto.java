@@ -0,0 +1,28 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import jakarta.validation.constraints.*;
+import java.math.*;
+import java.time.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@SuperBuilder(toBuilder = true)
+@JsonInclude(Include.NON_NULL)
+public class StockMovementDto extends BaseDto {
+
+    private Long id;
+    @NotNull private Long productId;
+    @NotNull private Long warehouseId;
+    @NotNull @Size(max = 16) private String movementType;
+    @NotNull @Digits(integer = 11, fraction = 3) private java.math.BigDecimal quantity;
+    @Size(max = 32) private String referenceType;
+    private Long referenceId;
+    private java.time.OffsetDateTime occurredAt;
+
+}
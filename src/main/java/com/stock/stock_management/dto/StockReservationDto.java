@@ -0,0 +1,15 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservationDto implements Serializable {
+
+    @NotNull @Digits(integer = 11, fraction = 3) @Positive private java.math.BigDecimal quantity;
+
+}
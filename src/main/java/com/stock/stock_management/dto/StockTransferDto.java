@@ -0,0 +1,18 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockTransferDto implements Serializable {
+
+    @NotNull private Long productId;
+    @NotNull private Long fromWarehouseId;
+    @NotNull private Long toWarehouseId;
+    @NotNull @Digits(integer = 11, fraction = 3) @Positive private java.math.BigDecimal quantity;
+
+}
@@ -0,0 +1,25 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TotalsAuditDto implements Serializable {
+
+    private OffsetDateTime checkedAt;
+    private int partitions;
+    /** Drifted rows found (orders and invoices). */
+    private long drifted;
+    /** Rows reset to their recomputed totals; 0 unless a repair was requested. */
+    private long repaired;
+    /** True when more drift exists than is listed below. */
+    private boolean truncated;
+    /** First drifted fields (capped). */
+    @Builder.Default private List<TotalsDriftDto> drifts = new ArrayList<>();
+
+}
@@ -0,0 +1,23 @@
+package com.stock.stock_management.dto;
+
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TotalsDriftDto implements Serializable {
+
+    /** Table name, e.g. {@code sales_order}. */
+    private String entity;
+    private Long id;
+    /** Drifted column, e.g. {@code total_amount}. */
+    private String field;
+    /** Stored value. */
+    private BigDecimal actual;
+    /** Value recomputed from lines, payments or the order. */
+    private BigDecimal expected;
+
+}
@@ -5,7 +5,7 @@ import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,7 +14,7 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE client SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
 @Table(
     name = "client", schema = "public",
     uniqueConstraints = {
@@ -22,6 +22,7 @@ import org.hibernate.annotations.Where;
     },
     indexes = {
         @Index(name = "idx_client_uuid", columnList = "uuid"),
+        @Index(name = "idx_client_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_client_email", columnList = "email"),
         @Index(name = "idx_client_warehouse_id", columnList = "warehouse_id")
     }
@@ -29,7 +30,8 @@ import org.hibernate.annotations.Where;
 public class Client extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_client")
+    @SequenceGenerator(name = "seq_client", sequenceName = "seq_client", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -3,9 +3,12 @@ package com.stock.stock_management.entity;
 import jakarta.persistence.*;
 import jakarta.persistence.Index;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Comment;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,7 +17,9 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE enterprise SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.enterprise")
+@NaturalIdCache(region = "naturalid.enterprise")
 @Table(
     name = "enterprise", schema = "public",
     uniqueConstraints = {
@@ -22,13 +27,15 @@ import org.hibernate.annotations.Where;
     },
     indexes = {
         @Index(name = "idx_enterprise_uuid", columnList = "uuid"),
+        @Index(name = "idx_enterprise_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_enterprise_name", columnList = "name")
     }
 )
 public class Enterprise extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_enterprise")
+    @SequenceGenerator(name = "seq_enterprise", sequenceName = "seq_enterprise", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
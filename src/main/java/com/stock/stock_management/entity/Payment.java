@@ -5,7 +5,7 @@ import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,21 +14,24 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE payment SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
 @Table(
     name = "payment", schema = "public",
     uniqueConstraints = {
-        @UniqueConstraint(name = "uk_payment_uuid", columnNames = {"uuid"})
+        @UniqueConstraint(name = "uk_payment_uuid", columnNames = {"uuid"}),
+        @UniqueConstraint(name = "uk_payment_idempotency_key", columnNames = {"idempotency_key"})
     },
     indexes = {
         @Index(name = "idx_payment_uuid", columnList = "uuid"),
+        @Index(name = "idx_payment_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_payment_sales_order_id", columnList = "sales_order_id")
     }
 )
 public class Payment extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_payment")
+    @SequenceGenerator(name = "seq_payment", sequenceName = "seq_payment", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -45,5 +48,9 @@ public class Payment extends BaseEntity {
     @JoinColumn(name = "sales_order_id", nullable = true)
     private SalesOrder salesOrder;
 
+    /** Client-chosen key (e.g. the terminal's transaction id); a repeated create with it returns the first payment. */
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
 
 }
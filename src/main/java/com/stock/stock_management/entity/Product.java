@@ -3,9 +3,12 @@ package com.stock.stock_management.entity;
 import jakarta.persistence.*;
 import jakarta.persistence.Index;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Comment;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,7 +17,9 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE product SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.product")
+@NaturalIdCache(region = "naturalid.product")
 @Table(
     name = "product", schema = "public",
     uniqueConstraints = {
@@ -22,6 +27,7 @@ import org.hibernate.annotations.Where;
     },
     indexes = {
         @Index(name = "idx_product_uuid", columnList = "uuid"),
+        @Index(name = "idx_product_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_product_name", columnList = "name"),
         @Index(name = "idx_product_category_id", columnList = "category_id")
     }
@@ -29,7 +35,8 @@ import org.hibernate.annotations.Where;
 public class Product extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_product")
+    @SequenceGenerator(name = "seq_product", sequenceName = "seq_product", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -5,7 +5,7 @@ import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,7 +14,7 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE purchase_invoice SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
 @Table(
     name = "purchase_invoice", schema = "public",
     uniqueConstraints = {
@@ -22,13 +22,17 @@ import org.hibernate.annotations.Where;
     },
     indexes = {
         @Index(name = "idx_purchase_invoice_uuid", columnList = "uuid"),
-        @Index(name = "idx_purchase_invoice_purchase_order_id", columnList = "purchase_order_id")
+        @Index(name = "idx_purchase_invoice_created_at_uuid", columnList = "created_at, uuid"),
+        @Index(name = "idx_purchase_invoice_purchase_order_id", columnList = "purchase_order_id"),
+        @Index(name = "idx_purchase_invoice_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_purchase_invoice_due_date", columnList = "due_date")
     }
 )
 public class PurchaseInvoice extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_purchase_invoice")
+    @SequenceGenerator(name = "seq_purchase_invoice", sequenceName = "seq_purchase_invoice", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
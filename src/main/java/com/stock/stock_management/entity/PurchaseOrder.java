@@ -5,7 +5,7 @@ import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,7 +14,7 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE purchase_order SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
 @Table(
     name = "purchase_order", schema = "public",
     uniqueConstraints = {
@@ -22,14 +22,18 @@ import org.hibernate.annotations.Where;
     },
     indexes = {
         @Index(name = "idx_purchase_order_uuid", columnList = "uuid"),
+        @Index(name = "idx_purchase_order_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_purchase_order_supplier_id", columnList = "supplier_id"),
-        @Index(name = "idx_purchase_order_warehouse_id", columnList = "warehouse_id")
+        @Index(name = "idx_purchase_order_warehouse_id_order_date", columnList = "warehouse_id, order_date"),
+        @Index(name = "idx_purchase_order_status_order_date", columnList = "status, order_date"),
+        @Index(name = "idx_purchase_order_order_date", columnList = "order_date")
     }
 )
 public class PurchaseOrder extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_purchase_order")
+    @SequenceGenerator(name = "seq_purchase_order", sequenceName = "seq_purchase_order", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
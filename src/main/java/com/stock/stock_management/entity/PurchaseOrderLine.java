@@ -4,24 +4,28 @@ import jakarta.persistence.*;
 import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
+import org.hibernate.annotations.PartitionKey;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
+/**
+ * Stored hash-partitioned on the purchase order id: the database key is (id, purchase_order_id). Id/uuid uniqueness and the
+ * id -> partition lookup live in purchase_order_line_key, kept in step by trigger (changeset 115).
+ */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
-@SQLDelete(sql = "UPDATE purchase_order_line SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLDelete(sql = "UPDATE purchase_order_line l SET deleted = true, deleted_at = now() FROM purchase_order_line_key k "
+    + "WHERE k.id = ? AND l.id = k.id AND l.purchase_order_id = k.purchase_order_id")
+@SQLRestriction("deleted = false")
 @Table(
     name = "purchase_order_line", schema = "public",
-    uniqueConstraints = {
-        @UniqueConstraint(name = "uk_purchase_order_line_uuid", columnNames = {"uuid"})
-    },
     indexes = {
         @Index(name = "idx_purchase_order_line_uuid", columnList = "uuid"),
+        @Index(name = "idx_purchase_order_line_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_purchase_order_line_purchase_order_id", columnList = "purchase_order_id"),
         @Index(name = "idx_purchase_order_line_product_id", columnList = "product_id")
     }
@@ -29,7 +33,8 @@ import org.hibernate.annotations.Where;
 public class PurchaseOrderLine extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_purchase_order_line")
+    @SequenceGenerator(name = "seq_purchase_order_line", sequenceName = "seq_purchase_order_line", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -37,6 +42,12 @@ public class PurchaseOrderLine extends BaseEntity {
     @JoinColumn(name = "purchase_order_id", nullable = false)
     private PurchaseOrder purchaseOrder;
 
+    /** Read-only copy of the partition key: Hibernate adds it to the WHERE clause of its UPDATEs. */
+    @PartitionKey
+    @Setter(AccessLevel.NONE)
+    @Column(name = "purchase_order_id", insertable = false, updatable = false)
+    private Long purchaseOrderId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
@@ -50,5 +61,19 @@ public class PurchaseOrderLine extends BaseEntity {
     @Column(name = "discount", nullable = false, precision = 5, scale = 4)
     private java.math.BigDecimal discount;
 
+    /** Tax-inclusive amount this line adds to its order's total_amount; computed server-side. */
+    @Column(name = "line_total", nullable = false, precision = 12, scale = 2)
+    private java.math.BigDecimal lineTotal;
+
+    public void setPurchaseOrder(PurchaseOrder purchaseOrder) {
+        this.purchaseOrder = purchaseOrder;
+        this.purchaseOrderId = purchaseOrder != null ? purchaseOrder.getId() : null;
+    }
 
+    @Override
+    @PrePersist
+    protected void onPrePersist() {
+        super.onPrePersist();
+        this.purchaseOrderId = purchaseOrder != null ? purchaseOrder.getId() : null;
+    }
 }
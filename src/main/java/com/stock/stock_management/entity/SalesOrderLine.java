@@ -4,24 +4,28 @@ import jakarta.persistence.*;
 import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
+import org.hibernate.annotations.PartitionKey;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
+/**
+ * Stored hash-partitioned on the sales order id: the database key is (id, sales_order_id). Id/uuid uniqueness and the
+ * id -> partition lookup live in sales_order_line_key, kept in step by trigger (changeset 115).
+ */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
-@SQLDelete(sql = "UPDATE sales_order_line SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLDelete(sql = "UPDATE sales_order_line l SET deleted = true, deleted_at = now() FROM sales_order_line_key k "
+    + "WHERE k.id = ? AND l.id = k.id AND l.sales_order_id = k.sales_order_id")
+@SQLRestriction("deleted = false")
 @Table(
     name = "sales_order_line", schema = "public",
-    uniqueConstraints = {
-        @UniqueConstraint(name = "uk_sales_order_line_uuid", columnNames = {"uuid"})
-    },
     indexes = {
         @Index(name = "idx_sales_order_line_uuid", columnList = "uuid"),
+        @Index(name = "idx_sales_order_line_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_sales_order_line_sales_order_id", columnList = "sales_order_id"),
         @Index(name = "idx_sales_order_line_product_id", columnList = "product_id")
     }
@@ -29,7 +33,8 @@ import org.hibernate.annotations.Where;
 public class SalesOrderLine extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_sales_order_line")
+    @SequenceGenerator(name = "seq_sales_order_line", sequenceName = "seq_sales_order_line", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -37,6 +42,12 @@ public class SalesOrderLine extends BaseEntity {
     @JoinColumn(name = "sales_order_id", nullable = false)
     private SalesOrder salesOrder;
 
+    /** Read-only copy of the partition key: Hibernate adds it to the WHERE clause of its UPDATEs. */
+    @PartitionKey
+    @Setter(AccessLevel.NONE)
+    @Column(name = "sales_order_id", insertable = false, updatable = false)
+    private Long salesOrderId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
@@ -50,5 +61,19 @@ public class SalesOrderLine extends BaseEntity {
     @Column(name = "discount", nullable = false, precision = 5, scale = 4)
     private java.math.BigDecimal discount;
 
+    /** Tax-inclusive amount this line adds to its order's total_amount; computed server-side. */
+    @Column(name = "line_total", nullable = false, precision = 12, scale = 2)
+    private java.math.BigDecimal lineTotal;
+
+    public void setSalesOrder(SalesOrder salesOrder) {
+        this.salesOrder = salesOrder;
+        this.salesOrderId = salesOrder != null ? salesOrder.getId() : null;
+    }
 
+    @Override
+    @PrePersist
+    protected void onPrePersist() {
+        super.onPrePersist();
+        this.salesOrderId = salesOrder != null ? salesOrder.getId() : null;
+    }
 }
@@ -5,7 +5,7 @@ import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,14 +14,15 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE stock_level SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
 @Table(
     name = "stock_level", schema = "public",
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_stock_level_uuid", columnNames = {"uuid"})
     },
     indexes = {
-        @Index(name = "idx_stock_level_uuid", columnList = "uuid")
+        @Index(name = "idx_stock_level_uuid", columnList = "uuid"),
+        @Index(name = "idx_stock_level_created_at_uuid", columnList = "created_at, uuid")
     }
 )
 public class StockLevel extends BaseEntity {
@@ -0,0 +1,71 @@
+package com.stock.stock_management.entity;
+
+import jakarta.persistence.*;
+import jakarta.persistence.Index;
+import lombok.*;
+import org.hibernate.annotations.Comment;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
+
+/** Append-only stock ledger row; {@code quantity} is the signed delta applied to the (product, warehouse) level. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@SQLDelete(sql = "UPDATE stock_movement SET deleted = true, deleted_at = now() WHERE uuid = ?")
+@SQLRestriction("deleted = false")
+@Table(
+    name = "stock_movement", schema = "public",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_movement_uuid", columnNames = {"uuid"})
+    },
+    indexes = {
+        @Index(name = "idx_stock_movement_uuid", columnList = "uuid"),
+        @Index(name = "idx_stock_movement_created_at_uuid", columnList = "created_at, uuid"),
+        @Index(name = "idx_stock_movement_warehouse_id_product_id", columnList = "warehouse_id, product_id"),
+        @Index(name = "idx_stock_movement_product_id_occurred_at", columnList = "product_id, occurred_at"),
+        @Index(name = "idx_stock_movement_occurred_at", columnList = "occurred_at"),
+        @Index(name = "idx_stock_movement_reference", columnList = "reference_type, reference_id")
+    }
+)
+public class StockMovement extends BaseEntity {
+
+    public static final String TYPE_RECEIPT = "receipt";
+    public static final String TYPE_ISSUE = "issue";
+    public static final String TYPE_TRANSFER_IN = "transfer_in";
+    public static final String TYPE_TRANSFER_OUT = "transfer_out";
+    public static final String TYPE_ADJUSTMENT = "adjustment";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_stock_movement")
+    @SequenceGenerator(name = "seq_stock_movement", sequenceName = "seq_stock_movement", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
+    @Column(name = "movement_type", nullable = false, length = 16)
+    private String movementType;
+
+    @Column(name = "quantity", nullable = false, precision = 14, scale = 3)
+    private java.math.BigDecimal quantity;
+
+    @Column(name = "reference_type", length = 32)
+    private String referenceType;
+
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private java.time.OffsetDateTime occurredAt;
+
+
+}
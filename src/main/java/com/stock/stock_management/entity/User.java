@@ -5,7 +5,7 @@ import jakarta.persistence.Index;
 import lombok.*;
 import org.hibernate.annotations.Comment;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -13,8 +13,8 @@ import org.hibernate.annotations.Where;
 @AllArgsConstructor
 @Builder
 @Entity
-@SQLDelete(sql = "UPDATE user SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLDelete(sql = "UPDATE \"user\" SET deleted = true, deleted_at = now() WHERE uuid = ?")
+@SQLRestriction("deleted = false")
 @Table(
     name = "user", schema = "public",
     uniqueConstraints = {
@@ -22,6 +22,7 @@ import org.hibernate.annotations.Where;
     },
     indexes = {
         @Index(name = "idx_user_uuid", columnList = "uuid"),
+        @Index(name = "idx_user_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_user_username", columnList = "username"),
         @Index(name = "idx_user_email", columnList = "email"),
         @Index(name = "idx_user_warehouse_id", columnList = "warehouse_id")
@@ -30,7 +31,8 @@ import org.hibernate.annotations.Where;
 public class User extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_user")
+    @SequenceGenerator(name = "seq_user", sequenceName = "seq_user", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -3,9 +3,12 @@ package com.stock.stock_management.entity;
 import jakarta.persistence.*;
 import jakarta.persistence.Index;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Comment;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -14,7 +17,9 @@ import org.hibernate.annotations.Where;
 @Builder
 @Entity
 @SQLDelete(sql = "UPDATE warehouse SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
+@SQLRestriction("deleted = false")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.warehouse")
+@NaturalIdCache(region = "naturalid.warehouse")
 @Table(
     name = "warehouse", schema = "public",
     uniqueConstraints = {
@@ -22,6 +27,7 @@ import org.hibernate.annotations.Where;
     },
     indexes = {
         @Index(name = "idx_warehouse_uuid", columnList = "uuid"),
+        @Index(name = "idx_warehouse_created_at_uuid", columnList = "created_at, uuid"),
         @Index(name = "idx_warehouse_code", columnList = "code"),
         @Index(name = "idx_warehouse_enterprise_id", columnList = "enterprise_id")
     }
@@ -29,7 +35,8 @@ import org.hibernate.annotations.Where;
 public class Warehouse extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_warehouse")
+    @SequenceGenerator(name = "seq_warehouse", sequenceName = "seq_warehouse", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -74,6 +74,13 @@ public final class ConstraintCatalog {
         byConstraint.put("nn_payment_payment_method".toLowerCase(java.util.Locale.ROOT), ErrorCode.PAYMENT_PAYMENT_METHOD_REQUIRED);
         byConstraint.put("nn_payment_payment_type".toLowerCase(java.util.Locale.ROOT), ErrorCode.PAYMENT_PAYMENT_TYPE_REQUIRED);
         byConstraint.put("fk_payment_sales_order_id".toLowerCase(java.util.Locale.ROOT), ErrorCode.PAYMENT_SALES_ORDER_ID_FK_VIOLATION);
+        byConstraint.put("uk_payment_idempotency_key".toLowerCase(java.util.Locale.ROOT), ErrorCode.PAYMENT_IDEMPOTENCY_KEY_DUPLICATE);
+        byConstraint.put("fk_stock_movement_product_id_product".toLowerCase(java.util.Locale.ROOT), ErrorCode.STOCKMOVEMENT_PRODUCT_ID_FK_VIOLATION);
+        byConstraint.put("nn_stock_movement_product_id".toLowerCase(java.util.Locale.ROOT), ErrorCode.STOCKMOVEMENT_PRODUCT_ID_REQUIRED);
+        byConstraint.put("fk_stock_movement_warehouse_id_warehouse".toLowerCase(java.util.Locale.ROOT), ErrorCode.STOCKMOVEMENT_WAREHOUSE_ID_FK_VIOLATION);
+        byConstraint.put("nn_stock_movement_warehouse_id".toLowerCase(java.util.Locale.ROOT), ErrorCode.STOCKMOVEMENT_WAREHOUSE_ID_REQUIRED);
+        byConstraint.put("nn_stock_movement_movement_type".toLowerCase(java.util.Locale.ROOT), ErrorCode.STOCKMOVEMENT_MOVEMENT_TYPE_REQUIRED);
+        byConstraint.put("nn_stock_movement_quantity".toLowerCase(java.util.Locale.ROOT), ErrorCode.STOCKMOVEMENT_QUANTITY_REQUIRED);
     }
 
     private ConstraintCatalog() {}
@@ -0,0 +1,82 @@
+package com.stock.stock_management.error;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Maps an exception to the ErrorCode and HTTP status that {@link GlobalExceptionHandler} would answer with,
+ * for endpoints that report errors per item instead of failing the whole request.
+ */
+public final class ErrorClassifier {
+
+    private ErrorClassifier() {}
+
+    public static ErrorCode codeOf(Throwable ex) {
+        if (ex instanceof ResourceNotFoundException) return ErrorCode.NOT_FOUND;
+        if (ex instanceof DuplicateResourceException) return ErrorCode.DUPLICATE;
+        if (ex instanceof IdempotencyKeyMismatchException) return ErrorCode.IDEMPOTENCY_KEY_MISMATCH;
+        if (ex instanceof ForeignKeyNotFoundException) return ErrorCode.FK_NOT_FOUND;
+        if (ex instanceof MissingRequiredFieldException || ex instanceof InvalidValueException) return ErrorCode.BAD_REQUEST;
+        if (ex instanceof ReferentialIntegrityException) return ErrorCode.REF_INTEGRITY;
+        if (ex instanceof InsufficientStockException) return ErrorCode.INSUFFICIENT_STOCK;
+        if (ex instanceof ServiceBusyException) return ErrorCode.SERVICE_BUSY;
+        if (ex instanceof PreconditionFailedException || ex instanceof OptimisticLockingFailureException) return ErrorCode.PRECONDITION_FAILED;
+        if (ex instanceof ConstraintViolationException) return ErrorCode.VALIDATION_ERROR;
+        if (isIntegrityViolation(ex)) {
+            return ConstraintCatalog.resolve(constraintName(ex)).orElse(ErrorCode.DATA_INTEGRITY);
+        }
+        return ErrorCode.INTERNAL_ERROR;
+    }
+
+    public static HttpStatus statusOf(ErrorCode code) {
+        return switch (code) {
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case DUPLICATE, REF_INTEGRITY, INSUFFICIENT_STOCK, IDEMPOTENCY_IN_PROGRESS -> HttpStatus.CONFLICT;
+            case BAD_REQUEST -> HttpStatus.BAD_REQUEST;
+            case SERVICE_BUSY -> HttpStatus.SERVICE_UNAVAILABLE;
+            case PRECONDITION_FAILED -> HttpStatus.PRECONDITION_FAILED;
+            case INTERNAL_ERROR -> HttpStatus.INTERNAL_SERVER_ERROR;
+            // FK_NOT_FOUND, VALIDATION_ERROR, DATA_INTEGRITY and every constraint-specific code
+            default -> HttpStatus.UNPROCESSABLE_ENTITY;
+        };
+    }
+
+    /** Client-safe message: the exception text for application errors, a fixed one otherwise. */
+    public static String messageOf(Throwable ex, ErrorCode code) {
+        if (code == ErrorCode.INTERNAL_ERROR) return "Unexpected error";
+        if (isIntegrityViolation(ex)) return "Database constraint violated: " + constraintName(ex);
+        return ex.getMessage();
+    }
+
+    // Basic heuristic: many drivers include 'constraint [name]' or 'violates constraint "name"'
+    public static String constraintName(Throwable t) {
+        if (t == null) return null;
+        String msg = String.valueOf(t.getMessage());
+        // naive patterns
+        int i = msg.toLowerCase(Locale.ROOT).indexOf("constraint");
+        if (i >= 0) {
+            int q1 = msg.indexOf('"', i);
+            int q2 = (q1 >= 0) ? msg.indexOf('"', q1 + 1) : -1;
+            if (q1 >= 0 && q2 > q1) return msg.substring(q1 + 1, q2);
+            int b1 = msg.indexOf('(', i);
+            int b2 = (b1 >= 0) ? msg.indexOf(')', b1 + 1) : -1;
+            if (b1 >= 0 && b2 > b1) return msg.substring(b1 + 1, b2);
+        }
+        return constraintName(t.getCause());
+    }
+
+    /** Translated (Spring) or raw (Hibernate / JDBC SQLState 23xxx) integrity violation anywhere in the cause chain. */
+    private static boolean isIntegrityViolation(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof DataIntegrityViolationException) return true;
+            if (c instanceof org.hibernate.exception.ConstraintViolationException) return true;
+            if (c instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("23")) return true;
+        }
+        return false;
+    }
+}
@@ -11,6 +11,11 @@ public enum ErrorCode {
     VALIDATION_ERROR,
     DATA_INTEGRITY,
     INTERNAL_ERROR,
+    INSUFFICIENT_STOCK,
+    SERVICE_BUSY,
+    IDEMPOTENCY_IN_PROGRESS,
+    IDEMPOTENCY_KEY_MISMATCH,
+    PRECONDITION_FAILED,
 
     USER_USERNAME_DUPLICATE,
     USER_USERNAME_REQUIRED,
@@ -80,4 +85,11 @@ public enum ErrorCode {
     PAYMENT_PAYMENT_METHOD_REQUIRED,
     PAYMENT_PAYMENT_TYPE_REQUIRED,
     PAYMENT_SALES_ORDER_ID_FK_VIOLATION,
+    PAYMENT_IDEMPOTENCY_KEY_DUPLICATE,
+    STOCKMOVEMENT_PRODUCT_ID_REQUIRED,
+    STOCKMOVEMENT_PRODUCT_ID_FK_VIOLATION,
+    STOCKMOVEMENT_WAREHOUSE_ID_REQUIRED,
+    STOCKMOVEMENT_WAREHOUSE_ID_FK_VIOLATION,
+    STOCKMOVEMENT_MOVEMENT_TYPE_REQUIRED,
+    STOCKMOVEMENT_QUANTITY_REQUIRED,
 }
@@ -1,6 +1,7 @@
 package com.stock.stock_management.error;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +26,12 @@ public class GlobalExceptionHandler {
                 .body(ErrorResponse.of(ErrorCode.DUPLICATE.name(), ex.getMessage(), Map.of()));
     }
 
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyMismatch(IdempotencyKeyMismatchException ex) {
+        return ResponseEntity.unprocessableEntity()
+                .body(ErrorResponse.of(ErrorCode.IDEMPOTENCY_KEY_MISMATCH.name(), ex.getMessage(), Map.of()));
+    }
+
     @ExceptionHandler(ForeignKeyNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleFk(ForeignKeyNotFoundException ex) {
         return ResponseEntity.unprocessableEntity()
@@ -49,6 +56,27 @@ public class GlobalExceptionHandler {
                 .body(ErrorResponse.of(ErrorCode.REF_INTEGRITY.name(), ex.getMessage(), Map.of()));
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<ErrorResponse> handleInsufficientStock(InsufficientStockException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ErrorResponse.of(ErrorCode.INSUFFICIENT_STOCK.name(), ex.getMessage(), Map.of()));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleBusy(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ErrorResponse.of(ErrorCode.SERVICE_BUSY.name(), ex.getMessage(), Map.of()));
+    }
+
+    // If-Match / version mismatch, checked up front or caught by Hibernate's optimistic lock at flush
+    @ExceptionHandler({PreconditionFailedException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ErrorResponse> handlePrecondition(RuntimeException ex) {
+        String message = ex instanceof PreconditionFailedException ? ex.getMessage() : "resource was modified concurrently, re-read it and retry";
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ErrorResponse.of(ErrorCode.PRECONDITION_FAILED.name(), message, Map.of()));
+    }
+
     // DTO @Valid binding errors
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgNotValid(MethodArgumentNotValidException ex) {
@@ -71,7 +99,7 @@ public class GlobalExceptionHandler {
     // DB constraint safety net (unique/fk/not-null). Tries to resolve to a specific ErrorCode via ConstraintCatalog.
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrity(DataIntegrityViolationException ex) {
-        String constraint = extractConstraintName(ex);
+        String constraint = ErrorClassifier.constraintName(ex);
         Optional<ErrorCode> code = ConstraintCatalog.resolve(constraint);
         ErrorCode ec = code.orElse(ErrorCode.DATA_INTEGRITY);
         HttpStatus status = (ec == ErrorCode.DUPLICATE) ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY;
@@ -85,21 +113,4 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ErrorResponse.of(ErrorCode.INTERNAL_ERROR.name(), "Unexpected error", Map.of()));
     }
-
-    // Basic heuristic: many drivers include 'constraint [name]' or 'violates constraint "name"'
-    private String extractConstraintName(Throwable t) {
-        if (t == null) return null;
-        String msg = String.valueOf(t.getMessage());
-        // naive patterns
-        int i = msg.toLowerCase().indexOf("constraint");
-        if (i >= 0) {
-            int q1 = msg.indexOf('"', i);
-            int q2 = (q1 >= 0) ? msg.indexOf('"', q1 + 1) : -1;
-            if (q1 >= 0 && q2 > q1) return msg.substring(q1 + 1, q2);
-            int b1 = msg.indexOf('(', i);
-            int b2 = (b1 >= 0) ? msg.indexOf(')', b1 + 1) : -1;
-            if (b1 >= 0 && b2 > b1) return msg.substring(b1 + 1, b2);
-        }
-        return extractConstraintName(t.getCause());
-    }
 }
@@ -0,0 +1,6 @@
+package com.stock.stock_management.error;
+
+/** An idempotency key reused for a different request; answered like the Idempotency-Key header's mismatch (422). */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String message) { super(message); }
+}
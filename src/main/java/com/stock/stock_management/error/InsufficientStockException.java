@@ -0,0 +1,5 @@
+package com.stock.stock_management.error;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) { super(message); }
+}
@@ -0,0 +1,5 @@
+package com.stock.stock_management.error;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) { super(message); }
+}
@@ -0,0 +1,5 @@
+package com.stock.stock_management.error;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) { super(message); }
+}
@@ -24,5 +24,6 @@ public interface PaymentMapper extends BaseAuditMapper {
 
     // PATCH: update only non-null properties from DTO -> Entity
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "idempotencyKey", ignore = true)
     void updateEntityFromDto(PaymentDto dto, @MappingTarget Payment entity);
 }
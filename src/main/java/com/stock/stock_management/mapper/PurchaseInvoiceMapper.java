@@ -11,7 +11,8 @@ import com.stock.stock_management.dto.PurchaseInvoiceDto;
 public interface PurchaseInvoiceMapper extends BaseAuditMapper {
 
     @Mappings({
-        @Mapping(target = "purchaseOrder", ignore = true)
+        @Mapping(target = "purchaseOrder", ignore = true),
+        @Mapping(target = "totalAmount", ignore = true)
     })
     PurchaseInvoice toEntity(PurchaseInvoiceDto dto);
 
@@ -24,5 +25,6 @@ public interface PurchaseInvoiceMapper extends BaseAuditMapper {
 
     // PATCH: update only non-null properties from DTO -> Entity
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "totalAmount", ignore = true)
     void updateEntityFromDto(PurchaseInvoiceDto dto, @MappingTarget PurchaseInvoice entity);
 }
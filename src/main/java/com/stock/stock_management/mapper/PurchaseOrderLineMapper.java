@@ -13,7 +13,9 @@ public interface PurchaseOrderLineMapper extends BaseAuditMapper {
 
     @Mappings({
         @Mapping(target = "purchaseOrder", ignore = true),
-        @Mapping(target = "product", ignore = true)
+        @Mapping(target = "purchaseOrderId", ignore = true),
+        @Mapping(target = "product", ignore = true),
+        @Mapping(target = "lineTotal", ignore = true)
     })
     PurchaseOrderLine toEntity(PurchaseOrderLineDto dto);
 
@@ -27,5 +29,7 @@ public interface PurchaseOrderLineMapper extends BaseAuditMapper {
 
     // PATCH: update only non-null properties from DTO -> Entity
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "lineTotal", ignore = true)
+    @Mapping(target = "purchaseOrderId", ignore = true)
     void updateEntityFromDto(PurchaseOrderLineDto dto, @MappingTarget PurchaseOrderLine entity);
 }
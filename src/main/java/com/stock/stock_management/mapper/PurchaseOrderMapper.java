@@ -13,7 +13,8 @@ public interface PurchaseOrderMapper extends BaseAuditMapper {
 
     @Mappings({
         @Mapping(target = "supplier", ignore = true),
-        @Mapping(target = "warehouse", ignore = true)
+        @Mapping(target = "warehouse", ignore = true),
+        @Mapping(target = "totalAmount", ignore = true)
     })
     PurchaseOrder toEntity(PurchaseOrderDto dto);
 
@@ -27,5 +28,6 @@ public interface PurchaseOrderMapper extends BaseAuditMapper {
 
     // PATCH: update only non-null properties from DTO -> Entity
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "totalAmount", ignore = true)
     void updateEntityFromDto(PurchaseOrderDto dto, @MappingTarget PurchaseOrder entity);
 }
@@ -11,7 +11,8 @@ import com.stock.stock_management.dto.SalesInvoiceDto;
 public interface SalesInvoiceMapper extends BaseAuditMapper {
 
     @Mappings({
-        @Mapping(target = "salesOrder", ignore = true)
+        @Mapping(target = "salesOrder", ignore = true),
+        @Mapping(target = "paidAmount", ignore = true)
     })
     SalesInvoice toEntity(SalesInvoiceDto dto);
 
@@ -24,5 +25,6 @@ public interface SalesInvoiceMapper extends BaseAuditMapper {
 
     // PATCH: update only non-null properties from DTO -> Entity
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "paidAmount", ignore = true)
     void updateEntityFromDto(SalesInvoiceDto dto, @MappingTarget SalesInvoice entity);
 }
@@ -13,7 +13,9 @@ public interface SalesOrderLineMapper extends BaseAuditMapper {
 
     @Mappings({
         @Mapping(target = "salesOrder", ignore = true),
-        @Mapping(target = "product", ignore = true)
+        @Mapping(target = "salesOrderId", ignore = true),
+        @Mapping(target = "product", ignore = true),
+        @Mapping(target = "lineTotal", ignore = true)
     })
     SalesOrderLine toEntity(SalesOrderLineDto dto);
 
@@ -27,5 +29,7 @@ public interface SalesOrderLineMapper extends BaseAuditMapper {
 
     // PATCH: update only non-null properties from DTO -> Entity
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "lineTotal", ignore = true)
+    @Mapping(target = "salesOrderId", ignore = true)
     void updateEntityFromDto(SalesOrderLineDto dto, @MappingTarget SalesOrderLine entity);
 }
@@ -13,7 +13,9 @@ public interface SalesOrderMapper extends BaseAuditMapper {
 
     @Mappings({
         @Mapping(target = "client", ignore = true),
-        @Mapping(target = "warehouse", ignore = true)
+        @Mapping(target = "warehouse", ignore = true),
+        @Mapping(target = "totalAmount", ignore = true),
+        @Mapping(target = "amountPaid", ignore = true)
     })
     SalesOrder toEntity(SalesOrderDto dto);
 
@@ -27,5 +29,7 @@ public interface SalesOrderMapper extends BaseAuditMapper {
 
     // PATCH: update only non-null properties from DTO -> Entity
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "totalAmount", ignore = true)
+    @Mapping(target = "amountPaid", ignore = true)
     void updateEntityFromDto(SalesOrderDto dto, @MappingTarget SalesOrder entity);
 }
@@ -0,0 +1,25 @@
+package com.stock.stock_management.mapper;
+
+
+import org.mapstruct.*;
+import java.util.*;
+import com.stock.stock_management.entity.StockMovement;
+import com.stock.stock_management.dto.StockMovementDto;
+
+@Mapper(config = BaseMapperConfig.class)
+public interface StockMovementMapper extends BaseAuditMapper {
+
+    @Mappings({
+        @Mapping(target = "product", ignore = true),
+        @Mapping(target = "warehouse", ignore = true)
+    })
+    StockMovement toEntity(StockMovementDto dto);
+
+    @Mappings({
+        @Mapping(source = "product.id", target = "productId"),
+        @Mapping(source = "warehouse.id", target = "warehouseId")
+    })
+    StockMovementDto toDto(StockMovement entity);
+
+    List<StockMovementDto> toDtoList(List<StockMovement> entities);
+}
@@ -1,10 +1,20 @@
 package com.stock.stock_management.repository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
 
 import com.stock.stock_management.entity.BaseEntity;
 
@@ -12,10 +22,37 @@ import com.stock.stock_management.entity.BaseEntity;
 public interface BaseRepository<T extends BaseEntity, ID>
         extends JpaRepository<T, ID>, JpaSpecificationExecutor<T> {
 
+    Sort KEYSET_SORT = Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("uuid"));
+
     Optional<T> findByUuid(UUID uuid);
     boolean existsByUuid(UUID uuid);
     boolean existsByUuidAndIdNot(UUID uuid, ID id);
 
+    /** Forward-only cursor over all rows; must be consumed (and closed) inside a transaction. */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<T> streamAllBy();
+
+    /**
+     * Seek page over (created_at, uuid): rows strictly after {@code after} (or from the start when null),
+     * at most {@code limit} of them. Uses the composite index and never issues a count query.
+     */
+    default List<T> findAfter(KeysetCursor after, int limit) {
+        Specification<T> seek = (root, query, cb) -> after == null ? null : cb.or(
+            cb.greaterThan(root.<OffsetDateTime>get("createdAt"), after.createdAt()),
+            cb.and(cb.equal(root.get("createdAt"), after.createdAt()), cb.greaterThan(root.<UUID>get("uuid"), after.uuid())));
+        return findBy(seek, q -> q.sortBy(KEYSET_SORT).limit(limit).all());
+    }
+
+    /** Version probe for conditional requests: two columns, no entity materialized. */
+    @Query("SELECT e.uuid AS uuid, e.version AS version FROM #{#entityName} e WHERE e.id = :id")
+    Optional<VersionView> findVersionById(@Param("id") ID id);
+
+    @Query("SELECT e.uuid AS uuid, e.version AS version FROM #{#entityName} e WHERE e.uuid = :uuid")
+    Optional<VersionView> findVersionByUuid(@Param("uuid") UUID uuid);
+
     /** Obtain a reference proxy without hitting the DB (throws on first access if missing). */
     default T getRef(ID id) {
         return getReferenceById(id);
@@ -1,12 +1,78 @@
 package com.stock.stock_management.repository;
 
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.Category;
 
 public interface CategoryRepository extends BaseRepository<Category, Long> {
 
+    /** uuid → id resolution goes through the query cache; the row itself comes from the entity region. */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    java.util.Optional<Category> findByUuid(java.util.UUID uuid);
+
     boolean existsByName(String name);
     boolean existsByNameAndIdNot(String name, Long id);
     java.util.Optional<Category> findByNameIgnoreCase(String name);
     long countByParentId(Long parentId);
 
+    // ========= Closure table (category_closure) =========
+    /**
+     * Tree-wide transaction-scoped advisory lock. Closure writers take it before reading any parent, so two
+     * concurrent moves cannot each pass the cycle check against a tree the other is changing.
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT pg_advisory_xact_lock(hashtextextended('category_tree', 0))) l", nativeQuery = true)
+    long lockTree();
+
+    /** Rows of a new leaf: the parent's ancestors (none for a root) plus itself. Flushes first for the FK. */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_closure"))
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) "
+            + "SELECT ancestor_id, :id, depth + 1 FROM category_closure WHERE descendant_id = :parentId "
+            + "UNION ALL SELECT :id, :id, 0", nativeQuery = true)
+    int insertClosure(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    /** Cuts the subtree of {@code id} from all of its ancestors; the pairs inside the subtree stay. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_closure"))
+    @Query(value = "DELETE FROM category_closure "
+            + "WHERE descendant_id IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = :id) "
+            + "AND ancestor_id IN (SELECT ancestor_id FROM category_closure WHERE descendant_id = :id AND ancestor_id <> :id)",
+            nativeQuery = true)
+    int detachSubtree(@Param("id") Long id);
+
+    /** Hangs the (detached) subtree of {@code id} under {@code parentId}: every ancestor × every descendant. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_closure"))
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) "
+            + "SELECT a.ancestor_id, d.descendant_id, a.depth + d.depth + 1 FROM category_closure a "
+            + "JOIN category_closure d ON d.ancestor_id = :id WHERE a.descendant_id = :parentId", nativeQuery = true)
+    int attachSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    /** A deleted category is a leaf (guardDelete), so only the pairs ending at it exist. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_closure"))
+    @Query(value = "DELETE FROM category_closure WHERE descendant_id = :id", nativeQuery = true)
+    int deleteClosure(@Param("id") Long id);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM category_closure WHERE ancestor_id = :ancestorId AND descendant_id = :descendantId)",
+            nativeQuery = true)
+    boolean isInSubtree(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    /** Per-warehouse stock of every product in the subtree of {@code id}: closure range scan, then FK index joins. */
+    @Query(value = "SELECT s.warehouse_id AS warehouseId, COUNT(*) AS products, "
+            + "COALESCE(SUM(s.current_qty), 0) AS currentQty, COALESCE(SUM(s.reserved_qty), 0) AS reservedQty "
+            + "FROM category_closure c "
+            + "JOIN product p ON p.category_id = c.descendant_id AND p.deleted = false "
+            + "JOIN stock_level s ON s.product_id = p.id AND s.deleted = false "
+            + "WHERE c.ancestor_id = :id GROUP BY s.warehouse_id ORDER BY s.warehouse_id", nativeQuery = true)
+    List<CategoryStock> sumSubtreeStock(@Param("id") Long id);
+
 }
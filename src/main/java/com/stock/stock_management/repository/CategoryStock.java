@@ -0,0 +1,12 @@
+package com.stock.stock_management.repository;
+
+import java.math.BigDecimal;
+
+/** Stock of one warehouse summed over the products of a category subtree (native query projection). */
+public interface CategoryStock {
+
+    Long getWarehouseId();
+    Long getProducts();
+    BigDecimal getCurrentQty();
+    BigDecimal getReservedQty();
+}
@@ -1,9 +1,18 @@
 package com.stock.stock_management.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import com.stock.stock_management.entity.Enterprise;
 
 public interface EnterpriseRepository extends BaseRepository<Enterprise, Long> {
 
+    /** uuid → id resolution goes through the query cache; the row itself comes from the entity region. */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    java.util.Optional<Enterprise> findByUuid(java.util.UUID uuid);
+
     boolean existsByName(String name);
     boolean existsByNameAndIdNot(String name, Long id);
     java.util.Optional<Enterprise> findByNameIgnoreCase(String name);
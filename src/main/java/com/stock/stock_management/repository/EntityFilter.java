@@ -0,0 +1,143 @@
+package com.stock.stock_management.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.stock.stock_management.entity.BaseEntity;
+import com.stock.stock_management.error.InvalidValueException;
+
+/**
+ * Whitelist of filterable fields for one entity, and the parser for the {@code ?filter=} query language:
+ * {@code field:op:value[,field:op:value...]}, clauses ANDed. Operators are {@code eq, ne, lt, lte, gt, gte}
+ * and {@code in} (values separated by {@code |}); strings and booleans only take {@code eq, ne, in}.
+ * Only fields backed by an index are registered, so every filter compiles to an index-friendly predicate.
+ * Date-time fields also accept a plain date, read as midnight UTC.
+ */
+public final class EntityFilter<T extends BaseEntity> {
+
+    public static final int MAX_CLAUSES = 10;
+    public static final int MAX_IN_VALUES = 100;
+
+    private static final Set<Class<?>> SUPPORTED_TYPES =
+        Set.of(Long.class, String.class, BigDecimal.class, OffsetDateTime.class, Boolean.class, UUID.class);
+
+    private enum Op { EQ, NE, LT, LTE, GT, GTE, IN }
+
+    private record Field(String path, Class<?> type) {}
+
+    private final Map<String, Field> fields;
+
+    private EntityFilter(Map<String, Field> fields) {
+        this.fields = fields;
+    }
+
+    /** Every entity can filter on created_at, the leading column of its keyset index. */
+    public static <T extends BaseEntity> EntityFilter<T> of() {
+        return new EntityFilter<T>(new LinkedHashMap<>()).field("createdAt", "createdAt", OffsetDateTime.class);
+    }
+
+    /** Register {@code name} (as used in the query string) mapped to a dotted attribute path, e.g. {@code warehouse.id}. */
+    public EntityFilter<T> field(String name, String path, Class<?> type) {
+        if (!SUPPORTED_TYPES.contains(type)) { throw new IllegalArgumentException("unsupported filter type " + type.getName()); }
+        Map<String, Field> copy = new LinkedHashMap<>(fields);
+        copy.put(name, new Field(path, type));
+        return new EntityFilter<>(Collections.unmodifiableMap(copy));
+    }
+
+    public EntityFilter<T> field(String name, Class<?> type) {
+        return field(name, name, type);
+    }
+
+    /** @return the ANDed specification, or null (no restriction) for a blank filter. */
+    public Specification<T> parse(String filter) {
+        if (filter == null || filter.isBlank()) return null;
+        String[] clauses = filter.split(",");
+        if (clauses.length > MAX_CLAUSES) { throw new InvalidValueException("filter accepts at most " + MAX_CLAUSES + " clauses"); }
+
+        List<Specification<T>> specs = new ArrayList<>(clauses.length);
+        for (String clause : clauses) {
+            String[] parts = clause.split(":", 3);
+            if (parts.length != 3) { throw new InvalidValueException("invalid filter clause '" + clause + "', expected field:op:value"); }
+            String name = parts[0].trim();
+            Field field = fields.get(name);
+            if (field == null) { throw new InvalidValueException("cannot filter on '" + name + "', filterable fields: " + fields.keySet()); }
+            Op op = parseOp(parts[1].trim());
+            specs.add(compile(field, name, op, parts[2].trim()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    // ========= Internals =========
+    private Specification<T> compile(Field field, String name, Op op, String raw) {
+        boolean ordered = field.type() != String.class && field.type() != Boolean.class && field.type() != UUID.class;
+        if (!ordered && op != Op.EQ && op != Op.NE && op != Op.IN) {
+            throw new InvalidValueException("operator " + op.name().toLowerCase(Locale.ROOT) + " is not supported on '" + name + "'");
+        }
+        if (op == Op.IN) {
+            String[] raws = raw.split("\\|");
+            if (raws.length > MAX_IN_VALUES) { throw new InvalidValueException("in accepts at most " + MAX_IN_VALUES + " values"); }
+            List<Object> values = new ArrayList<>(raws.length);
+            for (String r : raws) { values.add(convert(field, name, r.trim())); }
+            return (root, query, cb) -> path(root, field).in(values);
+        }
+        Object value = convert(field, name, raw);
+        return (root, query, cb) -> predicate(cb, path(root, field), op, value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate predicate(CriteriaBuilder cb, Path<?> path, Op op, Object value) {
+        Path<Comparable> p = (Path<Comparable>) path;
+        Comparable v = (Comparable) value;
+        return switch (op) {
+            case EQ -> cb.equal(p, v);
+            case NE -> cb.notEqual(p, v);
+            case LT -> cb.lessThan(p, v);
+            case LTE -> cb.lessThanOrEqualTo(p, v);
+            case GT -> cb.greaterThan(p, v);
+            case GTE -> cb.greaterThanOrEqualTo(p, v);
+            case IN -> throw new IllegalStateException("in is compiled separately");
+        };
+    }
+
+    private static Path<?> path(Root<?> root, Field field) {
+        Path<?> p = root;
+        for (String attr : field.path().split("\\.")) { p = p.get(attr); }
+        return p;
+    }
+
+    private static Op parseOp(String raw) {
+        try {
+            return Op.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidValueException("unknown filter operator '" + raw + "', expected one of eq, ne, lt, lte, gt, gte, in");
+        }
+    }
+
+    private static Object convert(Field field, String name, String raw) {
+        try {
+            Class<?> t = field.type();
+            if (t == String.class) return raw;
+            if (t == Long.class) return Long.valueOf(raw);
+            if (t == BigDecimal.class) return new BigDecimal(raw);
+            if (t == UUID.class) return UUID.fromString(raw);
+            if (t == Boolean.class) {
+                if (!"true".equalsIgnoreCase(raw) && !"false".equalsIgnoreCase(raw)) { throw new IllegalArgumentException(raw); }
+                return Boolean.valueOf(raw);
+            }
+            // OffsetDateTime
+            return raw.length() == 10 ? LocalDate.parse(raw).atStartOfDay().atOffset(ZoneOffset.UTC) : OffsetDateTime.parse(raw);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new InvalidValueException("invalid value '" + raw + "' for '" + name + "'");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.stock.stock_management.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.entity.BaseEntity;
+import com.stock.stock_management.error.InvalidValueException;
+
+/**
+ * Seek position over the (created_at, uuid) key shared by every {@link BaseEntity}.
+ * Serialized as an opaque base64url token so clients cannot depend on its layout.
+ */
+public record KeysetCursor(OffsetDateTime createdAt, UUID uuid) {
+
+    public static KeysetCursor of(BaseEntity entity) {
+        return new KeysetCursor(entity.getCreatedAt(), entity.getUuid());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + uuid;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return the decoded cursor, or null for a blank token (start from the beginning). */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new KeysetCursor(OffsetDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new InvalidValueException("invalid cursor");
+        }
+    }
+
+    /** Trim a {@code size + 1} fetch to {@code size} rows and derive the next cursor from the last one kept. */
+    public static <E extends BaseEntity, D> CursorPageDto<D> window(List<E> rows, int size, Function<E, D> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> kept = hasNext ? rows.subList(0, size) : rows;
+        List<D> content = new ArrayList<>(kept.size());
+        for (E row : kept) { content.add(mapper.apply(row)); }
+        String next = hasNext ? of(kept.get(kept.size() - 1)).encode() : null;
+        return new CursorPageDto<>(content, size, hasNext, next);
+    }
+}
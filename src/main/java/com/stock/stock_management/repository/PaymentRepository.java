@@ -1,9 +1,20 @@
 package com.stock.stock_management.repository;
 
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.Payment;
 
 public interface PaymentRepository extends BaseRepository<Payment, Long> {
 
     long countBySalesOrderId(Long salesOrderId);
+    java.util.Optional<Payment> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Transaction-scoped advisory lock on one idempotency key: concurrent creates with the same key run one
+     * after the other, so the later one finds the committed payment instead of hitting uk_payment_idempotency_key.
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT pg_advisory_xact_lock(hashtextextended('payment_idempotency:' || :key, 0))) l", nativeQuery = true)
+    long lockIdempotencyKey(@Param("key") String key);
 
 }
@@ -1,12 +1,33 @@
 package com.stock.stock_management.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.Product;
 
 public interface ProductRepository extends BaseRepository<Product, Long> {
 
+    /** uuid → id resolution goes through the query cache; the row itself comes from the entity region. */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    java.util.Optional<Product> findByUuid(java.util.UUID uuid);
+
     boolean existsByDescription(String description);
     boolean existsByDescriptionAndIdNot(String description, Long id);
     java.util.Optional<Product> findByDescriptionIgnoreCase(String description);
     long countByCategoryId(Long categoryId);
 
+    /** Products anywhere in the subtree of {@code categoryId}: one join through category_closure at any depth. */
+    @Query(value = "SELECT p.* FROM product p JOIN category_closure c ON c.descendant_id = p.category_id "
+            + "WHERE c.ancestor_id = :categoryId AND p.deleted = false ORDER BY p.id",
+           countQuery = "SELECT COUNT(*) FROM product p JOIN category_closure c ON c.descendant_id = p.category_id "
+            + "WHERE c.ancestor_id = :categoryId AND p.deleted = false",
+           nativeQuery = true)
+    Page<Product> findInCategorySubtree(@Param("categoryId") Long categoryId, Pageable pageable);
+
 }
@@ -1,9 +1,45 @@
 package com.stock.stock_management.repository;
 
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.PurchaseInvoice;
 
 public interface PurchaseInvoiceRepository extends BaseRepository<PurchaseInvoice, Long> {
 
     long countByPurchaseOrderId(Long purchaseOrderId);
 
+    /** Copy the order total onto its invoices. @return rows written. */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "purchase_invoice"))
+    @Query(value = "UPDATE purchase_invoice i SET total_amount = o.total_amount, "
+            + "version = i.version + 1, updated_at = now() FROM purchase_order o "
+            + "WHERE o.id = i.purchase_order_id AND i.purchase_order_id = :orderId AND i.deleted = false "
+            + "AND i.total_amount IS DISTINCT FROM o.total_amount", nativeQuery = true)
+    int mirrorTotal(@Param("orderId") Long orderId);
+
+    /** Invoices (partitioned by order id) whose total no longer mirrors their order's. */
+    @Query(value = "SELECT i.id AS id, i.total_amount AS actualTotal, o.total_amount AS expectedTotal, "
+            + "CAST(NULL AS NUMERIC) AS actualPaid, CAST(NULL AS NUMERIC) AS expectedPaid "
+            + "FROM purchase_invoice i JOIN purchase_order o ON o.id = i.purchase_order_id "
+            + "WHERE i.deleted = false AND MOD(i.purchase_order_id, :partitions) = :partition "
+            + "AND i.total_amount IS DISTINCT FROM o.total_amount "
+            + "ORDER BY i.id LIMIT :limit", nativeQuery = true)
+    List<TotalsDrift> findTotalsDrift(@Param("partitions") int partitions, @Param("partition") int partition, @Param("limit") int limit);
+
+    /** Copy the order total onto the drifted invoices of one partition; run after the order repair. @return rows written. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "purchase_invoice"))
+    @Query(value = "UPDATE purchase_invoice i SET total_amount = o.total_amount, "
+            + "version = i.version + 1, updated_at = now() FROM purchase_order o "
+            + "WHERE o.id = i.purchase_order_id AND i.deleted = false AND MOD(i.purchase_order_id, :partitions) = :partition "
+            + "AND i.total_amount IS DISTINCT FROM o.total_amount", nativeQuery = true)
+    int repairTotals(@Param("partitions") int partitions, @Param("partition") int partition);
+
 }
@@ -1,10 +1,40 @@
 package com.stock.stock_management.repository;
 
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.PurchaseOrderLine;
 
+/**
+ * By-id and by-uuid lookups go through purchase_order_line_key (changeset 115), which names the line's partition, so
+ * they probe one partition of the hash-partitioned table instead of all of them.
+ */
 public interface PurchaseOrderLineRepository extends BaseRepository<PurchaseOrderLine, Long> {
 
+    String BY_KEY = "FROM purchase_order_line l JOIN purchase_order_line_key k ON l.id = k.id AND l.purchase_order_id = k.purchase_order_id ";
+
     long countByPurchaseOrderId(Long purchaseOrderId);
-    long countByProductId(Long productId);
 
+    @Query(value = "SELECT count(*) FROM purchase_order_line_key WHERE product_id = :productId AND deleted = false", nativeQuery = true)
+    long countByProductId(@Param("productId") Long productId);
+
+    java.util.List<PurchaseOrderLine> findByPurchaseOrderId(Long purchaseOrderId);
+
+    @Override
+    @Query(value = "SELECT l.* " + BY_KEY + "WHERE k.id = :id AND l.deleted = false", nativeQuery = true)
+    Optional<PurchaseOrderLine> findById(@Param("id") Long id);
+
+    @Override
+    @Query(value = "SELECT l.* " + BY_KEY + "WHERE k.uuid = :uuid AND l.deleted = false", nativeQuery = true)
+    Optional<PurchaseOrderLine> findByUuid(@Param("uuid") UUID uuid);
+
+    @Override
+    @Query(value = "SELECT l.uuid AS uuid, l.version AS version " + BY_KEY + "WHERE k.id = :id AND l.deleted = false", nativeQuery = true)
+    Optional<VersionView> findVersionById(@Param("id") Long id);
+
+    @Override
+    @Query(value = "SELECT l.uuid AS uuid, l.version AS version " + BY_KEY + "WHERE k.uuid = :uuid AND l.deleted = false", nativeQuery = true)
+    Optional<VersionView> findVersionByUuid(@Param("uuid") UUID uuid);
 }
@@ -1,5 +1,18 @@
 package com.stock.stock_management.repository;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.PurchaseOrder;
 
 public interface PurchaseOrderRepository extends BaseRepository<PurchaseOrder, Long> {
@@ -7,4 +20,36 @@ public interface PurchaseOrderRepository extends BaseRepository<PurchaseOrder, L
     long countBySupplierId(Long supplierId);
     long countByWarehouseId(Long warehouseId);
 
+    /** Load and row-lock the order until commit, so status transitions on it run one at a time. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM PurchaseOrder o WHERE o.id = :id")
+    Optional<PurchaseOrder> findForUpdate(@Param("id") Long id);
+
+    /** Atomic increment of the order total (row-locks the order until commit). @return rows written. */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "purchase_order"))
+    @Query(value = "UPDATE purchase_order SET total_amount = COALESCE(total_amount, 0) + :totalDelta, "
+            + "version = version + 1, updated_at = now() WHERE id = :id AND deleted = false", nativeQuery = true)
+    int addTotal(@Param("id") Long id, @Param("totalDelta") BigDecimal totalDelta);
+
+    /** Orders of one id-hash partition whose total_amount differs from SUM(line_total). */
+    @Query(value = "SELECT o.id AS id, o.total_amount AS actualTotal, COALESCE(l.total, 0) AS expectedTotal, "
+            + "CAST(NULL AS NUMERIC) AS actualPaid, CAST(NULL AS NUMERIC) AS expectedPaid FROM purchase_order o "
+            + "LEFT JOIN (SELECT purchase_order_id, SUM(line_total) AS total FROM purchase_order_line "
+            + "  WHERE deleted = false AND MOD(purchase_order_id, :partitions) = :partition GROUP BY purchase_order_id) l ON l.purchase_order_id = o.id "
+            + "WHERE o.deleted = false AND MOD(o.id, :partitions) = :partition "
+            + "AND o.total_amount IS DISTINCT FROM COALESCE(l.total, 0) "
+            + "ORDER BY o.id LIMIT :limit", nativeQuery = true)
+    List<TotalsDrift> findTotalsDrift(@Param("partitions") int partitions, @Param("partition") int partition, @Param("limit") int limit);
+
+    /** Reset the drifted orders of one partition to their recomputed total. @return rows written. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "purchase_order"))
+    @Query(value = "UPDATE purchase_order o SET total_amount = x.total, version = o.version + 1, updated_at = now() "
+            + "FROM (SELECT s.id, "
+            + "  COALESCE((SELECT SUM(l.line_total) FROM purchase_order_line l WHERE l.purchase_order_id = s.id AND l.deleted = false), 0) AS total "
+            + "  FROM purchase_order s WHERE s.deleted = false AND MOD(s.id, :partitions) = :partition) x "
+            + "WHERE o.id = x.id AND o.total_amount IS DISTINCT FROM x.total", nativeQuery = true)
+    int repairTotals(@Param("partitions") int partitions, @Param("partition") int partition);
+
 }
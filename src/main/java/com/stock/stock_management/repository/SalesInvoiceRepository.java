@@ -1,9 +1,73 @@
 package com.stock.stock_management.repository;
 
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.SalesInvoice;
 
 public interface SalesInvoiceRepository extends BaseRepository<SalesInvoice, Long> {
 
+    /**
+     * An order's amount_paid spread over its non-cancelled invoices, oldest (issue_date, id) first: each invoice
+     * takes what is left after the ones before it, up to its own total. Cancelled invoices take nothing and their
+     * totals are not counted. Yields (id, paid, status); the caller appends the row filter on {@code v} and closes
+     * with {@code ") x"}.
+     */
+    String ALLOCATION = "SELECT x.id, x.paid, "
+            + "CASE WHEN x.paid >= x.total THEN 'paid' WHEN x.paid > 0 THEN 'partial' ELSE 'pending' END AS status FROM ("
+            + "SELECT v.id, COALESCE(v.total_amount, 0) AS total, CASE WHEN v.status = 'cancelled' THEN 0 ELSE "
+            + "GREATEST(0, LEAST(COALESCE(v.total_amount, 0), COALESCE(o.amount_paid, 0) - COALESCE(SUM("
+            + "CASE WHEN v.status = 'cancelled' THEN 0 ELSE COALESCE(v.total_amount, 0) END) OVER (PARTITION BY v.sales_order_id "
+            + "ORDER BY v.issue_date, v.id ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0))) END AS paid "
+            + "FROM sales_invoice v JOIN sales_order o ON o.id = v.sales_order_id "
+            + "WHERE v.deleted = false AND ";
+
+    /**
+     * The statuses the allocation owns: an invoice in one of them (or with none) moves between them as payments
+     * come and go. Any other status (draft, overdue, cancelled, ...) belongs to its workflow and is kept.
+     */
+    String ALLOCATED_STATUS = "(i.status IS NULL OR i.status IN ('pending', 'partial', 'paid'))";
+
+    /** Writes an {@link #ALLOCATION} row {@code a} onto invoice {@code i}; the caller appends FROM and WHERE. */
+    String APPLY_ALLOCATION = "UPDATE sales_invoice i SET paid_amount = a.paid, "
+            + "status = CASE WHEN " + ALLOCATED_STATUS + " THEN a.status ELSE i.status END, "
+            + "version = i.version + 1, updated_at = now() ";
+
+    /** Only rows the allocation actually changes. */
+    String ALLOCATION_CHANGED = "WHERE i.id = a.id AND (i.paid_amount IS DISTINCT FROM a.paid "
+            + "OR (" + ALLOCATED_STATUS + " AND i.status IS DISTINCT FROM a.status))";
+
     long countBySalesOrderId(Long salesOrderId);
 
+    /**
+     * Apply the allocation to one order's invoices: paid_amount on all of them (zero on cancelled ones), status only
+     * within {@link #ALLOCATED_STATUS}. @return rows written.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_invoice"))
+    @Query(value = APPLY_ALLOCATION + "FROM (" + ALLOCATION + "v.sales_order_id = :orderId) x) a " + ALLOCATION_CHANGED,
+            nativeQuery = true)
+    int allocate(@Param("orderId") Long orderId);
+
+    /** Invoices (partitioned by order id) whose paid_amount differs from their share of the order's amount_paid. */
+    @Query(value = "SELECT i.id AS id, i.total_amount AS actualTotal, i.total_amount AS expectedTotal, "
+            + "i.paid_amount AS actualPaid, a.paid AS expectedPaid "
+            + "FROM sales_invoice i JOIN (" + ALLOCATION + "MOD(v.sales_order_id, :partitions) = :partition) x) a ON a.id = i.id "
+            + "WHERE i.paid_amount IS DISTINCT FROM a.paid "
+            + "ORDER BY i.id LIMIT :limit", nativeQuery = true)
+    List<TotalsDrift> findTotalsDrift(@Param("partitions") int partitions, @Param("partition") int partition, @Param("limit") int limit);
+
+    /** Re-run the allocation over one partition; run after the order repair. @return rows written. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_invoice"))
+    @Query(value = APPLY_ALLOCATION + "FROM (" + ALLOCATION + "MOD(v.sales_order_id, :partitions) = :partition) x) a "
+            + ALLOCATION_CHANGED, nativeQuery = true)
+    int repairTotals(@Param("partitions") int partitions, @Param("partition") int partition);
+
 }
@@ -1,5 +1,18 @@
 package com.stock.stock_management.repository;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.SalesOrder;
 
 public interface SalesOrderRepository extends BaseRepository<SalesOrder, Long> {
@@ -7,4 +20,43 @@ public interface SalesOrderRepository extends BaseRepository<SalesOrder, Long> {
     long countByClientId(Long clientId);
     long countByWarehouseId(Long warehouseId);
 
+    /** Load and row-lock the order until commit, so status transitions on it run one at a time. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM SalesOrder o WHERE o.id = :id")
+    Optional<SalesOrder> findForUpdate(@Param("id") Long id);
+
+    /** Atomic increment of the order totals (row-locks the order until commit). @return rows written. */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_order"))
+    @Query(value = "UPDATE sales_order SET total_amount = COALESCE(total_amount, 0) + :totalDelta, "
+            + "amount_paid = COALESCE(amount_paid, 0) + :paidDelta, version = version + 1, updated_at = now() "
+            + "WHERE id = :id AND deleted = false", nativeQuery = true)
+    int addTotals(@Param("id") Long id, @Param("totalDelta") BigDecimal totalDelta, @Param("paidDelta") BigDecimal paidDelta);
+
+    @Query(value = "SELECT id FROM sales_order WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    /** Orders of one id-hash partition whose total_amount / amount_paid differ from SUM(line_total) / SUM(payment.amount). */
+    @Query(value = "SELECT o.id AS id, o.total_amount AS actualTotal, COALESCE(l.total, 0) AS expectedTotal, "
+            + "o.amount_paid AS actualPaid, COALESCE(p.paid, 0) AS expectedPaid FROM sales_order o "
+            + "LEFT JOIN (SELECT sales_order_id, SUM(line_total) AS total FROM sales_order_line "
+            + "  WHERE deleted = false AND MOD(sales_order_id, :partitions) = :partition GROUP BY sales_order_id) l ON l.sales_order_id = o.id "
+            + "LEFT JOIN (SELECT sales_order_id, SUM(amount) AS paid FROM payment "
+            + "  WHERE deleted = false AND MOD(sales_order_id, :partitions) = :partition GROUP BY sales_order_id) p ON p.sales_order_id = o.id "
+            + "WHERE o.deleted = false AND MOD(o.id, :partitions) = :partition "
+            + "AND (o.total_amount IS DISTINCT FROM COALESCE(l.total, 0) OR o.amount_paid IS DISTINCT FROM COALESCE(p.paid, 0)) "
+            + "ORDER BY o.id LIMIT :limit", nativeQuery = true)
+    List<TotalsDrift> findTotalsDrift(@Param("partitions") int partitions, @Param("partition") int partition, @Param("limit") int limit);
+
+    /** Reset the drifted orders of one partition to their recomputed totals. @return rows written. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_order"))
+    @Query(value = "UPDATE sales_order o SET total_amount = x.total, amount_paid = x.paid, version = o.version + 1, updated_at = now() "
+            + "FROM (SELECT s.id, "
+            + "  COALESCE((SELECT SUM(l.line_total) FROM sales_order_line l WHERE l.sales_order_id = s.id AND l.deleted = false), 0) AS total, "
+            + "  COALESCE((SELECT SUM(p.amount) FROM payment p WHERE p.sales_order_id = s.id AND p.deleted = false), 0) AS paid "
+            + "  FROM sales_order s WHERE s.deleted = false AND MOD(s.id, :partitions) = :partition) x "
+            + "WHERE o.id = x.id AND (o.total_amount IS DISTINCT FROM x.total OR o.amount_paid IS DISTINCT FROM x.paid)", nativeQuery = true)
+    int repairTotals(@Param("partitions") int partitions, @Param("partition") int partition);
+
 }
@@ -1,5 +1,15 @@
 package com.stock.stock_management.repository;
 
+import java.math.BigDecimal;
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.stock.stock_management.entity.StockLevel;
 import com.stock.stock_management.entity.StockLevelId;
 
@@ -8,4 +18,63 @@ public interface StockLevelRepository extends BaseRepository<StockLevel, StockLe
     long countByProductId(Long productId);
     long countByWarehouseId(Long warehouseId);
 
+    // ===== Low-stock alerts (partial expression index idx_stock_level_below_alert) =====
+
+    @Query("SELECT s FROM StockLevel s WHERE s.stockAlertQty IS NOT NULL "
+            + "AND COALESCE(s.currentQty, 0) - COALESCE(s.reservedQty, 0) - s.stockAlertQty < 0")
+    List<StockLevel> findBelowAlert();
+
+    @Query("SELECT s FROM StockLevel s WHERE s.id.warehouseId = :warehouseId AND s.stockAlertQty IS NOT NULL "
+            + "AND COALESCE(s.currentQty, 0) - COALESCE(s.reservedQty, 0) - s.stockAlertQty < 0")
+    List<StockLevel> findBelowAlertInWarehouse(@Param("warehouseId") Long warehouseId);
+
+    // ===== Atomic quantity moves (single conditional UPDATE, no read-modify-write) =====
+    // Native writes declare their table space; otherwise Hibernate evicts every second-level cache region.
+
+    /** Reserve {@code qty} only if enough unreserved stock remains. @return rows updated (0 or 1). */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_level"))
+    @Query(value = "UPDATE stock_level SET reserved_qty = COALESCE(reserved_qty, 0) + :qty, version = version + 1, updated_at = now() "
+            + "WHERE product_id = :productId AND warehouse_id = :warehouseId AND deleted = false "
+            + "AND COALESCE(current_qty, 0) - COALESCE(reserved_qty, 0) >= :qty", nativeQuery = true)
+    int reserve(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId, @Param("qty") BigDecimal qty);
+
+    /** Give back {@code qty} of a previous reservation. @return rows updated (0 or 1). */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_level"))
+    @Query(value = "UPDATE stock_level SET reserved_qty = reserved_qty - :qty, version = version + 1, updated_at = now() "
+            + "WHERE product_id = :productId AND warehouse_id = :warehouseId AND deleted = false "
+            + "AND COALESCE(reserved_qty, 0) >= :qty", nativeQuery = true)
+    int release(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId, @Param("qty") BigDecimal qty);
+
+    /** Turn {@code qty} of a reservation into an outbound movement. @return rows updated (0 or 1). */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_level"))
+    @Query(value = "UPDATE stock_level SET current_qty = current_qty - :qty, reserved_qty = reserved_qty - :qty, version = version + 1, updated_at = now() "
+            + "WHERE product_id = :productId AND warehouse_id = :warehouseId AND deleted = false "
+            + "AND COALESCE(reserved_qty, 0) >= :qty AND COALESCE(current_qty, 0) >= :qty", nativeQuery = true)
+    int commit(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId, @Param("qty") BigDecimal qty);
+
+    // ===== Ledger-driven moves (see StockMovementService) =====
+
+    /** Add {@code qty} to current_qty, creating the level on first receipt. @return rows written. */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_level"))
+    @Query(value = "INSERT INTO stock_level (product_id, warehouse_id, current_qty) VALUES (:productId, :warehouseId, :qty) "
+            + "ON CONFLICT (product_id, warehouse_id) DO UPDATE SET current_qty = "
+            + "CASE WHEN stock_level.deleted THEN EXCLUDED.current_qty ELSE COALESCE(stock_level.current_qty, 0) + EXCLUDED.current_qty END, "
+            + "deleted = false, deleted_at = NULL, version = stock_level.version + 1, updated_at = now()", nativeQuery = true)
+    int receive(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId, @Param("qty") BigDecimal qty);
+
+    /**
+     * Remove {@code qty} from current_qty only if that much is available: stock held by reservations stays
+     * behind for their commit, so current_qty never drops below reserved_qty. @return rows updated (0 or 1).
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_level"))
+    @Query(value = "UPDATE stock_level SET current_qty = current_qty - :qty, version = version + 1, updated_at = now() "
+            + "WHERE product_id = :productId AND warehouse_id = :warehouseId AND deleted = false "
+            + "AND COALESCE(current_qty, 0) - COALESCE(reserved_qty, 0) >= :qty", nativeQuery = true)
+    int issue(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId, @Param("qty") BigDecimal qty);
+
 }
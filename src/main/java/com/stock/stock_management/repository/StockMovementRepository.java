@@ -0,0 +1,59 @@
+package com.stock.stock_management.repository;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.stock.stock_management.entity.StockMovement;
+
+public interface StockMovementRepository extends BaseRepository<StockMovement, Long> {
+
+    long countByProductId(Long productId);
+    long countByWarehouseId(Long warehouseId);
+    boolean existsByReferenceTypeAndReferenceId(String referenceType, Long referenceId);
+
+    /**
+     * Replay one hash partition of a warehouse's ledger into stock_level (current_qty = SUM of deltas).
+     * Only levels that disagree with the ledger are written. Reserved and alert quantities are left as they are.
+     * Run under {@code LedgerLocks.lockPartition}. @return rows written.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_level"))
+    @Query(value = "INSERT INTO stock_level (product_id, warehouse_id, current_qty) "
+            + "SELECT product_id, warehouse_id, SUM(quantity) FROM stock_movement "
+            + "WHERE warehouse_id = :warehouseId AND deleted = false AND MOD(product_id, :partitions) = :partition "
+            + "GROUP BY product_id, warehouse_id "
+            + "ON CONFLICT (product_id, warehouse_id) DO UPDATE SET current_qty = EXCLUDED.current_qty, "
+            + "version = stock_level.version + 1, updated_at = now() "
+            + "WHERE stock_level.current_qty IS DISTINCT FROM EXCLUDED.current_qty", nativeQuery = true)
+    int replayPartition(@Param("warehouseId") Long warehouseId, @Param("partitions") int partitions, @Param("partition") int partition);
+
+    /** Zero the levels of one partition that hold stock without any live ledger row behind it. @return rows updated. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_level"))
+    @Query(value = "UPDATE stock_level s SET current_qty = 0, version = s.version + 1, updated_at = now() "
+            + "WHERE s.warehouse_id = :warehouseId AND MOD(s.product_id, :partitions) = :partition "
+            + "AND COALESCE(s.current_qty, 0) <> 0 AND NOT EXISTS (SELECT 1 FROM stock_movement m "
+            + "WHERE m.product_id = s.product_id AND m.warehouse_id = s.warehouse_id AND m.deleted = false)", nativeQuery = true)
+    int zeroUnbackedPartition(@Param("warehouseId") Long warehouseId, @Param("partitions") int partitions, @Param("partition") int partition);
+
+    /**
+     * Book the difference between {@code qty} and the level's current quantity (a soft-deleted or missing level
+     * counts as 0) as an adjustment, so direct level writes keep the ledger the source of truth.
+     * Call before writing the level. @return rows inserted (0 when nothing changes).
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_movement"))
+    @Query(value = "INSERT INTO stock_movement (product_id, warehouse_id, movement_type, quantity, reference_type) "
+            + "SELECT :productId, :warehouseId, 'adjustment', CAST(:qty AS NUMERIC) - b.qty, 'stock_level' "
+            + "FROM (SELECT COALESCE((SELECT CASE WHEN deleted THEN 0 ELSE COALESCE(current_qty, 0) END FROM stock_level "
+            + "WHERE product_id = :productId AND warehouse_id = :warehouseId FOR UPDATE), 0) AS qty) b "
+            + "WHERE CAST(:qty AS NUMERIC) <> b.qty", nativeQuery = true)
+    int recordCount(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId, @Param("qty") BigDecimal qty);
+
+}
@@ -0,0 +1,16 @@
+package com.stock.stock_management.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One row whose stored totals differ from the ones recomputed from scratch (native query projection).
+ * Paid columns are null where the row has no computed paid amount.
+ */
+public interface TotalsDrift {
+
+    Long getId();
+    BigDecimal getActualTotal();
+    BigDecimal getExpectedTotal();
+    BigDecimal getActualPaid();
+    BigDecimal getExpectedPaid();
+}
@@ -0,0 +1,10 @@
+package com.stock.stock_management.repository;
+
+import java.util.UUID;
+
+/** (uuid, version) of one row: all a conditional request needs to compare against its ETag. */
+public interface VersionView {
+
+    UUID getUuid();
+    Long getVersion();
+}
@@ -1,9 +1,18 @@
 package com.stock.stock_management.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import com.stock.stock_management.entity.Warehouse;
 
 public interface WarehouseRepository extends BaseRepository<Warehouse, Long> {
 
+    /** uuid → id resolution goes through the query cache; the row itself comes from the entity region. */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    java.util.Optional<Warehouse> findByUuid(java.util.UUID uuid);
+
     boolean existsByCode(String code);
     boolean existsByCodeAndIdNot(String code, Long id);
     java.util.Optional<Warehouse> findByCodeIgnoreCase(String code);
@@ -0,0 +1,10 @@
+package com.stock.stock_management.service;
+
+import com.stock.stock_management.dto.ArchiveRunDto;
+
+/** Moves long soft-deleted rows out of the live tables into their {@code *_archive} twins. */
+public interface ArchiveService {
+
+    /** One bounded pass over every table, children before parents; rows still referenced stay put. */
+    ArchiveRunDto archive();
+}
@@ -0,0 +1,18 @@
+package com.stock.stock_management.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.stock.stock_management.dto.BatchResultDto;
+
+public interface BatchService {
+
+    /**
+     * Apply {@code operation} to every item in chunked transactions (one flush per chunk, so writes go out as
+     * JDBC batches). A failing item is reported with its ErrorCode and does not fail the other items.
+     */
+    <I, R> BatchResultDto<R> execute(List<I> items, Function<I, R> operation);
+
+    /** Same as {@link #execute}, with Bean Validation of every item up front (what {@code @Valid} does for one); invalid items never reach a chunk. */
+    <I, R> BatchResultDto<R> executeValidated(List<I> items, Function<I, R> operation);
+}
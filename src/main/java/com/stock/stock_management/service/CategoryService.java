@@ -2,10 +2,15 @@ package com.stock.stock_management.service;
 
 import java.util.*;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.CategoryDto;
+import com.stock.stock_management.dto.CategoryStockDto;
+import com.stock.stock_management.dto.ProductDto;
+import com.stock.stock_management.repository.VersionView;
 
 public interface CategoryService {
 
@@ -19,12 +24,35 @@ public interface CategoryService {
 
     Optional<CategoryDto> findByUuid(UUID uuid);
 
+    /** Just (uuid, version), for conditional requests; no entity or DTO is built. */
+    Optional<VersionView> findVersion(Long id);
+
+    Optional<VersionView> findVersionByUuid(UUID uuid);
+
     List<CategoryDto> findAll();
 
     Page<CategoryDto> findAll(Pageable pageable);
 
+    /** Page restricted by a {@code ?filter=} expression over indexed columns (see EntityFilter). */
+    Page<CategoryDto> findAll(String filter, Pageable pageable);
+
+    /** Like {@link #findAll(String, Pageable)} but selecting only the comma-separated {@code fields}. */
+    Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable);
+
     List<CategoryDto> findAll(Sort sort);
 
+    /** Keyset window over (createdAt, uuid) after the opaque {@code after} cursor; no count query. */
+    CursorPageDto<CategoryDto> scroll(String after, int size);
+
+    /** Visit every row in one read-only transaction without materializing the full list. */
+    void streamAll(Consumer<CategoryDto> sink);
+
+    /** Products of the category and all of its descendants, one indexed query at any depth. */
+    Page<ProductDto> findSubtreeProducts(Long id, Pageable pageable);
+
+    /** Stock of the subtree's products, summed per warehouse. */
+    List<CategoryStockDto> findSubtreeStock(Long id);
+
     void deleteById(Long id);
 
     void deleteByUuid(UUID uuid);
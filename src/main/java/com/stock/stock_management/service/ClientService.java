@@ -2,10 +2,13 @@ package com.stock.stock_management.service;
 
 import java.util.*;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.ClientDto;
+import com.stock.stock_management.repository.VersionView;
 
 public interface ClientService {
 
@@ -19,12 +22,29 @@ public interface ClientService {
 
     Optional<ClientDto> findByUuid(UUID uuid);
 
+    /** Just (uuid, version), for conditional requests; no entity or DTO is built. */
+    Optional<VersionView> findVersion(Long id);
+
+    Optional<VersionView> findVersionByUuid(UUID uuid);
+
     List<ClientDto> findAll();
 
     Page<ClientDto> findAll(Pageable pageable);
 
+    /** Page restricted by a {@code ?filter=} expression over indexed columns (see EntityFilter). */
+    Page<ClientDto> findAll(String filter, Pageable pageable);
+
+    /** Like {@link #findAll(String, Pageable)} but selecting only the comma-separated {@code fields}. */
+    Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable);
+
     List<ClientDto> findAll(Sort sort);
 
+    /** Keyset window over (createdAt, uuid) after the opaque {@code after} cursor; no count query. */
+    CursorPageDto<ClientDto> scroll(String after, int size);
+
+    /** Visit every row in one read-only transaction without materializing the full list. */
+    void streamAll(Consumer<ClientDto> sink);
+
     void deleteById(Long id);
 
     void deleteByUuid(UUID uuid);
@@ -2,13 +2,26 @@ package com.stock.stock_management.service;
 
 import java.util.*;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.PaymentDto;
+import com.stock.stock_management.repository.VersionView;
 
 public interface PaymentService {
 
+    /**
+     * Two idempotency keys can guard a payment, and they stack:
+     * <ul>
+     *   <li>the {@code Idempotency-Key} header (IdempotencyFilter) is checked first, per request path, for
+     *   {@code stock.idempotency.ttl}: a repeat is answered from the recorded response and never gets here;</li>
+     *   <li>{@code idempotencyKey} in the body is stored on the payment and never expires: a create under a new
+     *   (or no) header whose body key is taken returns the existing payment instead of applying it again.</li>
+     * </ul>
+     * Either key reused for a different payment (amount or order) fails with 422 IDEMPOTENCY_KEY_MISMATCH.
+     */
     PaymentDto create(PaymentDto dto);
 
     PaymentDto update(Long id, PaymentDto dto);
@@ -19,12 +32,29 @@ public interface PaymentService {
 
     Optional<PaymentDto> findByUuid(UUID uuid);
 
+    /** Just (uuid, version), for conditional requests; no entity or DTO is built. */
+    Optional<VersionView> findVersion(Long id);
+
+    Optional<VersionView> findVersionByUuid(UUID uuid);
+
     List<PaymentDto> findAll();
 
     Page<PaymentDto> findAll(Pageable pageable);
 
+    /** Page restricted by a {@code ?filter=} expression over indexed columns (see EntityFilter). */
+    Page<PaymentDto> findAll(String filter, Pageable pageable);
+
+    /** Like {@link #findAll(String, Pageable)} but selecting only the comma-separated {@code fields}. */
+    Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable);
+
     List<PaymentDto> findAll(Sort sort);
 
+    /** Keyset window over (createdAt, uuid) after the opaque {@code after} cursor; no count query. */
+    CursorPageDto<PaymentDto> scroll(String after, int size);
+
+    /** Visit every row in one read-only transaction without materializing the full list. */
+    void streamAll(Consumer<PaymentDto> sink);
+
     void deleteById(Long id);
 
     void deleteByUuid(UUID uuid);
@@ -2,15 +2,24 @@ package com.stock.stock_management.service;
 
 import java.util.*;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.SalesOrderDto;
+import com.stock.stock_management.dto.SalesOrderWithLinesDto;
+import com.stock.stock_management.repository.VersionView;
 
 public interface SalesOrderService {
 
     SalesOrderDto create(SalesOrderDto dto);
 
+    /** Create the order and all its lines in one transaction; totalAmount is computed from the lines. */
+    SalesOrderWithLinesDto createWithLines(SalesOrderWithLinesDto dto);
+
+    Optional<SalesOrderWithLinesDto> findWithLines(Long id);
+
     SalesOrderDto update(Long id, SalesOrderDto dto);
 
     SalesOrderDto patch(Long id, SalesOrderDto dto);
@@ -19,12 +28,29 @@ public interface SalesOrderService {
 
     Optional<SalesOrderDto> findByUuid(UUID uuid);
 
+    /** Just (uuid, version), for conditional requests; no entity or DTO is built. */
+    Optional<VersionView> findVersion(Long id);
+
+    Optional<VersionView> findVersionByUuid(UUID uuid);
+
     List<SalesOrderDto> findAll();
 
     Page<SalesOrderDto> findAll(Pageable pageable);
 
+    /** Page restricted by a {@code ?filter=} expression over indexed columns (see EntityFilter). */
+    Page<SalesOrderDto> findAll(String filter, Pageable pageable);
+
+    /** Like {@link #findAll(String, Pageable)} but selecting only the comma-separated {@code fields}. */
+    Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable);
+
     List<SalesOrderDto> findAll(Sort sort);
 
+    /** Keyset window over (createdAt, uuid) after the opaque {@code after} cursor; no count query. */
+    CursorPageDto<SalesOrderDto> scroll(String after, int size);
+
+    /** Visit every row in one read-only transaction without materializing the full list. */
+    void streamAll(Consumer<SalesOrderDto> sink);
+
     void deleteById(Long id);
 
     void deleteByUuid(UUID uuid);
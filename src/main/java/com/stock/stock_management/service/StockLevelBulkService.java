@@ -0,0 +1,17 @@
+package com.stock.stock_management.service;
+
+import java.io.InputStream;
+import com.stock.stock_management.dto.StockLevelBulkResultDto;
+
+/**
+ * Streaming upsert of warehouse counts into stock_level. Each batch of lines commits on its own, so a load
+ * that fails part-way is partially applied; re-send it whole (counts are absolute).
+ */
+public interface StockLevelBulkService {
+
+    /** Rows of {@code product_id,warehouse_id,current_qty[,stock_alert_qty]}; an optional header line is skipped. */
+    StockLevelBulkResultDto upsertCsv(InputStream body);
+
+    /** One JSON object per line with {@code productId, warehouseId, currentQty[, stockAlertQty]}. */
+    StockLevelBulkResultDto upsertNdjson(InputStream body);
+}
@@ -2,11 +2,14 @@ package com.stock.stock_management.service;
 
 import java.util.*;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.StockLevelDto;
 import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.repository.VersionView;
 
 public interface StockLevelService {
 
@@ -20,12 +23,29 @@ public interface StockLevelService {
 
     Optional<StockLevelDto> findByUuid(UUID uuid);
 
+    /** Just (uuid, version), for conditional requests; no entity or DTO is built. */
+    Optional<VersionView> findVersion(StockLevelId id);
+
+    Optional<VersionView> findVersionByUuid(UUID uuid);
+
     List<StockLevelDto> findAll();
 
     Page<StockLevelDto> findAll(Pageable pageable);
 
+    /** Page restricted by a {@code ?filter=} expression over indexed columns (see EntityFilter). */
+    Page<StockLevelDto> findAll(String filter, Pageable pageable);
+
+    /** Like {@link #findAll(String, Pageable)} but selecting only the comma-separated {@code fields}. */
+    Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable);
+
     List<StockLevelDto> findAll(Sort sort);
 
+    /** Keyset window over (createdAt, uuid) after the opaque {@code after} cursor; no count query. */
+    CursorPageDto<StockLevelDto> scroll(String after, int size);
+
+    /** Visit every row in one read-only transaction without materializing the full list. */
+    void streamAll(Consumer<StockLevelDto> sink);
+
     void deleteById(StockLevelId id);
 
     void deleteByUuid(UUID uuid);
@@ -0,0 +1,53 @@
+package com.stock.stock_management.service;
+
+import java.util.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.dto.StockMovementDto;
+import com.stock.stock_management.dto.StockTransferDto;
+import com.stock.stock_management.repository.VersionView;
+
+/**
+ * Append-only stock ledger. Every movement updates the matching stock_level row in the same
+ * transaction, so levels stay current without full recomputation; {@link #rebuildWarehouse}
+ * replays the ledger when a warehouse needs to be reconciled. Direct level writes (CRUD, bulk counts)
+ * book their difference as an adjustment, so the ledger alone determines current_qty. Outbound
+ * movements draw only on unreserved stock (current - reserved); reserved stock leaves through
+ * {@code StockReservationService.commit}.
+ */
+public interface StockMovementService {
+
+    /** Append a receipt (+), issue (-) or adjustment (±) and apply it to the stock level. */
+    StockMovementDto record(StockMovementDto dto);
+
+    /** Move stock between warehouses as a transfer_out / transfer_in pair. */
+    List<StockMovementDto> transfer(StockTransferDto dto);
+
+    /** Book every line of a purchase order into its warehouse and mark the order received (once; not for quotes or cancelled orders). */
+    List<StockMovementDto> receivePurchaseOrder(Long purchaseOrderId);
+
+    /** Issue every line of a sales order from its warehouse and mark the order confirmed (once; not for quotes or cancelled orders). */
+    List<StockMovementDto> confirmSalesOrder(Long salesOrderId);
+
+    Optional<StockMovementDto> findById(Long id);
+
+    /** Just (uuid, version), for conditional requests; no entity or DTO is built. */
+    Optional<VersionView> findVersion(Long id);
+
+    Page<StockMovementDto> findAll(Pageable pageable);
+
+    /** Page restricted by a {@code ?filter=} expression over indexed columns (see EntityFilter). */
+    Page<StockMovementDto> findAll(String filter, Pageable pageable);
+
+    /** Like {@link #findAll(String, Pageable)} but selecting only the comma-separated {@code fields}. */
+    Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable);
+
+    CursorPageDto<StockMovementDto> scroll(String after, int size);
+
+    /**
+     * Recompute current_qty of a warehouse from its ledger, partitioned by product and replayed in parallel.
+     * Each partition holds an exclusive ledger lock, so concurrent movements wait instead of being overwritten.
+     */
+    long rebuildWarehouse(Long warehouseId);
+}
@@ -0,0 +1,21 @@
+package com.stock.stock_management.service;
+
+import java.math.BigDecimal;
+import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.entity.StockLevelId;
+
+/**
+ * Concurrency-safe quantity moves on a single stock level.
+ * Each call is one conditional UPDATE; callers never read-modify-write quantities.
+ */
+public interface StockReservationService {
+
+    /** Hold {@code qty} of the available quantity (current - reserved). */
+    StockLevelDto reserve(StockLevelId id, BigDecimal qty);
+
+    /** Return {@code qty} of a previous reservation to the available quantity. */
+    StockLevelDto release(StockLevelId id, BigDecimal qty);
+
+    /** Consume {@code qty} of a previous reservation (decrements both current and reserved). */
+    StockLevelDto commit(StockLevelId id, BigDecimal qty);
+}
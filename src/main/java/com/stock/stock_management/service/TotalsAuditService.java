@@ -0,0 +1,10 @@
+package com.stock.stock_management.service;
+
+import com.stock.stock_management.dto.TotalsAuditDto;
+
+/** Checks the incrementally maintained order and invoice totals against a full recomputation. */
+public interface TotalsAuditService {
+
+    /** Recompute every total, partitioned by order id; with {@code repair}, also reset the drifted rows. */
+    TotalsAuditDto verify(boolean repair);
+}
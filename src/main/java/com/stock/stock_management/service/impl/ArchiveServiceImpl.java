@@ -0,0 +1,156 @@
+package com.stock.stock_management.service.impl;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.stock_management.dto.ArchiveRunDto;
+import com.stock.stock_management.service.ArchiveService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+/**
+ * Moves rows soft-deleted more than {@code stock.archive.retention} ago into {@code <table>_archive}, one
+ * bounded batch per transaction ({@code DELETE ... RETURNING} feeding an {@code INSERT}, so a row is never in
+ * both). Tables go children first; a row that anything still references, live or soft-deleted, is kept, so
+ * no FK ever breaks and a parent follows once its children are gone. The stock_movement ledger is never
+ * archived, so neither are the products and warehouses it references.
+ */
+@Slf4j
+@Service
+public class ArchiveServiceImpl implements ArchiveService {
+
+    private record Ref(String table, String column) {}
+
+    private record Table(String name, List<String> key, List<Ref> children) {}
+
+    /** Archival order: every table comes after all tables referencing it. */
+    private static final List<Table> TABLES = List.of(
+        table("payment"),
+        table("sales_invoice"),
+        table("purchase_invoice"),
+        // Lines are deleted by their full (partitioned) key; product refs to them are read from the *_key tables
+        new Table("sales_order_line", List.of("id", "sales_order_id"), List.of()),
+        new Table("purchase_order_line", List.of("id", "purchase_order_id"), List.of()),
+        new Table("stock_level", List.of("product_id", "warehouse_id"), List.of()),
+        table("sales_order", new Ref("sales_order_line", "sales_order_id"), new Ref("sales_invoice", "sales_order_id"),
+            new Ref("payment", "sales_order_id")),
+        table("purchase_order", new Ref("purchase_order_line", "purchase_order_id"), new Ref("purchase_invoice", "purchase_order_id")),
+        table("client", new Ref("sales_order", "client_id")),
+        table("supplier", new Ref("purchase_order", "supplier_id")),
+        table("user"),
+        table("product", new Ref("stock_level", "product_id"), new Ref("sales_order_line_key", "product_id"),
+            new Ref("purchase_order_line_key", "product_id"), new Ref("stock_movement", "product_id")),
+        table("category", new Ref("category", "parent_id"), new Ref("product", "category_id")),
+        table("warehouse", new Ref("user", "warehouse_id"), new Ref("supplier", "warehouse_id"), new Ref("client", "warehouse_id"),
+            new Ref("stock_level", "warehouse_id"), new Ref("sales_order", "warehouse_id"), new Ref("purchase_order", "warehouse_id"),
+            new Ref("stock_movement", "warehouse_id")),
+        table("enterprise", new Ref("warehouse", "enterprise_id"))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTx;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private final Map<String, String> statements = new LinkedHashMap<>();
+    private final Map<String, Counter> archivedRows = new HashMap<>();
+
+    public ArchiveServiceImpl(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${stock.archive.retention:90d}") Duration retention,
+                              @Value("${stock.archive.batch-size:500}") int batchSize,
+                              @Value("${stock.archive.max-batches:200}") int maxBatches) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+        for (Table table : TABLES) {
+            statements.put(table.name(), moveSql(table));
+            archivedRows.put(table.name(), Counter.builder("stock.archive.rows")
+                .description("Soft-deleted rows moved to archive tables")
+                .tag("table", table.name())
+                .register(meterRegistry));
+        }
+    }
+
+    // ========= Archive =========
+    @Override
+    @DbLane(Lane.BULK)
+    public ArchiveRunDto archive() {
+        OffsetDateTime startedAt = OffsetDateTime.now();
+        OffsetDateTime cutoff = startedAt.minus(retention);
+        Map<String, Long> moved = new LinkedHashMap<>();
+        long archived = 0;
+        boolean truncated = false;
+        for (Table table : TABLES) {
+            String sql = statements.get(table.name());
+            long count = 0;
+            int batches = 0;
+            int last;
+            do {
+                // One short transaction per batch: locks are held for at most batchSize rows
+                Integer n = writeTx.execute(status -> jdbcTemplate.update(sql, cutoff, batchSize));
+                last = n != null ? n : 0;
+                count += last;
+            } while (last == batchSize && ++batches < maxBatches);
+            if (last == batchSize) truncated = true;
+            archivedRows.get(table.name()).increment(count);
+            moved.put(table.name(), count);
+            archived += count;
+        }
+        return ArchiveRunDto.builder()
+            .startedAt(startedAt)
+            .cutoff(cutoff)
+            .archived(archived)
+            .truncated(truncated)
+            .tables(moved)
+            .build();
+    }
+
+    /** Periodic run; {@code stock.archive.cron} is off ("-") unless configured. */
+    @Scheduled(cron = "${stock.archive.cron:-}")
+    @DbLane(Lane.BULK)
+    public void scheduledArchive() {
+        ArchiveRunDto report = archive();
+        if (report.getArchived() > 0) {
+            log.info("archived {} soft-deleted rows (truncated={}): {}", report.getArchived(), report.isTruncated(), report.getTables());
+        }
+    }
+
+    // ========= Internals =========
+    private static Table table(String name, Ref... children) {
+        return new Table(name, List.of("id"), List.of(children));
+    }
+
+    /**
+     * Tombstones come from the partial deleted_at index; the reference checks use the full FK indexes.
+     * SKIP LOCKED leaves rows that a concurrent transaction holds to the next batch or run.
+     */
+    private static String moveSql(Table table) {
+        String key = String.join(", ", table.key());
+        StringBuilder candidates = new StringBuilder()
+            .append("SELECT ").append(key).append(" FROM \"").append(table.name()).append("\" t ")
+            .append("WHERE t.deleted = true AND t.deleted_at < ?");
+        for (Ref ref : table.children()) {
+            candidates.append(" AND NOT EXISTS (SELECT 1 FROM \"").append(ref.table()).append("\" r WHERE r.")
+                .append(ref.column()).append(" = t.id)");
+        }
+        candidates.append(" ORDER BY t.deleted_at LIMIT ? FOR UPDATE SKIP LOCKED");
+        return "WITH moved AS (DELETE FROM \"" + table.name() + "\" WHERE (" + key + ") IN (" + candidates + ") RETURNING *) "
+            + "INSERT INTO \"" + table.name() + "_archive\" SELECT * FROM moved";
+    }
+}
@@ -0,0 +1,140 @@
+package com.stock.stock_management.service.impl;
+
+import java.util.*;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.stock_management.dto.BatchItemResultDto;
+import com.stock.stock_management.dto.BatchResultDto;
+import com.stock.stock_management.error.ErrorClassifier;
+import com.stock.stock_management.error.ErrorCode;
+import com.stock.stock_management.service.BatchService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+/**
+ * Runs each chunk of a batch in one transaction, with the per-record service calls joining it. The happy path
+ * flushes once per chunk. Bean Validation (for {@link #executeValidated}) runs over the whole request before
+ * any chunk opens, so invalid items never cost a rollback. When an item of a chunk still fails, the chunk is
+ * rolled back once and its items are replayed each in its own transaction, so every failure is isolated in
+ * one extra pass instead of one replay per failing item.
+ * <p>
+ * The replay does not use savepoints within the chunk transaction: a failing {@code @Transactional} service
+ * marks the JPA transaction rollback-only, and rolling back to a savepoint does not clear that flag.
+ */
+@Service
+public class BatchServiceImpl implements BatchService {
+
+    private final TransactionTemplate tx;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public BatchServiceImpl(PlatformTransactionManager transactionManager,
+                            EntityManager entityManager,
+                            Validator validator,
+                            @Value("${stock.batch.chunk-size:500}") int chunkSize) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Override
+    @DbLane(Lane.BULK)
+    public <I, R> BatchResultDto<R> execute(List<I> items, Function<I, R> operation) {
+        List<Integer> indexes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) indexes.add(i);
+        return run(items, operation, indexes, new ArrayList<>(Collections.nCopies(items.size(), null)));
+    }
+
+    @Override
+    @DbLane(Lane.BULK)
+    public <I, R> BatchResultDto<R> executeValidated(List<I> items, Function<I, R> operation) {
+        List<BatchItemResultDto<R>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        List<Integer> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Set<ConstraintViolation<I>> violations = validator.validate(items.get(i));
+            if (violations.isEmpty()) {
+                valid.add(i);
+            } else {
+                results.set(i, failure(i, new ConstraintViolationException(violations)));
+            }
+        }
+        return run(items, operation, valid, results);
+    }
+
+    // ========= Internals =========
+    private <I, R> BatchResultDto<R> run(List<I> items, Function<I, R> operation, List<Integer> indexes,
+                                         List<BatchItemResultDto<R>> results) {
+        for (int from = 0; from < indexes.size(); from += chunkSize) {
+            runChunk(items, operation, indexes.subList(from, Math.min(from + chunkSize, indexes.size())), results);
+        }
+        int failed = 0;
+        for (BatchItemResultDto<R> r : results) {
+            if (r.getCode() != null) failed++;
+        }
+        return BatchResultDto.<R>builder()
+            .received(items.size())
+            .succeeded(items.size() - failed)
+            .failed(failed)
+            .results(results)
+            .build();
+    }
+
+    private <I, R> void runChunk(List<I> items, Function<I, R> operation, List<Integer> chunk,
+                                 List<BatchItemResultDto<R>> results) {
+        Map<Integer, R> done = new LinkedHashMap<>();
+        try {
+            tx.executeWithoutResult(status -> {
+                for (int i : chunk) done.put(i, operation.apply(items.get(i)));
+                entityManager.flush();
+            });
+        } catch (RuntimeException ex) {
+            // Something in the chunk failed (an item or the final flush): isolate each item once
+            for (int i : chunk) runItem(items, operation, i, results);
+            return;
+        }
+        done.forEach((i, value) -> results.set(i, success(i, value)));
+    }
+
+    private <I, R> void runItem(List<I> items, Function<I, R> operation, int i, List<BatchItemResultDto<R>> results) {
+        try {
+            R value = tx.execute(status -> {
+                R applied = operation.apply(items.get(i));
+                entityManager.flush();
+                return applied;
+            });
+            results.set(i, success(i, value));
+        } catch (RuntimeException ex) {
+            results.set(i, failure(i, ex));
+        }
+    }
+
+    private static <R> BatchItemResultDto<R> success(int index, R value) {
+        return BatchItemResultDto.<R>builder()
+            .index(index)
+            .status(HttpStatus.OK.value())
+            .data(value)
+            .build();
+    }
+
+    private static <R> BatchItemResultDto<R> failure(int index, RuntimeException ex) {
+        ErrorCode code = ErrorClassifier.codeOf(ex);
+        return BatchItemResultDto.<R>builder()
+            .index(index)
+            .status(ErrorClassifier.statusOf(code).value())
+            .code(code.name())
+            .message(ErrorClassifier.messageOf(ex, code))
+            .build();
+    }
+}
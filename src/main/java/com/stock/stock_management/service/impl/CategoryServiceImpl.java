@@ -1,17 +1,26 @@
 package com.stock.stock_management.service.impl;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.config.CacheConfig;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.CategoryDto;
+import com.stock.stock_management.dto.CategoryStockDto;
+import com.stock.stock_management.dto.ProductDto;
 import com.stock.stock_management.entity.Category;
 
 import com.stock.stock_management.error.ResourceNotFoundException;
@@ -19,40 +28,66 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
+import com.stock.stock_management.error.InvalidValueException;
 import com.stock.stock_management.repository.CategoryRepository;
-import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.repository.CategoryStock;
+import com.stock.stock_management.repository.EntityFilter;
+import com.stock.stock_management.repository.KeysetCursor;
+import com.stock.stock_management.repository.VersionView;
 import com.stock.stock_management.mapper.CategoryMapper;
+import com.stock.stock_management.mapper.ProductMapper;
+import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.CategoryService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
 
+    private static final EntityFilter<Category> FILTER = EntityFilter.<Category>of()
+        .field("parentId", "parent.id", Long.class);
+
     private final CategoryRepository repository;
     private final CategoryMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+
 
     // ========= Create =========
     @Override
     @Transactional
     public CategoryDto create(CategoryDto dto) {
+        repository.lockTree();
         precheckCreate(dto);
         Category entity = mapper.toEntity(dto);
         if (dto.getParentId() != null) { entity.setParent(repository.getRef(dto.getParentId())); }
         entity = repository.save(entity);
+        repository.insertClosure(entity.getId(), dto.getParentId());
         return mapper.toDto(entity);
     }
 
     // ========= Update (full replace) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id")
     public CategoryDto update(Long id, CategoryDto dto) {
+        // Full replace may move the node: serialize with other tree writers before reading its parent
+        repository.lockTree();
         // Load current (404 if missing)
         Category current = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("category not found with id=" + id));
 
         precheckUpdate(id, dto);
+        Long oldParentId = parentIdOf(current);
+        checkMove(id, dto.getParentId());
 
         // Build a replacement from DTO
         Category replaced = mapper.toEntity(dto);
@@ -73,27 +108,39 @@ public class CategoryServiceImpl implements CategoryService {
         if (dto.getParentId() != null) { replaced.setParent(repository.getRef(dto.getParentId())); }
 
         replaced = repository.save(replaced);
+        // Full replace: a null parentId makes it a root
+        moveSubtree(id, oldParentId, dto.getParentId());
         return mapper.toDto(replaced);
     }
 
     // ========= Patch (partial update) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id")
     public CategoryDto patch(Long id, CategoryDto dto) {
+        if (dto.getParentId() != null) { repository.lockTree(); }
         Category entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("category not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
+        Long oldParentId = parentIdOf(entity);
+        checkMove(id, dto.getParentId());
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getParentId() != null) { entity.setParent(repository.getRef(dto.getParentId())); }
         entity = repository.save(entity);
+        if (dto.getParentId() != null) { moveSubtree(id, oldParentId, dto.getParentId()); }
         return mapper.toDto(entity);
     }
 
     // ========= Queries =========
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id", unless = "#result == null")
     public Optional<CategoryDto> findById(Long id) {
         return repository.findById(id).map(mapper::toDto);
     }
@@ -104,6 +151,18 @@ public class CategoryServiceImpl implements CategoryService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<CategoryDto> findAll() {
@@ -116,48 +175,141 @@ public class CategoryServiceImpl implements CategoryService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CategoryDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(Category.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<CategoryDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<CategoryDto> scroll(String after, int size) {
+        List<Category> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<CategoryDto> sink) {
+        try (Stream<Category> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
+    // ========= Subtree queries =========
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductDto> findSubtreeProducts(Long id, Pageable pageable) {
+        requireExists(id);
+        return productRepository.findInCategorySubtree(id, pageable).map(productMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CategoryStockDto> findSubtreeStock(Long id) {
+        requireExists(id);
+        List<CategoryStockDto> out = new ArrayList<>();
+        for (CategoryStock row : repository.sumSubtreeStock(id)) {
+            out.add(CategoryStockDto.builder()
+                .warehouseId(row.getWarehouseId())
+                .products(row.getProducts())
+                .currentQty(row.getCurrentQty())
+                .reservedQty(row.getReservedQty())
+                .availableQty(row.getCurrentQty().subtract(row.getReservedQty()))
+                .build());
+        }
+        return out;
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id")
     public void deleteById(Long id) {
+        repository.lockTree();
         if (!repository.existsById(id)) {
             throw new ResourceNotFoundException("category not found with id=" + id);
         }
         guardDelete(id);
         repository.deleteById(id);
+        repository.deleteClosure(id);
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public void deleteByUuid(UUID uuid) {
+        repository.lockTree();
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
             repository.delete(entity);
+            repository.deleteClosure(entity.getId());
         });
     }
 
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(CategoryDto dto) {
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
-        if (dto.getName() != null && repository.existsByName(dto.getName())) { throw new DuplicateResourceException("category with name already exists"); }
-        if (dto.getParentId() != null && !repository.existsById(dto.getParentId())) { throw new ForeignKeyNotFoundException("parent_id references missing category"); }
+        validator.checks("category", "precheck_create")
+            .unique("category", "name", dto.getName(), null, () -> new DuplicateResourceException("category with name already exists"))
+            .exists("category", dto.getParentId(), () -> new ForeignKeyNotFoundException("parent_id references missing category"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, CategoryDto dto) {
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
-        if (dto.getName() != null && repository.existsByNameAndIdNot(dto.getName(), id)) { throw new DuplicateResourceException("category with name already exists"); }
-        if (dto.getParentId() != null && !repository.existsById(dto.getParentId())) { throw new ForeignKeyNotFoundException("parent_id references missing category"); }
+        validator.checks("category", "precheck_update")
+            .unique("category", "name", dto.getName(), id, () -> new DuplicateResourceException("category with name already exists"))
+            .exists("category", dto.getParentId(), () -> new ForeignKeyNotFoundException("parent_id references missing category"))
+            .verify();
+    }
+
+    // ========= Tree (category_closure) =========
+    private void requireExists(Long id) {
+        if (!repository.existsById(id)) {
+            throw new ResourceNotFoundException("category not found with id=" + id);
+        }
+    }
+
+    /** The closure holds (id, id), so this also refuses a category as its own parent. Needs {@code lockTree()}. */
+    private void checkMove(Long id, Long parentId) {
+        if (parentId != null && repository.isInSubtree(id, parentId)) {
+            throw new InvalidValueException("category " + id + " cannot be moved under its own subtree");
+        }
+    }
+
+    private void moveSubtree(Long id, Long fromParentId, Long toParentId) {
+        if (Objects.equals(fromParentId, toParentId)) return;
+        repository.detachSubtree(id);
+        if (toParentId != null) { repository.attachSubtree(id, toParentId); }
+    }
+
+    private static Long parentIdOf(Category category) {
+        return category.getParent() != null ? category.getParent().getId() : null;
     }
 
     // ========= Delete guard (child refs) =========
     private void guardDelete(Long id) {
-        if (repository.countByParentId(id) > 0) { throw new ReferentialIntegrityException("category has dependent category records"); }
-        if (productRepository.countByCategoryId(id) > 0) { throw new ReferentialIntegrityException("category has dependent product records"); }
+        validator.checks("category", "guard_delete")
+            .noChildren("category", "parent_id", id, () -> new ReferentialIntegrityException("category has dependent category records"))
+            .noChildren("product", "category_id", id, () -> new ReferentialIntegrityException("category has dependent product records"))
+            .verify();
     }
 }
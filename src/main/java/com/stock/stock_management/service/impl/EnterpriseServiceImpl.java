@@ -1,16 +1,23 @@
 package com.stock.stock_management.service.impl;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.config.CacheConfig;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.EnterpriseDto;
 import com.stock.stock_management.entity.Enterprise;
 
@@ -19,20 +26,31 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 
-import com.stock.stock_management.repository.WarehouseRepository;
+import com.stock.stock_management.repository.KeysetCursor;
+import com.stock.stock_management.repository.EntityFilter;
 import com.stock.stock_management.mapper.EnterpriseMapper;
 import com.stock.stock_management.repository.EnterpriseRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.EnterpriseService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class EnterpriseServiceImpl implements EnterpriseService {
 
+    private static final EntityFilter<Enterprise> FILTER = EntityFilter.<Enterprise>of();
+
     private final EnterpriseRepository repository;
     private final EnterpriseMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
-    private final WarehouseRepository warehouseRepository;
 
     // ========= Create =========
     @Override
@@ -47,6 +65,7 @@ public class EnterpriseServiceImpl implements EnterpriseService {
     // ========= Update (full replace) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ENTERPRISES, key = "#id")
     public EnterpriseDto update(Long id, EnterpriseDto dto) {
         // Load current (404 if missing)
         Enterprise current = repository.findById(id)
@@ -78,11 +97,16 @@ public class EnterpriseServiceImpl implements EnterpriseService {
     // ========= Patch (partial update) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ENTERPRISES, key = "#id")
     public EnterpriseDto patch(Long id, EnterpriseDto dto) {
         Enterprise entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("enterprise not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         entity = repository.save(entity);
@@ -92,6 +116,7 @@ public class EnterpriseServiceImpl implements EnterpriseService {
     // ========= Queries =========
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ENTERPRISES, key = "#id", unless = "#result == null")
     public Optional<EnterpriseDto> findById(Long id) {
         return repository.findById(id).map(mapper::toDto);
     }
@@ -102,6 +127,18 @@ public class EnterpriseServiceImpl implements EnterpriseService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<EnterpriseDto> findAll() {
@@ -114,15 +151,48 @@ public class EnterpriseServiceImpl implements EnterpriseService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<EnterpriseDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(Enterprise.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<EnterpriseDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<EnterpriseDto> scroll(String after, int size) {
+        List<Enterprise> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<EnterpriseDto> sink) {
+        try (Stream<Enterprise> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ENTERPRISES, key = "#id")
     public void deleteById(Long id) {
         if (!repository.existsById(id)) {
             throw new ResourceNotFoundException("enterprise not found with id=" + id);
@@ -133,6 +203,7 @@ public class EnterpriseServiceImpl implements EnterpriseService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ENTERPRISES, allEntries = true)
     public void deleteByUuid(UUID uuid) {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
@@ -143,16 +214,22 @@ public class EnterpriseServiceImpl implements EnterpriseService {
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(EnterpriseDto dto) {
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
-        if (dto.getName() != null && repository.existsByName(dto.getName())) { throw new DuplicateResourceException("enterprise with name already exists"); }
+        validator.checks("enterprise", "precheck_create")
+            .unique("enterprise", "name", dto.getName(), null, () -> new DuplicateResourceException("enterprise with name already exists"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, EnterpriseDto dto) {
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
-        if (dto.getName() != null && repository.existsByNameAndIdNot(dto.getName(), id)) { throw new DuplicateResourceException("enterprise with name already exists"); }
+        validator.checks("enterprise", "precheck_update")
+            .unique("enterprise", "name", dto.getName(), id, () -> new DuplicateResourceException("enterprise with name already exists"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
     private void guardDelete(Long id) {
-        if (warehouseRepository.countByEnterpriseId(id) > 0) { throw new ReferentialIntegrityException("enterprise has dependent warehouse records"); }
+        validator.checks("enterprise", "guard_delete")
+            .noChildren("warehouse", "enterprise_id", id, () -> new ReferentialIntegrityException("enterprise has dependent warehouse records"))
+            .verify();
     }
 }
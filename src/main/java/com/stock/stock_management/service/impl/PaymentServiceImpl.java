@@ -1,9 +1,13 @@
 package com.stock.stock_management.service.impl;
 
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,37 +15,64 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.PaymentDto;
 import com.stock.stock_management.entity.Payment;
 
 import com.stock.stock_management.error.ResourceNotFoundException;
 import com.stock.stock_management.error.DuplicateResourceException;
+import com.stock.stock_management.error.IdempotencyKeyMismatchException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.SalesOrderRepository;
+import com.stock.stock_management.repository.EntityFilter;
 
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.PaymentMapper;
 import com.stock.stock_management.repository.PaymentRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.PaymentService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
 
+    private static final EntityFilter<Payment> FILTER = EntityFilter.<Payment>of()
+        .field("salesOrderId", "salesOrder.id", Long.class);
+
     private final PaymentRepository repository;
     private final PaymentMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final SalesOrderRepository salesOrderRepository;
+    private final OrderTotals orderTotals;
 
     // ========= Create =========
     @Override
     @Transactional
     public PaymentDto create(PaymentDto dto) {
+        // A retried create (same key) returns the payment it already made, without applying it twice.
+        // The key lock serializes concurrent retries; the lookup runs after it, so it sees a committed winner.
+        // Sits behind IdempotencyFilter: see PaymentService#create for how the two keys combine.
+        if (dto.getIdempotencyKey() != null) {
+            repository.lockIdempotencyKey(dto.getIdempotencyKey());
+            Optional<Payment> existing = repository.findByIdempotencyKey(dto.getIdempotencyKey());
+            if (existing.isPresent()) { return replay(existing.get(), dto); }
+        }
         precheckCreate(dto);
         Payment entity = mapper.toEntity(dto);
         if (dto.getSalesOrderId() != null) { entity.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
         entity = repository.save(entity);
+        orderTotals.adjustSalesOrder(orderIdOf(entity), BigDecimal.ZERO, OrderTotals.nz(entity.getAmount()));
         return mapper.toDto(entity);
     }
 
@@ -52,6 +83,8 @@ public class PaymentServiceImpl implements PaymentService {
         // Load current (404 if missing)
         Payment current = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("payment not found with id=" + id));
+        Long oldOrderId = orderIdOf(current);
+        BigDecimal oldAmount = OrderTotals.nz(current.getAmount());
 
         precheckUpdate(id, dto);
 
@@ -64,6 +97,7 @@ public class PaymentServiceImpl implements PaymentService {
         // Preserve immutable / audit when omitted in DTO
         if (replaced.getUuid() == null) { replaced.setUuid(current.getUuid()); }
         if (replaced.getCreatedAt() == null) { replaced.setCreatedAt(current.getCreatedAt()); }
+        replaced.setIdempotencyKey(current.getIdempotencyKey());
 
         // ===== Version handling =====
         // If DTO carries version -> use it (optimistic locking by Hibernate).
@@ -74,6 +108,7 @@ public class PaymentServiceImpl implements PaymentService {
         if (dto.getSalesOrderId() != null) { replaced.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
 
         replaced = repository.save(replaced);
+        orderTotals.moveSales(oldOrderId, BigDecimal.ZERO, oldAmount, orderIdOf(replaced), BigDecimal.ZERO, OrderTotals.nz(replaced.getAmount()));
         return mapper.toDto(replaced);
     }
 
@@ -84,11 +119,19 @@ public class PaymentServiceImpl implements PaymentService {
         Payment entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("payment not found with id=" + id));
 
+        Long oldOrderId = orderIdOf(entity);
+        BigDecimal oldAmount = OrderTotals.nz(entity.getAmount());
+
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getSalesOrderId() != null) { entity.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
         entity = repository.save(entity);
+        orderTotals.moveSales(oldOrderId, BigDecimal.ZERO, oldAmount, orderIdOf(entity), BigDecimal.ZERO, OrderTotals.nz(entity.getAmount()));
         return mapper.toDto(entity);
     }
 
@@ -105,6 +148,18 @@ public class PaymentServiceImpl implements PaymentService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PaymentDto> findAll() {
@@ -117,21 +172,53 @@ public class PaymentServiceImpl implements PaymentService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PaymentDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(Payment.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PaymentDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<PaymentDto> scroll(String after, int size) {
+        List<Payment> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<PaymentDto> sink) {
+        try (Stream<Payment> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
     public void deleteById(Long id) {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("payment not found with id=" + id);
-        }
+        Payment entity = repository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("payment not found with id=" + id));
         guardDelete(id);
-        repository.deleteById(id);
+        repository.delete(entity);
+        orderTotals.adjustSalesOrder(orderIdOf(entity), BigDecimal.ZERO, OrderTotals.nz(entity.getAmount()).negate());
     }
 
     @Override
@@ -140,22 +227,39 @@ public class PaymentServiceImpl implements PaymentService {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
             repository.delete(entity);
+            orderTotals.adjustSalesOrder(orderIdOf(entity), BigDecimal.ZERO, OrderTotals.nz(entity.getAmount()).negate());
         });
     }
 
+    // ========= Totals =========
+    private PaymentDto replay(Payment existing, PaymentDto dto) {
+        boolean same = OrderTotals.nz(existing.getAmount()).compareTo(OrderTotals.nz(dto.getAmount())) == 0
+            && Objects.equals(orderIdOf(existing), dto.getSalesOrderId());
+        if (!same) { throw new IdempotencyKeyMismatchException("idempotencyKey already used by payment id=" + existing.getId() + " with a different amount or order"); }
+        return mapper.toDto(existing);
+    }
+
+    private static Long orderIdOf(Payment payment) {
+        return payment.getSalesOrder() != null ? payment.getSalesOrder().getId() : null;
+    }
+
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(PaymentDto dto) {
         if (dto.getAmount() == null) { throw new MissingRequiredFieldException("amount is required"); }
         if (dto.getPaymentMethod() == null) { throw new MissingRequiredFieldException("payment_method is required"); }
         if (dto.getPaymentType() == null) { throw new MissingRequiredFieldException("payment_type is required"); }
-        if (dto.getSalesOrderId() != null && !salesOrderRepository.existsById(dto.getSalesOrderId())) { throw new ForeignKeyNotFoundException("sales_order_id references missing sales_order"); }
+        validator.checks("payment", "precheck_create")
+            .exists("sales_order", dto.getSalesOrderId(), () -> new ForeignKeyNotFoundException("sales_order_id references missing sales_order"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, PaymentDto dto) {
         if (dto.getAmount() == null) { throw new MissingRequiredFieldException("amount is required"); }
         if (dto.getPaymentMethod() == null) { throw new MissingRequiredFieldException("payment_method is required"); }
         if (dto.getPaymentType() == null) { throw new MissingRequiredFieldException("payment_type is required"); }
-        if (dto.getSalesOrderId() != null && !salesOrderRepository.existsById(dto.getSalesOrderId())) { throw new ForeignKeyNotFoundException("sales_order_id references missing sales_order"); }
+        validator.checks("payment", "precheck_update")
+            .exists("sales_order", dto.getSalesOrderId(), () -> new ForeignKeyNotFoundException("sales_order_id references missing sales_order"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
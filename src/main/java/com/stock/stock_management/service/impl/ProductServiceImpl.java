@@ -1,16 +1,23 @@
 package com.stock.stock_management.service.impl;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.config.CacheConfig;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.ProductDto;
 import com.stock.stock_management.entity.Product;
 
@@ -19,25 +26,34 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.CategoryRepository;
-import com.stock.stock_management.repository.PurchaseOrderLineRepository;
-import com.stock.stock_management.repository.SalesOrderLineRepository;
-import com.stock.stock_management.repository.StockLevelRepository;
+import com.stock.stock_management.repository.EntityFilter;
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.ProductMapper;
 import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.ProductService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    private static final EntityFilter<Product> FILTER = EntityFilter.<Product>of()
+        .field("categoryId", "category.id", Long.class)
+        .field("name", String.class);
+
     private final ProductRepository repository;
     private final ProductMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final CategoryRepository categoryRepository;
-    private final PurchaseOrderLineRepository purchaseOrderLineRepository;
-    private final SalesOrderLineRepository salesOrderLineRepository;
-    private final StockLevelRepository stockLevelRepository;
 
     // ========= Create =========
     @Override
@@ -53,6 +69,7 @@ public class ProductServiceImpl implements ProductService {
     // ========= Update (full replace) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public ProductDto update(Long id, ProductDto dto) {
         // Load current (404 if missing)
         Product current = repository.findById(id)
@@ -85,11 +102,16 @@ public class ProductServiceImpl implements ProductService {
     // ========= Patch (partial update) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public ProductDto patch(Long id, ProductDto dto) {
         Product entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("product not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getCategoryId() != null) { entity.setCategory(categoryRepository.getRef(dto.getCategoryId())); }
@@ -100,6 +122,7 @@ public class ProductServiceImpl implements ProductService {
     // ========= Queries =========
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id", unless = "#result == null")
     public Optional<ProductDto> findById(Long id) {
         return repository.findById(id).map(mapper::toDto);
     }
@@ -110,6 +133,18 @@ public class ProductServiceImpl implements ProductService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ProductDto> findAll() {
@@ -122,15 +157,48 @@ public class ProductServiceImpl implements ProductService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(Product.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ProductDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<ProductDto> scroll(String after, int size) {
+        List<Product> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<ProductDto> sink) {
+        try (Stream<Product> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public void deleteById(Long id) {
         if (!repository.existsById(id)) {
             throw new ResourceNotFoundException("product not found with id=" + id);
@@ -141,6 +209,7 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true)
     public void deleteByUuid(UUID uuid) {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
@@ -152,21 +221,28 @@ public class ProductServiceImpl implements ProductService {
     private void precheckCreate(ProductDto dto) {
         if (dto.getDescription() == null) { throw new MissingRequiredFieldException("description is required"); }
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
-        if (dto.getDescription() != null && repository.existsByDescription(dto.getDescription())) { throw new DuplicateResourceException("product with description already exists"); }
-        if (dto.getCategoryId() != null && !categoryRepository.existsById(dto.getCategoryId())) { throw new ForeignKeyNotFoundException("category_id references missing category"); }
+        validator.checks("product", "precheck_create")
+            .unique("product", "description", dto.getDescription(), null, () -> new DuplicateResourceException("product with description already exists"))
+            .exists("category", dto.getCategoryId(), () -> new ForeignKeyNotFoundException("category_id references missing category"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, ProductDto dto) {
         if (dto.getDescription() == null) { throw new MissingRequiredFieldException("description is required"); }
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
-        if (dto.getDescription() != null && repository.existsByDescriptionAndIdNot(dto.getDescription(), id)) { throw new DuplicateResourceException("product with description already exists"); }
-        if (dto.getCategoryId() != null && !categoryRepository.existsById(dto.getCategoryId())) { throw new ForeignKeyNotFoundException("category_id references missing category"); }
+        validator.checks("product", "precheck_update")
+            .unique("product", "description", dto.getDescription(), id, () -> new DuplicateResourceException("product with description already exists"))
+            .exists("category", dto.getCategoryId(), () -> new ForeignKeyNotFoundException("category_id references missing category"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
     private void guardDelete(Long id) {
-        if (purchaseOrderLineRepository.countByProductId(id) > 0) { throw new ReferentialIntegrityException("product has dependent purchase_order_line records"); }
-        if (salesOrderLineRepository.countByProductId(id) > 0) { throw new ReferentialIntegrityException("product has dependent sales_order_line records"); }
-        if (stockLevelRepository.countByProductId(id) > 0) { throw new ReferentialIntegrityException("product has dependent stock_level records"); }
+        validator.checks("product", "guard_delete")
+            .noChildren("purchase_order_line_key", "product_id", id, () -> new ReferentialIntegrityException("product has dependent purchase_order_line records"))
+            .noChildren("sales_order_line_key", "product_id", id, () -> new ReferentialIntegrityException("product has dependent sales_order_line records"))
+            .noChildren("stock_level", "product_id", id, () -> new ReferentialIntegrityException("product has dependent stock_level records"))
+            .noChildren("stock_movement", "product_id", id, () -> new ReferentialIntegrityException("product has dependent stock_movement records"))
+            .verify();
     }
 }
@@ -1,9 +1,13 @@
 package com.stock.stock_management.service.impl;
 
+import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +15,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.PurchaseInvoiceDto;
 import com.stock.stock_management.entity.PurchaseInvoice;
 
@@ -19,18 +24,35 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.PurchaseOrderRepository;
+import com.stock.stock_management.repository.EntityFilter;
 
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.PurchaseInvoiceMapper;
 import com.stock.stock_management.repository.PurchaseInvoiceRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.PurchaseInvoiceService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class PurchaseInvoiceServiceImpl implements PurchaseInvoiceService {
 
+    private static final EntityFilter<PurchaseInvoice> FILTER = EntityFilter.<PurchaseInvoice>of()
+        .field("purchaseOrderId", "purchaseOrder.id", Long.class)
+        .field("status", String.class)
+        .field("dueDate", OffsetDateTime.class);
+
     private final PurchaseInvoiceRepository repository;
     private final PurchaseInvoiceMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final PurchaseOrderRepository purchaseOrderRepository;
 
@@ -41,6 +63,7 @@ public class PurchaseInvoiceServiceImpl implements PurchaseInvoiceService {
         precheckCreate(dto);
         PurchaseInvoice entity = mapper.toEntity(dto);
         if (dto.getPurchaseOrderId() != null) { entity.setPurchaseOrder(purchaseOrderRepository.getRef(dto.getPurchaseOrderId())); }
+        mirrorTotals(entity);
         entity = repository.save(entity);
         return mapper.toDto(entity);
     }
@@ -72,6 +95,7 @@ public class PurchaseInvoiceServiceImpl implements PurchaseInvoiceService {
             replaced.setVersion(current.getVersion());
         }
         if (dto.getPurchaseOrderId() != null) { replaced.setPurchaseOrder(purchaseOrderRepository.getRef(dto.getPurchaseOrderId())); }
+        mirrorTotals(replaced);
 
         replaced = repository.save(replaced);
         return mapper.toDto(replaced);
@@ -85,9 +109,14 @@ public class PurchaseInvoiceServiceImpl implements PurchaseInvoiceService {
             .orElseThrow(() -> new ResourceNotFoundException("purchaseInvoice not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getPurchaseOrderId() != null) { entity.setPurchaseOrder(purchaseOrderRepository.getRef(dto.getPurchaseOrderId())); }
+        mirrorTotals(entity);
         entity = repository.save(entity);
         return mapper.toDto(entity);
     }
@@ -105,6 +134,18 @@ public class PurchaseInvoiceServiceImpl implements PurchaseInvoiceService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PurchaseInvoiceDto> findAll() {
@@ -117,12 +158,44 @@ public class PurchaseInvoiceServiceImpl implements PurchaseInvoiceService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PurchaseInvoiceDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(PurchaseInvoice.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PurchaseInvoiceDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<PurchaseInvoiceDto> scroll(String after, int size) {
+        List<PurchaseInvoice> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<PurchaseInvoiceDto> sink) {
+        try (Stream<PurchaseInvoice> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
@@ -143,15 +216,25 @@ public class PurchaseInvoiceServiceImpl implements PurchaseInvoiceService {
         });
     }
 
+    // ========= Totals =========
+    /** An invoice carries its order's totals; they are kept in step by {@link OrderTotals}. */
+    private static void mirrorTotals(PurchaseInvoice invoice) {
+        if (invoice.getPurchaseOrder() != null) { OrderTotals.mirror(invoice, invoice.getPurchaseOrder()); }
+    }
+
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(PurchaseInvoiceDto dto) {
         if (dto.getPurchaseOrderId() == null) { throw new MissingRequiredFieldException("purchase_order_id is required"); }
-        if (dto.getPurchaseOrderId() != null && !purchaseOrderRepository.existsById(dto.getPurchaseOrderId())) { throw new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"); }
+        validator.checks("purchase_invoice", "precheck_create")
+            .exists("purchase_order", dto.getPurchaseOrderId(), () -> new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, PurchaseInvoiceDto dto) {
         if (dto.getPurchaseOrderId() == null) { throw new MissingRequiredFieldException("purchase_order_id is required"); }
-        if (dto.getPurchaseOrderId() != null && !purchaseOrderRepository.existsById(dto.getPurchaseOrderId())) { throw new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"); }
+        validator.checks("purchase_invoice", "precheck_update")
+            .exists("purchase_order", dto.getPurchaseOrderId(), () -> new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
@@ -1,9 +1,13 @@
 package com.stock.stock_management.service.impl;
 
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +15,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.PurchaseOrderLineDto;
 import com.stock.stock_management.entity.PurchaseOrderLine;
 
@@ -19,21 +24,38 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.repository.EntityFilter;
 import com.stock.stock_management.repository.PurchaseOrderRepository;
 
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.PurchaseOrderLineMapper;
 import com.stock.stock_management.repository.PurchaseOrderLineRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.PurchaseOrderLineService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
 
+    private static final EntityFilter<PurchaseOrderLine> FILTER = EntityFilter.<PurchaseOrderLine>of()
+        .field("purchaseOrderId", "purchaseOrder.id", Long.class)
+        .field("productId", "product.id", Long.class);
+
     private final PurchaseOrderLineRepository repository;
     private final PurchaseOrderLineMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final PurchaseOrderRepository purchaseOrderRepository;
+    private final OrderTotals orderTotals;
     private final ProductRepository productRepository;
 
     // ========= Create =========
@@ -44,7 +66,9 @@ public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
         PurchaseOrderLine entity = mapper.toEntity(dto);
         if (dto.getPurchaseOrderId() != null) { entity.setPurchaseOrder(purchaseOrderRepository.getRef(dto.getPurchaseOrderId())); }
         if (dto.getProductId() != null) { entity.setProduct(productRepository.getRef(dto.getProductId())); }
+        entity.setLineTotal(amountOf(entity));
         entity = repository.save(entity);
+        orderTotals.adjustPurchaseOrder(orderIdOf(entity), entity.getLineTotal());
         return mapper.toDto(entity);
     }
 
@@ -55,6 +79,8 @@ public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
         // Load current (404 if missing)
         PurchaseOrderLine current = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("purchaseOrderLine not found with id=" + id));
+        Long oldOrderId = orderIdOf(current);
+        BigDecimal oldTotal = OrderTotals.nz(current.getLineTotal());
 
         precheckUpdate(id, dto);
 
@@ -77,7 +103,10 @@ public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
         if (dto.getPurchaseOrderId() != null) { replaced.setPurchaseOrder(purchaseOrderRepository.getRef(dto.getPurchaseOrderId())); }
         if (dto.getProductId() != null) { replaced.setProduct(productRepository.getRef(dto.getProductId())); }
 
+        replaced.setLineTotal(amountOf(replaced));
+
         replaced = repository.save(replaced);
+        orderTotals.movePurchase(oldOrderId, oldTotal, orderIdOf(replaced), replaced.getLineTotal());
         return mapper.toDto(replaced);
     }
 
@@ -88,12 +117,21 @@ public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
         PurchaseOrderLine entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("purchaseOrderLine not found with id=" + id));
 
+        Long oldOrderId = orderIdOf(entity);
+        BigDecimal oldTotal = OrderTotals.nz(entity.getLineTotal());
+
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getPurchaseOrderId() != null) { entity.setPurchaseOrder(purchaseOrderRepository.getRef(dto.getPurchaseOrderId())); }
         if (dto.getProductId() != null) { entity.setProduct(productRepository.getRef(dto.getProductId())); }
+        entity.setLineTotal(amountOf(entity));
         entity = repository.save(entity);
+        orderTotals.movePurchase(oldOrderId, oldTotal, orderIdOf(entity), entity.getLineTotal());
         return mapper.toDto(entity);
     }
 
@@ -110,6 +148,18 @@ public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PurchaseOrderLineDto> findAll() {
@@ -122,21 +172,53 @@ public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PurchaseOrderLineDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(PurchaseOrderLine.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PurchaseOrderLineDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<PurchaseOrderLineDto> scroll(String after, int size) {
+        List<PurchaseOrderLine> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<PurchaseOrderLineDto> sink) {
+        try (Stream<PurchaseOrderLine> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
     public void deleteById(Long id) {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("purchaseOrderLine not found with id=" + id);
-        }
+        PurchaseOrderLine entity = repository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("purchaseOrderLine not found with id=" + id));
         guardDelete(id);
-        repository.deleteById(id);
+        repository.delete(entity);
+        orderTotals.adjustPurchaseOrder(orderIdOf(entity), OrderTotals.nz(entity.getLineTotal()).negate());
     }
 
     @Override
@@ -145,22 +227,37 @@ public class PurchaseOrderLineServiceImpl implements PurchaseOrderLineService {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
             repository.delete(entity);
+            orderTotals.adjustPurchaseOrder(orderIdOf(entity), OrderTotals.nz(entity.getLineTotal()).negate());
         });
     }
 
+    // ========= Totals =========
+    private static BigDecimal amountOf(PurchaseOrderLine line) {
+        return OrderTotals.lineAmount(line.getQuantity(), line.getUnitPrice(), line.getDiscount(),
+            line.getProduct() != null ? line.getProduct().getTva() : null);
+    }
+
+    private static Long orderIdOf(PurchaseOrderLine line) {
+        return line.getPurchaseOrder() != null ? line.getPurchaseOrder().getId() : null;
+    }
+
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(PurchaseOrderLineDto dto) {
         if (dto.getPurchaseOrderId() == null) { throw new MissingRequiredFieldException("purchase_order_id is required"); }
         if (dto.getProductId() == null) { throw new MissingRequiredFieldException("product_id is required"); }
-        if (dto.getPurchaseOrderId() != null && !purchaseOrderRepository.existsById(dto.getPurchaseOrderId())) { throw new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"); }
-        if (dto.getProductId() != null && !productRepository.existsById(dto.getProductId())) { throw new ForeignKeyNotFoundException("product_id references missing product"); }
+        validator.checks("purchase_order_line", "precheck_create")
+            .exists("purchase_order", dto.getPurchaseOrderId(), () -> new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"))
+            .exists("product", dto.getProductId(), () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, PurchaseOrderLineDto dto) {
         if (dto.getPurchaseOrderId() == null) { throw new MissingRequiredFieldException("purchase_order_id is required"); }
         if (dto.getProductId() == null) { throw new MissingRequiredFieldException("product_id is required"); }
-        if (dto.getPurchaseOrderId() != null && !purchaseOrderRepository.existsById(dto.getPurchaseOrderId())) { throw new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"); }
-        if (dto.getProductId() != null && !productRepository.existsById(dto.getProductId())) { throw new ForeignKeyNotFoundException("product_id references missing product"); }
+        validator.checks("purchase_order_line", "precheck_update")
+            .exists("purchase_order", dto.getPurchaseOrderId(), () -> new ForeignKeyNotFoundException("purchase_order_id references missing purchase_order"))
+            .exists("product", dto.getProductId(), () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
@@ -1,9 +1,14 @@
 package com.stock.stock_management.service.impl;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,33 +16,58 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.PurchaseOrderDto;
+import com.stock.stock_management.dto.PurchaseOrderLineDto;
+import com.stock.stock_management.dto.PurchaseOrderWithLinesDto;
+import com.stock.stock_management.entity.Product;
 import com.stock.stock_management.entity.PurchaseOrder;
+import com.stock.stock_management.entity.PurchaseOrderLine;
 
 import com.stock.stock_management.error.ResourceNotFoundException;
 import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.SupplierRepository;
+import com.stock.stock_management.repository.EntityFilter;
 import com.stock.stock_management.repository.WarehouseRepository;
-import com.stock.stock_management.repository.PurchaseInvoiceRepository;
-import com.stock.stock_management.repository.PurchaseOrderLineRepository;
+import com.stock.stock_management.repository.KeysetCursor;
+import com.stock.stock_management.mapper.PurchaseOrderLineMapper;
 import com.stock.stock_management.mapper.PurchaseOrderMapper;
+import com.stock.stock_management.repository.PurchaseOrderLineRepository;
 import com.stock.stock_management.repository.PurchaseOrderRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderLinePricing;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.PurchaseOrderService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class PurchaseOrderServiceImpl implements PurchaseOrderService {
 
+    private static final EntityFilter<PurchaseOrder> FILTER = EntityFilter.<PurchaseOrder>of()
+        .field("supplierId", "supplier.id", Long.class)
+        .field("warehouseId", "warehouse.id", Long.class)
+        .field("status", String.class)
+        .field("orderDate", OffsetDateTime.class);
+
     private final PurchaseOrderRepository repository;
     private final PurchaseOrderMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final SupplierRepository supplierRepository;
     private final WarehouseRepository warehouseRepository;
-    private final PurchaseOrderLineRepository purchaseOrderLineRepository;
-    private final PurchaseInvoiceRepository purchaseInvoiceRepository;
+    private final PurchaseOrderLineRepository lineRepository;
+    private final PurchaseOrderLineMapper lineMapper;
+    private final OrderLinePricing linePricing;
 
     // ========= Create =========
     @Override
@@ -47,10 +77,59 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         PurchaseOrder entity = mapper.toEntity(dto);
         if (dto.getSupplierId() != null) { entity.setSupplier(supplierRepository.getRef(dto.getSupplierId())); }
         if (dto.getWarehouseId() != null) { entity.setWarehouse(warehouseRepository.getRef(dto.getWarehouseId())); }
+        // Totals follow the lines and payments written afterwards
+        entity.setTotalAmount(BigDecimal.ZERO);
         entity = repository.save(entity);
         return mapper.toDto(entity);
     }
 
+    // ========= Aggregate (order + lines) =========
+    @Override
+    @Transactional
+    public PurchaseOrderWithLinesDto createWithLines(PurchaseOrderWithLinesDto dto) {
+        PurchaseOrderDto header = dto.getOrder();
+        precheckCreate(header);
+        List<PurchaseOrderLineDto> lineDtos = dto.getLines();
+        for (int i = 0; i < lineDtos.size(); i++) {
+            PurchaseOrderLineDto l = lineDtos.get(i);
+            OrderLinePricing.requireLine(i, l.getProductId(), l.getQuantity(), l.getUnitPrice(), l.getDiscount());
+        }
+        // One query for every product of the order instead of one existence check per line
+        Map<Long, Product> products = linePricing.products(lineDtos.stream().map(PurchaseOrderLineDto::getProductId).toList());
+
+        PurchaseOrder order = mapper.toEntity(header);
+        order.setSupplier(supplierRepository.getRef(header.getSupplierId()));
+        order.setWarehouse(warehouseRepository.getRef(header.getWarehouseId()));
+
+        List<PurchaseOrderLine> lines = new ArrayList<>(lineDtos.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (PurchaseOrderLineDto l : lineDtos) {
+            Product product = products.get(l.getProductId());
+            PurchaseOrderLine line = lineMapper.toEntity(l);
+            line.setPurchaseOrder(order);
+            line.setProduct(product);
+            line.setLineTotal(OrderTotals.lineAmount(l.getQuantity(), l.getUnitPrice(), l.getDiscount(), product.getTva()));
+            lines.add(line);
+            total = total.add(line.getLineTotal());
+        }
+        // Sum of the rounded line amounts, so later per-line deltas keep it exact
+        order.setTotalAmount(total);
+
+
+        // Sequence ids are pooled, so the header and all lines go out as batched INSERTs on this flush
+        order = repository.save(order);
+        List<PurchaseOrderLine> saved = lineRepository.saveAll(lines);
+        repository.flush();
+        return new PurchaseOrderWithLinesDto(mapper.toDto(order), lineMapper.toDtoList(saved));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PurchaseOrderWithLinesDto> findWithLines(Long id) {
+        return repository.findById(id).map(order ->
+            new PurchaseOrderWithLinesDto(mapper.toDto(order), lineMapper.toDtoList(lineRepository.findByPurchaseOrderId(id))));
+    }
+
     // ========= Update (full replace) =========
     @Override
     @Transactional
@@ -70,6 +149,8 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         // Preserve immutable / audit when omitted in DTO
         if (replaced.getUuid() == null) { replaced.setUuid(current.getUuid()); }
         if (replaced.getCreatedAt() == null) { replaced.setCreatedAt(current.getCreatedAt()); }
+        // Server-maintained totals
+        replaced.setTotalAmount(current.getTotalAmount());
 
         // ===== Version handling =====
         // If DTO carries version -> use it (optimistic locking by Hibernate).
@@ -92,6 +173,10 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             .orElseThrow(() -> new ResourceNotFoundException("purchaseOrder not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getSupplierId() != null) { entity.setSupplier(supplierRepository.getRef(dto.getSupplierId())); }
@@ -113,6 +198,18 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PurchaseOrderDto> findAll() {
@@ -125,12 +222,44 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PurchaseOrderDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(PurchaseOrder.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PurchaseOrderDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<PurchaseOrderDto> scroll(String after, int size) {
+        List<PurchaseOrder> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<PurchaseOrderDto> sink) {
+        try (Stream<PurchaseOrder> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
@@ -155,20 +284,26 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
     private void precheckCreate(PurchaseOrderDto dto) {
         if (dto.getSupplierId() == null) { throw new MissingRequiredFieldException("supplier_id is required"); }
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getSupplierId() != null && !supplierRepository.existsById(dto.getSupplierId())) { throw new ForeignKeyNotFoundException("supplier_id references missing supplier"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("purchase_order", "precheck_create")
+            .exists("supplier", dto.getSupplierId(), () -> new ForeignKeyNotFoundException("supplier_id references missing supplier"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, PurchaseOrderDto dto) {
         if (dto.getSupplierId() == null) { throw new MissingRequiredFieldException("supplier_id is required"); }
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getSupplierId() != null && !supplierRepository.existsById(dto.getSupplierId())) { throw new ForeignKeyNotFoundException("supplier_id references missing supplier"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("purchase_order", "precheck_update")
+            .exists("supplier", dto.getSupplierId(), () -> new ForeignKeyNotFoundException("supplier_id references missing supplier"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
     private void guardDelete(Long id) {
-        if (purchaseOrderLineRepository.countByPurchaseOrderId(id) > 0) { throw new ReferentialIntegrityException("purchaseOrder has dependent purchase_order_line records"); }
-        if (purchaseInvoiceRepository.countByPurchaseOrderId(id) > 0) { throw new ReferentialIntegrityException("purchaseOrder has dependent purchase_invoice records"); }
+        validator.checks("purchase_order", "guard_delete")
+            .noChildren("purchase_order_line", "purchase_order_id", id, () -> new ReferentialIntegrityException("purchaseOrder has dependent purchase_order_line records"))
+            .noChildren("purchase_invoice", "purchase_order_id", id, () -> new ReferentialIntegrityException("purchaseOrder has dependent purchase_invoice records"))
+            .verify();
     }
 }
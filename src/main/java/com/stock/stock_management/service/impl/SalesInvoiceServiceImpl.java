@@ -1,9 +1,14 @@
 package com.stock.stock_management.service.impl;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +16,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.SalesInvoiceDto;
 import com.stock.stock_management.entity.SalesInvoice;
 
@@ -19,20 +25,39 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.SalesOrderRepository;
+import com.stock.stock_management.repository.EntityFilter;
 
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.SalesInvoiceMapper;
 import com.stock.stock_management.repository.SalesInvoiceRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.SalesInvoiceService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class SalesInvoiceServiceImpl implements SalesInvoiceService {
 
+    private static final EntityFilter<SalesInvoice> FILTER = EntityFilter.<SalesInvoice>of()
+        .field("salesOrderId", "salesOrder.id", Long.class)
+        .field("invoiceNumber", Long.class)
+        .field("status", String.class)
+        .field("dueDate", OffsetDateTime.class);
+
     private final SalesInvoiceRepository repository;
     private final SalesInvoiceMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final SalesOrderRepository salesOrderRepository;
+    private final OrderTotals orderTotals;
 
     // ========= Create =========
     @Override
@@ -41,8 +66,13 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         precheckCreate(dto);
         SalesInvoice entity = mapper.toEntity(dto);
         if (dto.getSalesOrderId() != null) { entity.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
+        // Bills the whole order unless told otherwise; paid_amount comes from the allocation
+        if (entity.getTotalAmount() == null && entity.getSalesOrder() != null) {
+            entity.setTotalAmount(OrderTotals.nz(entity.getSalesOrder().getTotalAmount()));
+        }
+        entity.setPaidAmount(BigDecimal.ZERO);
         entity = repository.save(entity);
-        return mapper.toDto(entity);
+        return allocated(entity, null);
     }
 
     // ========= Update (full replace) =========
@@ -52,6 +82,7 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         // Load current (404 if missing)
         SalesInvoice current = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("salesInvoice not found with id=" + id));
+        Long oldOrderId = orderIdOf(current);
 
         precheckUpdate(id, dto);
 
@@ -64,6 +95,7 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         // Preserve immutable / audit when omitted in DTO
         if (replaced.getUuid() == null) { replaced.setUuid(current.getUuid()); }
         if (replaced.getCreatedAt() == null) { replaced.setCreatedAt(current.getCreatedAt()); }
+        replaced.setPaidAmount(current.getPaidAmount());
 
         // ===== Version handling =====
         // If DTO carries version -> use it (optimistic locking by Hibernate).
@@ -74,7 +106,7 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         if (dto.getSalesOrderId() != null) { replaced.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
 
         replaced = repository.save(replaced);
-        return mapper.toDto(replaced);
+        return allocated(replaced, oldOrderId);
     }
 
     // ========= Patch (partial update) =========
@@ -84,12 +116,18 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         SalesInvoice entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("salesInvoice not found with id=" + id));
 
+        Long oldOrderId = orderIdOf(entity);
+
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getSalesOrderId() != null) { entity.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
         entity = repository.save(entity);
-        return mapper.toDto(entity);
+        return allocated(entity, oldOrderId);
     }
 
     // ========= Queries =========
@@ -105,6 +143,18 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SalesInvoiceDto> findAll() {
@@ -117,21 +167,53 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<SalesInvoiceDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(SalesInvoice.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SalesInvoiceDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<SalesInvoiceDto> scroll(String after, int size) {
+        List<SalesInvoice> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<SalesInvoiceDto> sink) {
+        try (Stream<SalesInvoice> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
     public void deleteById(Long id) {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("salesInvoice not found with id=" + id);
-        }
+        SalesInvoice entity = repository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("salesInvoice not found with id=" + id));
         guardDelete(id);
-        repository.deleteById(id);
+        repository.delete(entity);
+        orderTotals.allocateSales(orderIdOf(entity));
     }
 
     @Override
@@ -140,18 +222,41 @@ public class SalesInvoiceServiceImpl implements SalesInvoiceService {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
             repository.delete(entity);
+            orderTotals.allocateSales(orderIdOf(entity));
         });
     }
 
+    // ========= Totals =========
+    /**
+     * paid_amount and status follow the order's payments ({@link OrderTotals#allocateSales}); re-spread them
+     * over the invoice's order (and the one it left), then return the invoice as the allocation left it.
+     */
+    private SalesInvoiceDto allocated(SalesInvoice invoice, Long oldOrderId) {
+        Long orderId = orderIdOf(invoice);
+        if (orderId == null) return mapper.toDto(invoice);
+        if (oldOrderId != null && !oldOrderId.equals(orderId)) { orderTotals.allocateSales(oldOrderId); }
+        orderTotals.allocateSales(orderId);
+        entityManager.refresh(invoice);
+        return mapper.toDto(invoice);
+    }
+
+    private static Long orderIdOf(SalesInvoice invoice) {
+        return invoice.getSalesOrder() != null ? invoice.getSalesOrder().getId() : null;
+    }
+
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(SalesInvoiceDto dto) {
         if (dto.getSalesOrderId() == null) { throw new MissingRequiredFieldException("sales_order_id is required"); }
-        if (dto.getSalesOrderId() != null && !salesOrderRepository.existsById(dto.getSalesOrderId())) { throw new ForeignKeyNotFoundException("sales_order_id references missing sales_order"); }
+        validator.checks("sales_invoice", "precheck_create")
+            .exists("sales_order", dto.getSalesOrderId(), () -> new ForeignKeyNotFoundException("sales_order_id references missing sales_order"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, SalesInvoiceDto dto) {
         if (dto.getSalesOrderId() == null) { throw new MissingRequiredFieldException("sales_order_id is required"); }
-        if (dto.getSalesOrderId() != null && !salesOrderRepository.existsById(dto.getSalesOrderId())) { throw new ForeignKeyNotFoundException("sales_order_id references missing sales_order"); }
+        validator.checks("sales_invoice", "precheck_update")
+            .exists("sales_order", dto.getSalesOrderId(), () -> new ForeignKeyNotFoundException("sales_order_id references missing sales_order"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
@@ -1,9 +1,13 @@
 package com.stock.stock_management.service.impl;
 
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +15,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.SalesOrderLineDto;
 import com.stock.stock_management.entity.SalesOrderLine;
 
@@ -19,21 +24,38 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.repository.EntityFilter;
 import com.stock.stock_management.repository.SalesOrderRepository;
 
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.SalesOrderLineMapper;
 import com.stock.stock_management.repository.SalesOrderLineRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.SalesOrderLineService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class SalesOrderLineServiceImpl implements SalesOrderLineService {
 
+    private static final EntityFilter<SalesOrderLine> FILTER = EntityFilter.<SalesOrderLine>of()
+        .field("salesOrderId", "salesOrder.id", Long.class)
+        .field("productId", "product.id", Long.class);
+
     private final SalesOrderLineRepository repository;
     private final SalesOrderLineMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final SalesOrderRepository salesOrderRepository;
+    private final OrderTotals orderTotals;
     private final ProductRepository productRepository;
 
     // ========= Create =========
@@ -44,7 +66,9 @@ public class SalesOrderLineServiceImpl implements SalesOrderLineService {
         SalesOrderLine entity = mapper.toEntity(dto);
         if (dto.getSalesOrderId() != null) { entity.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
         if (dto.getProductId() != null) { entity.setProduct(productRepository.getRef(dto.getProductId())); }
+        entity.setLineTotal(amountOf(entity));
         entity = repository.save(entity);
+        orderTotals.adjustSalesOrder(orderIdOf(entity), entity.getLineTotal(), BigDecimal.ZERO);
         return mapper.toDto(entity);
     }
 
@@ -55,6 +79,8 @@ public class SalesOrderLineServiceImpl implements SalesOrderLineService {
         // Load current (404 if missing)
         SalesOrderLine current = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("salesOrderLine not found with id=" + id));
+        Long oldOrderId = orderIdOf(current);
+        BigDecimal oldTotal = OrderTotals.nz(current.getLineTotal());
 
         precheckUpdate(id, dto);
 
@@ -77,7 +103,10 @@ public class SalesOrderLineServiceImpl implements SalesOrderLineService {
         if (dto.getSalesOrderId() != null) { replaced.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
         if (dto.getProductId() != null) { replaced.setProduct(productRepository.getRef(dto.getProductId())); }
 
+        replaced.setLineTotal(amountOf(replaced));
+
         replaced = repository.save(replaced);
+        orderTotals.moveSales(oldOrderId, oldTotal, BigDecimal.ZERO, orderIdOf(replaced), replaced.getLineTotal(), BigDecimal.ZERO);
         return mapper.toDto(replaced);
     }
 
@@ -88,12 +117,21 @@ public class SalesOrderLineServiceImpl implements SalesOrderLineService {
         SalesOrderLine entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("salesOrderLine not found with id=" + id));
 
+        Long oldOrderId = orderIdOf(entity);
+        BigDecimal oldTotal = OrderTotals.nz(entity.getLineTotal());
+
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getSalesOrderId() != null) { entity.setSalesOrder(salesOrderRepository.getRef(dto.getSalesOrderId())); }
         if (dto.getProductId() != null) { entity.setProduct(productRepository.getRef(dto.getProductId())); }
+        entity.setLineTotal(amountOf(entity));
         entity = repository.save(entity);
+        orderTotals.moveSales(oldOrderId, oldTotal, BigDecimal.ZERO, orderIdOf(entity), entity.getLineTotal(), BigDecimal.ZERO);
         return mapper.toDto(entity);
     }
 
@@ -110,6 +148,18 @@ public class SalesOrderLineServiceImpl implements SalesOrderLineService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SalesOrderLineDto> findAll() {
@@ -122,21 +172,53 @@ public class SalesOrderLineServiceImpl implements SalesOrderLineService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<SalesOrderLineDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(SalesOrderLine.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SalesOrderLineDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<SalesOrderLineDto> scroll(String after, int size) {
+        List<SalesOrderLine> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<SalesOrderLineDto> sink) {
+        try (Stream<SalesOrderLine> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
     public void deleteById(Long id) {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("salesOrderLine not found with id=" + id);
-        }
+        SalesOrderLine entity = repository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("salesOrderLine not found with id=" + id));
         guardDelete(id);
-        repository.deleteById(id);
+        repository.delete(entity);
+        orderTotals.adjustSalesOrder(orderIdOf(entity), OrderTotals.nz(entity.getLineTotal()).negate(), BigDecimal.ZERO);
     }
 
     @Override
@@ -145,22 +227,37 @@ public class SalesOrderLineServiceImpl implements SalesOrderLineService {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
             repository.delete(entity);
+            orderTotals.adjustSalesOrder(orderIdOf(entity), OrderTotals.nz(entity.getLineTotal()).negate(), BigDecimal.ZERO);
         });
     }
 
+    // ========= Totals =========
+    private static BigDecimal amountOf(SalesOrderLine line) {
+        return OrderTotals.lineAmount(line.getQuantity(), line.getUnitPrice(), line.getDiscount(),
+            line.getProduct() != null ? line.getProduct().getTva() : null);
+    }
+
+    private static Long orderIdOf(SalesOrderLine line) {
+        return line.getSalesOrder() != null ? line.getSalesOrder().getId() : null;
+    }
+
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(SalesOrderLineDto dto) {
         if (dto.getSalesOrderId() == null) { throw new MissingRequiredFieldException("sales_order_id is required"); }
         if (dto.getProductId() == null) { throw new MissingRequiredFieldException("product_id is required"); }
-        if (dto.getSalesOrderId() != null && !salesOrderRepository.existsById(dto.getSalesOrderId())) { throw new ForeignKeyNotFoundException("sales_order_id references missing sales_order"); }
-        if (dto.getProductId() != null && !productRepository.existsById(dto.getProductId())) { throw new ForeignKeyNotFoundException("product_id references missing product"); }
+        validator.checks("sales_order_line", "precheck_create")
+            .exists("sales_order", dto.getSalesOrderId(), () -> new ForeignKeyNotFoundException("sales_order_id references missing sales_order"))
+            .exists("product", dto.getProductId(), () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, SalesOrderLineDto dto) {
         if (dto.getSalesOrderId() == null) { throw new MissingRequiredFieldException("sales_order_id is required"); }
         if (dto.getProductId() == null) { throw new MissingRequiredFieldException("product_id is required"); }
-        if (dto.getSalesOrderId() != null && !salesOrderRepository.existsById(dto.getSalesOrderId())) { throw new ForeignKeyNotFoundException("sales_order_id references missing sales_order"); }
-        if (dto.getProductId() != null && !productRepository.existsById(dto.getProductId())) { throw new ForeignKeyNotFoundException("product_id references missing product"); }
+        validator.checks("sales_order_line", "precheck_update")
+            .exists("sales_order", dto.getSalesOrderId(), () -> new ForeignKeyNotFoundException("sales_order_id references missing sales_order"))
+            .exists("product", dto.getProductId(), () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
@@ -1,9 +1,14 @@
 package com.stock.stock_management.service.impl;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,35 +16,58 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.SalesOrderDto;
+import com.stock.stock_management.dto.SalesOrderLineDto;
+import com.stock.stock_management.dto.SalesOrderWithLinesDto;
+import com.stock.stock_management.entity.Product;
 import com.stock.stock_management.entity.SalesOrder;
+import com.stock.stock_management.entity.SalesOrderLine;
 
 import com.stock.stock_management.error.ResourceNotFoundException;
 import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.ClientRepository;
+import com.stock.stock_management.repository.EntityFilter;
 import com.stock.stock_management.repository.WarehouseRepository;
-import com.stock.stock_management.repository.PaymentRepository;
-import com.stock.stock_management.repository.SalesInvoiceRepository;
-import com.stock.stock_management.repository.SalesOrderLineRepository;
+import com.stock.stock_management.repository.KeysetCursor;
+import com.stock.stock_management.mapper.SalesOrderLineMapper;
 import com.stock.stock_management.mapper.SalesOrderMapper;
+import com.stock.stock_management.repository.SalesOrderLineRepository;
 import com.stock.stock_management.repository.SalesOrderRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderLinePricing;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.SalesOrderService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class SalesOrderServiceImpl implements SalesOrderService {
 
+    private static final EntityFilter<SalesOrder> FILTER = EntityFilter.<SalesOrder>of()
+        .field("clientId", "client.id", Long.class)
+        .field("warehouseId", "warehouse.id", Long.class)
+        .field("status", String.class)
+        .field("orderDate", OffsetDateTime.class);
+
     private final SalesOrderRepository repository;
     private final SalesOrderMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final ClientRepository clientRepository;
     private final WarehouseRepository warehouseRepository;
-    private final SalesOrderLineRepository salesOrderLineRepository;
-    private final SalesInvoiceRepository salesInvoiceRepository;
-    private final PaymentRepository paymentRepository;
+    private final SalesOrderLineRepository lineRepository;
+    private final SalesOrderLineMapper lineMapper;
+    private final OrderLinePricing linePricing;
 
     // ========= Create =========
     @Override
@@ -49,10 +77,60 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         SalesOrder entity = mapper.toEntity(dto);
         if (dto.getClientId() != null) { entity.setClient(clientRepository.getRef(dto.getClientId())); }
         if (dto.getWarehouseId() != null) { entity.setWarehouse(warehouseRepository.getRef(dto.getWarehouseId())); }
+        // Totals follow the lines and payments written afterwards
+        entity.setTotalAmount(BigDecimal.ZERO);
+        entity.setAmountPaid(BigDecimal.ZERO);
         entity = repository.save(entity);
         return mapper.toDto(entity);
     }
 
+    // ========= Aggregate (order + lines) =========
+    @Override
+    @Transactional
+    public SalesOrderWithLinesDto createWithLines(SalesOrderWithLinesDto dto) {
+        SalesOrderDto header = dto.getOrder();
+        precheckCreate(header);
+        List<SalesOrderLineDto> lineDtos = dto.getLines();
+        for (int i = 0; i < lineDtos.size(); i++) {
+            SalesOrderLineDto l = lineDtos.get(i);
+            OrderLinePricing.requireLine(i, l.getProductId(), l.getQuantity(), l.getUnitPrice(), l.getDiscount());
+        }
+        // One query for every product of the order instead of one existence check per line
+        Map<Long, Product> products = linePricing.products(lineDtos.stream().map(SalesOrderLineDto::getProductId).toList());
+
+        SalesOrder order = mapper.toEntity(header);
+        if (header.getClientId() != null) { order.setClient(clientRepository.getRef(header.getClientId())); }
+        order.setWarehouse(warehouseRepository.getRef(header.getWarehouseId()));
+
+        List<SalesOrderLine> lines = new ArrayList<>(lineDtos.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (SalesOrderLineDto l : lineDtos) {
+            Product product = products.get(l.getProductId());
+            SalesOrderLine line = lineMapper.toEntity(l);
+            line.setSalesOrder(order);
+            line.setProduct(product);
+            line.setLineTotal(OrderTotals.lineAmount(l.getQuantity(), l.getUnitPrice(), l.getDiscount(), product.getTva()));
+            lines.add(line);
+            total = total.add(line.getLineTotal());
+        }
+        // Sum of the rounded line amounts, so later per-line deltas keep it exact
+        order.setTotalAmount(total);
+        order.setAmountPaid(BigDecimal.ZERO);
+
+        // Sequence ids are pooled, so the header and all lines go out as batched INSERTs on this flush
+        order = repository.save(order);
+        List<SalesOrderLine> saved = lineRepository.saveAll(lines);
+        repository.flush();
+        return new SalesOrderWithLinesDto(mapper.toDto(order), lineMapper.toDtoList(saved));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<SalesOrderWithLinesDto> findWithLines(Long id) {
+        return repository.findById(id).map(order ->
+            new SalesOrderWithLinesDto(mapper.toDto(order), lineMapper.toDtoList(lineRepository.findBySalesOrderId(id))));
+    }
+
     // ========= Update (full replace) =========
     @Override
     @Transactional
@@ -72,6 +150,9 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         // Preserve immutable / audit when omitted in DTO
         if (replaced.getUuid() == null) { replaced.setUuid(current.getUuid()); }
         if (replaced.getCreatedAt() == null) { replaced.setCreatedAt(current.getCreatedAt()); }
+        // Server-maintained totals
+        replaced.setTotalAmount(current.getTotalAmount());
+        replaced.setAmountPaid(current.getAmountPaid());
 
         // ===== Version handling =====
         // If DTO carries version -> use it (optimistic locking by Hibernate).
@@ -94,6 +175,10 @@ public class SalesOrderServiceImpl implements SalesOrderService {
             .orElseThrow(() -> new ResourceNotFoundException("salesOrder not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getClientId() != null) { entity.setClient(clientRepository.getRef(dto.getClientId())); }
@@ -115,6 +200,18 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SalesOrderDto> findAll() {
@@ -127,12 +224,44 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<SalesOrderDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(SalesOrder.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SalesOrderDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<SalesOrderDto> scroll(String after, int size) {
+        List<SalesOrder> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<SalesOrderDto> sink) {
+        try (Stream<SalesOrder> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
@@ -156,20 +285,26 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(SalesOrderDto dto) {
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getClientId() != null && !clientRepository.existsById(dto.getClientId())) { throw new ForeignKeyNotFoundException("client_id references missing client"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("sales_order", "precheck_create")
+            .exists("client", dto.getClientId(), () -> new ForeignKeyNotFoundException("client_id references missing client"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, SalesOrderDto dto) {
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getClientId() != null && !clientRepository.existsById(dto.getClientId())) { throw new ForeignKeyNotFoundException("client_id references missing client"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("sales_order", "precheck_update")
+            .exists("client", dto.getClientId(), () -> new ForeignKeyNotFoundException("client_id references missing client"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
     private void guardDelete(Long id) {
-        if (salesOrderLineRepository.countBySalesOrderId(id) > 0) { throw new ReferentialIntegrityException("salesOrder has dependent sales_order_line records"); }
-        if (salesInvoiceRepository.countBySalesOrderId(id) > 0) { throw new ReferentialIntegrityException("salesOrder has dependent sales_invoice records"); }
-        if (paymentRepository.countBySalesOrderId(id) > 0) { throw new ReferentialIntegrityException("salesOrder has dependent payment records"); }
+        validator.checks("sales_order", "guard_delete")
+            .noChildren("sales_order_line", "sales_order_id", id, () -> new ReferentialIntegrityException("salesOrder has dependent sales_order_line records"))
+            .noChildren("sales_invoice", "sales_order_id", id, () -> new ReferentialIntegrityException("salesOrder has dependent sales_invoice records"))
+            .noChildren("payment", "sales_order_id", id, () -> new ReferentialIntegrityException("salesOrder has dependent payment records"))
+            .verify();
     }
 }
@@ -0,0 +1,231 @@
+package com.stock.stock_management.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.stock_management.dto.StockLevelBulkResultDto;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.service.StockLevelBulkService;
+import com.stock.stock_management.service.support.LedgerLocks;
+import com.stock.stock_management.service.support.StockLevelChangedEvent;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+/**
+ * Loads warehouse counts line by line and writes them with batched {@code INSERT ... ON CONFLICT DO UPDATE}.
+ * Foreign keys are checked against id sets loaded once per request instead of per-row {@code existsById}.
+ * Invalid rows are skipped and reported. Valid rows commit one batch at a time, so no row or advisory lock
+ * outlives its batch while the client is still uploading; a load that fails part-way (broken upload, database
+ * error) leaves the batches before it applied. Counts are absolute, so re-sending the whole load is safe.
+ */
+@Service
+public class StockLevelBulkServiceImpl implements StockLevelBulkService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO stock_level (product_id, warehouse_id, current_qty, stock_alert_qty) "
+        + "VALUES (?, ?, ?, COALESCE(CAST(? AS NUMERIC), 0)) "
+        + "ON CONFLICT (product_id, warehouse_id) DO UPDATE SET "
+        + "current_qty = EXCLUDED.current_qty, "
+        + "stock_alert_qty = COALESCE(CAST(? AS NUMERIC), stock_level.stock_alert_qty), "
+        + "deleted = false, deleted_at = NULL, "
+        + "version = stock_level.version + 1, updated_at = now()";
+
+    /** Same statement as {@code StockMovementRepository.recordCount}: the count's difference becomes an adjustment. */
+    private static final String ADJUSTMENT_SQL =
+        "INSERT INTO stock_movement (product_id, warehouse_id, movement_type, quantity, reference_type) "
+        + "SELECT ?, ?, 'adjustment', CAST(? AS NUMERIC) - b.qty, 'stock_level' "
+        + "FROM (SELECT COALESCE((SELECT CASE WHEN deleted THEN 0 ELSE COALESCE(current_qty, 0) END FROM stock_level "
+        + "WHERE product_id = ? AND warehouse_id = ? FOR UPDATE), 0) AS qty) b "
+        + "WHERE CAST(? AS NUMERIC) <> b.qty";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final LedgerLocks ledgerLocks;
+    private final TransactionTemplate writeTx;
+    private final int batchSize;
+
+    public StockLevelBulkServiceImpl(JdbcTemplate jdbcTemplate,
+                                     ObjectMapper objectMapper,
+                                     ApplicationEventPublisher events,
+                                     LedgerLocks ledgerLocks,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${stock.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.ledgerLocks = ledgerLocks;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    @DbLane(Lane.BULK)
+    public StockLevelBulkResultDto upsertCsv(InputStream body) {
+        return load(body, this::parseCsv);
+    }
+
+    @Override
+    @DbLane(Lane.BULK)
+    public StockLevelBulkResultDto upsertNdjson(InputStream body) {
+        return load(body, this::parseNdjson);
+    }
+
+    // ========= Internals =========
+    private record Row(Long productId, Long warehouseId, BigDecimal currentQty, BigDecimal stockAlertQty) {}
+
+    @FunctionalInterface
+    private interface RowParser {
+        /** @return the parsed row, or null to skip the line (blank/header). */
+        Row parse(String line, long lineNo) throws IOException;
+    }
+
+    private StockLevelBulkResultDto load(InputStream body, RowParser parser) {
+        Set<Long> productIds = loadIds("SELECT id FROM product WHERE deleted = false");
+        Set<Long> warehouseIds = loadIds("SELECT id FROM warehouse WHERE deleted = false");
+
+        StockLevelBulkResultDto result = StockLevelBulkResultDto.builder().build();
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                Row row;
+                try {
+                    row = parser.parse(line.strip(), lineNo);
+                } catch (IOException | RuntimeException ex) {
+                    result.setReceived(result.getReceived() + 1);
+                    reject(result, lineNo, "unreadable row (" + ex.getMessage() + ")");
+                    continue;
+                }
+                if (row == null) continue;
+                result.setReceived(result.getReceived() + 1);
+
+                String error = validate(row, productIds, warehouseIds);
+                if (error != null) { reject(result, lineNo, error); continue; }
+
+                batch.add(row);
+                if (batch.size() >= batchSize) { flush(batch, result); }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("failed to read stock level upload", ex);
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    private Set<Long> loadIds(String sql) {
+        Set<Long> ids = new HashSet<>();
+        jdbcTemplate.query(sql, rs -> { ids.add(rs.getLong(1)); });
+        return ids;
+    }
+
+    private String validate(Row row, Set<Long> productIds, Set<Long> warehouseIds) {
+        if (row.productId() == null) return "product_id is required";
+        if (row.warehouseId() == null) return "warehouse_id is required";
+        if (row.currentQty() == null) return "current_qty is required";
+        if (row.currentQty().signum() < 0) return "current_qty must be positive or zero";
+        if (row.stockAlertQty() != null && row.stockAlertQty().signum() < 0) return "stock_alert_qty must be positive or zero";
+        if (!productIds.contains(row.productId())) return "product_id references missing product";
+        if (!warehouseIds.contains(row.warehouseId())) return "warehouse_id references missing warehouse";
+        return null;
+    }
+
+    private void flush(List<Row> batch, StockLevelBulkResultDto result) {
+        if (batch.isEmpty()) return;
+        // One row per level, later lines winning: each adjustment is computed against the level as stored
+        Map<StockLevelId, Row> latest = new LinkedHashMap<>();
+        for (Row row : batch) {
+            latest.merge(new StockLevelId(row.productId(), row.warehouseId()), row, (prev, next) -> next.stockAlertQty() != null ? next
+                : new Row(next.productId(), next.warehouseId(), next.currentQty(), prev.stockAlertQty()));
+        }
+        List<Row> rows = new ArrayList<>(latest.values());
+        List<StockLevelId> ids = new ArrayList<>(latest.keySet());
+        // One transaction per batch: its locks are released before the next lines are read
+        writeTx.executeWithoutResult(status -> {
+            // Counts go through the ledger as adjustments so a rebuild reproduces them
+            ledgerLocks.lockShared(ids);
+            jdbcTemplate.batchUpdate(ADJUSTMENT_SQL, rows, rows.size(), (ps, row) -> {
+                ps.setLong(1, row.productId());
+                ps.setLong(2, row.warehouseId());
+                ps.setBigDecimal(3, row.currentQty());
+                ps.setLong(4, row.productId());
+                ps.setLong(5, row.warehouseId());
+                ps.setBigDecimal(6, row.currentQty());
+            });
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+                ps.setLong(1, row.productId());
+                ps.setLong(2, row.warehouseId());
+                ps.setBigDecimal(3, row.currentQty());
+                ps.setObject(4, row.stockAlertQty(), Types.NUMERIC);
+                ps.setObject(5, row.stockAlertQty(), Types.NUMERIC);
+            });
+            // Delivered after this batch commits
+            events.publishEvent(StockLevelChangedEvent.of(ids));
+        });
+        // Levels written, not lines read: repeated lines for one level were merged above
+        result.setUpserted(result.getUpserted() + rows.size());
+        batch.clear();
+    }
+
+    private void reject(StockLevelBulkResultDto result, long lineNo, String reason) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("line " + lineNo + ": " + reason);
+        }
+    }
+
+    // ========= Parsers =========
+    private Row parseCsv(String line, long lineNo) {
+        if (line.isEmpty()) return null;
+        String[] cols = line.split(",", -1);
+        // Optional header: first column not numeric on the first line
+        if (lineNo == 1 && !cols[0].strip().matches("-?\\d+")) return null;
+        if (cols.length < 3) throw new IllegalArgumentException("expected product_id,warehouse_id,current_qty[,stock_alert_qty]");
+        return new Row(
+            parseLong(cols[0]),
+            parseLong(cols[1]),
+            parseDecimal(cols[2]),
+            cols.length > 3 ? parseDecimal(cols[3]) : null);
+    }
+
+    private Row parseNdjson(String line, long lineNo) throws IOException {
+        if (line.isEmpty()) return null;
+        JsonNode node = objectMapper.readTree(line);
+        return new Row(
+            node.hasNonNull("productId") ? parseLong(node.get("productId").asText()) : null,
+            node.hasNonNull("warehouseId") ? parseLong(node.get("warehouseId").asText()) : null,
+            node.hasNonNull("currentQty") ? parseDecimal(node.get("currentQty").asText()) : null,
+            node.hasNonNull("stockAlertQty") ? parseDecimal(node.get("stockAlertQty").asText()) : null);
+    }
+
+    private static Long parseLong(String s) {
+        String v = s.strip();
+        return v.isEmpty() ? null : Long.valueOf(v);
+    }
+
+    private static BigDecimal parseDecimal(String s) {
+        String v = s.strip();
+        return v.isEmpty() ? null : new BigDecimal(v);
+    }
+}
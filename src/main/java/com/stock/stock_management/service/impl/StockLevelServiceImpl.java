@@ -1,16 +1,22 @@
 package com.stock.stock_management.service.impl;
 
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.StockLevelDto;
 import com.stock.stock_management.entity.StockLevel;
 import com.stock.stock_management.entity.StockLevelId;
@@ -20,19 +26,40 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.repository.EntityFilter;
 import com.stock.stock_management.repository.WarehouseRepository;
 
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.StockLevelMapper;
 import com.stock.stock_management.repository.StockLevelRepository;
+import com.stock.stock_management.repository.StockMovementRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.LedgerLocks;
+import com.stock.stock_management.service.support.ReferentialValidator;
+import com.stock.stock_management.service.support.StockLevelChangedEvent;
 import com.stock.stock_management.service.StockLevelService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class StockLevelServiceImpl implements StockLevelService {
 
+    private static final EntityFilter<StockLevel> FILTER = EntityFilter.<StockLevel>of()
+        .field("productId", "id.productId", Long.class)
+        .field("warehouseId", "id.warehouseId", Long.class);
+
     private final StockLevelRepository repository;
     private final StockLevelMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
+    private final ApplicationEventPublisher events;
+    private final LedgerLocks ledgerLocks;
+    private final StockMovementRepository stockMovementRepository;
 
     private final ProductRepository productRepository;
     private final WarehouseRepository warehouseRepository;
@@ -42,10 +69,14 @@ public class StockLevelServiceImpl implements StockLevelService {
     @Transactional
     public StockLevelDto create(StockLevelDto dto) {
         precheckCreate(dto);
+        if (dto.getId() != null && dto.getId().getProductId() != null && dto.getId().getWarehouseId() != null) {
+            recordCount(new StockLevelId(dto.getId().getProductId(), dto.getId().getWarehouseId()), dto.getCurrentQty());
+        }
         StockLevel entity = mapper.toEntity(dto);
         if (dto.getId() != null && dto.getId().getProductId() != null) { entity.setProduct(productRepository.getRef(dto.getId().getProductId())); }
         if (dto.getId() != null && dto.getId().getWarehouseId() != null) { entity.setWarehouse(warehouseRepository.getRef(dto.getId().getWarehouseId())); }
         entity = repository.save(entity);
+        events.publishEvent(StockLevelChangedEvent.of(entity.getId()));
         return mapper.toDto(entity);
     }
 
@@ -58,6 +89,7 @@ public class StockLevelServiceImpl implements StockLevelService {
             .orElseThrow(() -> new ResourceNotFoundException("stockLevel not found with id=" + id));
 
         precheckUpdate(id, dto);
+        recordCount(id, dto.getCurrentQty());
 
         // Build a replacement from DTO
         StockLevel replaced = mapper.toEntity(dto);
@@ -79,6 +111,7 @@ public class StockLevelServiceImpl implements StockLevelService {
         replaced.setWarehouse(warehouseRepository.getRef(id.getWarehouseId()));
 
         replaced = repository.save(replaced);
+        events.publishEvent(StockLevelChangedEvent.of(id));
         return mapper.toDto(replaced);
     }
 
@@ -90,11 +123,17 @@ public class StockLevelServiceImpl implements StockLevelService {
             .orElseThrow(() -> new ResourceNotFoundException("stockLevel not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
+        if (dto.getCurrentQty() != null) { recordCount(id, dto.getCurrentQty()); }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getId() != null && dto.getId().getProductId() != null) { entity.setProduct(productRepository.getRef(dto.getId().getProductId())); }
         if (dto.getId() != null && dto.getId().getWarehouseId() != null) { entity.setWarehouse(warehouseRepository.getRef(dto.getId().getWarehouseId())); }
         entity = repository.save(entity);
+        events.publishEvent(StockLevelChangedEvent.of(entity.getId()));
         return mapper.toDto(entity);
     }
 
@@ -111,6 +150,18 @@ public class StockLevelServiceImpl implements StockLevelService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(StockLevelId id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<StockLevelDto> findAll() {
@@ -123,12 +174,44 @@ public class StockLevelServiceImpl implements StockLevelService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<StockLevelDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(StockLevel.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<StockLevelDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<StockLevelDto> scroll(String after, int size) {
+        List<StockLevel> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<StockLevelDto> sink) {
+        try (Stream<StockLevel> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
@@ -137,7 +220,9 @@ public class StockLevelServiceImpl implements StockLevelService {
             throw new ResourceNotFoundException("stockLevel not found with id=" + id);
         }
         guardDelete(id);
+        recordCount(id, BigDecimal.ZERO);
         repository.deleteById(id);
+        events.publishEvent(StockLevelChangedEvent.of(id));
     }
 
     @Override
@@ -145,19 +230,32 @@ public class StockLevelServiceImpl implements StockLevelService {
     public void deleteByUuid(UUID uuid) {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
+            recordCount(entity.getId(), BigDecimal.ZERO);
             repository.delete(entity);
+            events.publishEvent(StockLevelChangedEvent.of(entity.getId()));
         });
     }
 
     // ========= Prechecks derived from schema/spec =========
     private void precheckCreate(StockLevelDto dto) {
-        if (dto.getId() != null && dto.getId().getProductId() != null && !productRepository.existsById(dto.getId().getProductId())) { throw new ForeignKeyNotFoundException("product_id references missing product"); }
-        if (dto.getId() != null && dto.getId().getWarehouseId() != null && !warehouseRepository.existsById(dto.getId().getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("stock_level", "precheck_create")
+            .exists("product", dto.getId() != null ? dto.getId().getProductId() : null, () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .exists("warehouse", dto.getId() != null ? dto.getId().getWarehouseId() : null, () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     private void precheckUpdate(StockLevelId id, StockLevelDto dto) {
-        if (!productRepository.existsById(id.getProductId())) { throw new ForeignKeyNotFoundException("product_id references missing product"); }
-        if (!warehouseRepository.existsById(id.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("stock_level", "precheck_update")
+            .exists("product", id.getProductId(), () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .exists("warehouse", id.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
+    }
+
+    // ========= Ledger =========
+    /** A direct current_qty write is booked as an adjustment first, so a ledger rebuild reproduces it. */
+    private void recordCount(StockLevelId id, BigDecimal qty) {
+        ledgerLocks.lockShared(List.of(id));
+        stockMovementRepository.recordCount(id.getProductId(), id.getWarehouseId(), qty != null ? qty : BigDecimal.ZERO);
     }
 
     // ========= Delete guard (child refs) =========
@@ -0,0 +1,311 @@
+package com.stock.stock_management.service.impl;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.dto.StockMovementDto;
+import com.stock.stock_management.dto.StockTransferDto;
+import com.stock.stock_management.entity.PurchaseOrder;
+import com.stock.stock_management.entity.PurchaseOrderLine;
+import com.stock.stock_management.entity.SalesOrder;
+import com.stock.stock_management.entity.SalesOrderLine;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.entity.StockMovement;
+
+import com.stock.stock_management.error.ForeignKeyNotFoundException;
+import com.stock.stock_management.error.InsufficientStockException;
+import com.stock.stock_management.error.InvalidValueException;
+import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.repository.EntityFilter;
+import com.stock.stock_management.repository.PurchaseOrderLineRepository;
+import com.stock.stock_management.repository.PurchaseOrderRepository;
+import com.stock.stock_management.repository.SalesOrderLineRepository;
+import com.stock.stock_management.repository.SalesOrderRepository;
+import com.stock.stock_management.repository.StockLevelRepository;
+import com.stock.stock_management.repository.WarehouseRepository;
+
+import com.stock.stock_management.repository.KeysetCursor;
+import com.stock.stock_management.mapper.StockMovementMapper;
+import com.stock.stock_management.repository.StockMovementRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.DbAdmissionGate;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.LedgerLocks;
+import com.stock.stock_management.service.support.ReferentialValidator;
+import com.stock.stock_management.service.support.StockLevelChangedEvent;
+import com.stock.stock_management.service.StockMovementService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+@Service
+public class StockMovementServiceImpl implements StockMovementService {
+
+    private static final EntityFilter<StockMovement> FILTER = EntityFilter.<StockMovement>of()
+        .field("productId", "product.id", Long.class)
+        .field("warehouseId", "warehouse.id", Long.class)
+        .field("referenceType", String.class)
+        .field("occurredAt", OffsetDateTime.class);
+
+    static final String REF_PURCHASE_ORDER = "purchase_order";
+    static final String REF_SALES_ORDER = "sales_order";
+    static final String STATUS_RECEIVED = "received";
+    static final String STATUS_CONFIRMED = "confirmed";
+    static final String STATUS_CANCELLED = "cancelled";
+
+    private final StockMovementRepository repository;
+    private final StockMovementMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final ReferentialValidator validator;
+    private final LedgerLocks ledgerLocks;
+
+    private final StockLevelRepository stockLevelRepository;
+    private final ProductRepository productRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final PurchaseOrderLineRepository purchaseOrderLineRepository;
+    private final SalesOrderRepository salesOrderRepository;
+    private final SalesOrderLineRepository salesOrderLineRepository;
+
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final DbAdmissionGate gate;
+    private final Executor executor;
+
+    public StockMovementServiceImpl(StockMovementRepository repository,
+                                    StockMovementMapper mapper,
+                                    FieldProjection fieldProjection,
+                                    ReferentialValidator validator,
+                                    LedgerLocks ledgerLocks,
+                                    StockLevelRepository stockLevelRepository,
+                                    ProductRepository productRepository,
+                                    WarehouseRepository warehouseRepository,
+                                    PurchaseOrderRepository purchaseOrderRepository,
+                                    PurchaseOrderLineRepository purchaseOrderLineRepository,
+                                    SalesOrderRepository salesOrderRepository,
+                                    SalesOrderLineRepository salesOrderLineRepository,
+                                    ApplicationEventPublisher events,
+                                    PlatformTransactionManager transactionManager,
+                                    DbAdmissionGate gate,
+                                    @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.fieldProjection = fieldProjection;
+        this.validator = validator;
+        this.ledgerLocks = ledgerLocks;
+        this.stockLevelRepository = stockLevelRepository;
+        this.productRepository = productRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.purchaseOrderLineRepository = purchaseOrderLineRepository;
+        this.salesOrderRepository = salesOrderRepository;
+        this.salesOrderLineRepository = salesOrderLineRepository;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.gate = gate;
+        this.executor = executor;
+    }
+
+    // ========= Append =========
+    @Override
+    @Transactional
+    public StockMovementDto record(StockMovementDto dto) {
+        precheckRecord(dto);
+        StockMovement movement = newMovement(dto.getProductId(), dto.getWarehouseId(), dto.getMovementType(), dto.getQuantity(),
+            dto.getReferenceType(), dto.getReferenceId(), dto.getOccurredAt() != null ? dto.getOccurredAt() : OffsetDateTime.now());
+        return mapper.toDto(append(List.of(movement)).get(0));
+    }
+
+    @Override
+    @Transactional
+    public List<StockMovementDto> transfer(StockTransferDto dto) {
+        if (dto.getFromWarehouseId().equals(dto.getToWarehouseId())) { throw new InvalidValueException("from_warehouse_id and to_warehouse_id must differ"); }
+        if (dto.getQuantity() == null || dto.getQuantity().signum() <= 0) { throw new InvalidValueException("quantity must be positive"); }
+        validator.checks("stock_movement", "precheck_transfer")
+            .exists("product", dto.getProductId(), () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .exists("warehouse", dto.getFromWarehouseId(), () -> new ForeignKeyNotFoundException("from_warehouse_id references missing warehouse"))
+            .exists("warehouse", dto.getToWarehouseId(), () -> new ForeignKeyNotFoundException("to_warehouse_id references missing warehouse"))
+            .verify();
+        OffsetDateTime now = OffsetDateTime.now();
+        // Outbound first so an empty source fails before anything is booked
+        List<StockMovement> pair = List.of(
+            newMovement(dto.getProductId(), dto.getFromWarehouseId(), StockMovement.TYPE_TRANSFER_OUT, dto.getQuantity().negate(), null, null, now),
+            newMovement(dto.getProductId(), dto.getToWarehouseId(), StockMovement.TYPE_TRANSFER_IN, dto.getQuantity(), null, null, now));
+        return mapper.toDtoList(append(pair));
+    }
+
+    @Override
+    @Transactional
+    public List<StockMovementDto> receivePurchaseOrder(Long purchaseOrderId) {
+        // The row lock makes a concurrent receive of the same order wait, then see it received
+        PurchaseOrder order = purchaseOrderRepository.findForUpdate(purchaseOrderId)
+            .orElseThrow(() -> new ResourceNotFoundException("purchaseOrder not found with id=" + purchaseOrderId));
+        if (STATUS_RECEIVED.equals(order.getStatus()) || repository.existsByReferenceTypeAndReferenceId(REF_PURCHASE_ORDER, purchaseOrderId)) {
+            throw new InvalidValueException("purchase_order already received");
+        }
+        if (STATUS_CANCELLED.equals(order.getStatus())) { throw new InvalidValueException("purchase_order is cancelled"); }
+        if (Boolean.TRUE.equals(order.getIsQuote())) { throw new InvalidValueException("purchase_order is a quote"); }
+
+        Long warehouseId = order.getWarehouse().getId();
+        OffsetDateTime now = OffsetDateTime.now();
+        List<StockMovement> movements = new ArrayList<>();
+        for (PurchaseOrderLine line : purchaseOrderLineRepository.findByPurchaseOrderId(purchaseOrderId)) {
+            movements.add(newMovement(line.getProduct().getId(), warehouseId, StockMovement.TYPE_RECEIPT, line.getQuantity(), REF_PURCHASE_ORDER, purchaseOrderId, now));
+        }
+        List<StockMovement> saved = append(movements);
+        order.setStatus(STATUS_RECEIVED);
+        return mapper.toDtoList(saved);
+    }
+
+    @Override
+    @Transactional
+    public List<StockMovementDto> confirmSalesOrder(Long salesOrderId) {
+        // The row lock makes a concurrent confirm of the same order wait, then see it confirmed
+        SalesOrder order = salesOrderRepository.findForUpdate(salesOrderId)
+            .orElseThrow(() -> new ResourceNotFoundException("salesOrder not found with id=" + salesOrderId));
+        if (STATUS_CONFIRMED.equals(order.getStatus()) || repository.existsByReferenceTypeAndReferenceId(REF_SALES_ORDER, salesOrderId)) {
+            throw new InvalidValueException("sales_order already confirmed");
+        }
+        if (STATUS_CANCELLED.equals(order.getStatus())) { throw new InvalidValueException("sales_order is cancelled"); }
+        if (Boolean.TRUE.equals(order.getIsQuote())) { throw new InvalidValueException("sales_order is a quote"); }
+
+        Long warehouseId = order.getWarehouse().getId();
+        OffsetDateTime now = OffsetDateTime.now();
+        List<StockMovement> movements = new ArrayList<>();
+        for (SalesOrderLine line : salesOrderLineRepository.findBySalesOrderId(salesOrderId)) {
+            movements.add(newMovement(line.getProduct().getId(), warehouseId, StockMovement.TYPE_ISSUE, line.getQuantity().negate(), REF_SALES_ORDER, salesOrderId, now));
+        }
+        List<StockMovement> saved = append(movements);
+        order.setStatus(STATUS_CONFIRMED);
+        return mapper.toDtoList(saved);
+    }
+
+    // ========= Queries =========
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StockMovementDto> findById(Long id) {
+        return repository.findById(id).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<StockMovementDto> findAll(Pageable pageable) {
+        return repository.findAll(pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<StockMovementDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(StockMovement.class, fields, FILTER.parse(filter), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<StockMovementDto> scroll(String after, int size) {
+        List<StockMovement> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    // ========= Replay =========
+    @Override
+    @DbLane(Lane.BULK)
+    public long rebuildWarehouse(Long warehouseId) {
+        if (!warehouseRepository.existsById(warehouseId)) {
+            throw new ResourceNotFoundException("warehouse not found with id=" + warehouseId);
+        }
+        // Each product-hash partition replays in its own transaction; partitions touch disjoint rows.
+        // The exclusive partition lock waits out in-flight ledger writers and holds off new ones until commit.
+        // The gate runs no more partitions at once than this call holds bulk permits for.
+        int partitions = ledgerLocks.partitions();
+        List<Supplier<Integer>> parts = IntStream.range(0, partitions)
+            .<Supplier<Integer>>mapToObj(k -> () -> tx.execute(status -> {
+                ledgerLocks.lockPartition(warehouseId, k);
+                return repository.replayPartition(warehouseId, partitions, k)
+                    + repository.zeroUnbackedPartition(warehouseId, partitions, k);
+            }))
+            .toList();
+        long rows = 0;
+        for (Integer n : gate.fanOut(parts, executor)) {
+            if (n != null) rows += n;
+        }
+        events.publishEvent(StockLevelChangedEvent.warehouse(warehouseId));
+        return rows;
+    }
+
+    // ========= Internals =========
+    private void precheckRecord(StockMovementDto dto) {
+        String type = dto.getMovementType();
+        int sign = dto.getQuantity().signum();
+        if (StockMovement.TYPE_RECEIPT.equals(type)) {
+            if (sign <= 0) { throw new InvalidValueException("receipt quantity must be positive"); }
+        } else if (StockMovement.TYPE_ISSUE.equals(type)) {
+            if (sign >= 0) { throw new InvalidValueException("issue quantity must be negative"); }
+        } else if (StockMovement.TYPE_ADJUSTMENT.equals(type)) {
+            if (sign == 0) { throw new InvalidValueException("adjustment quantity must not be zero"); }
+        } else {
+            throw new InvalidValueException("movement_type must be one of receipt, issue, adjustment (use /transfer for transfers)");
+        }
+        validator.checks("stock_movement", "precheck_record")
+            .exists("product", dto.getProductId(), () -> new ForeignKeyNotFoundException("product_id references missing product"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
+    }
+
+    private StockMovement newMovement(Long productId, Long warehouseId, String type, BigDecimal quantity,
+                                      String referenceType, Long referenceId, OffsetDateTime occurredAt) {
+        return StockMovement.builder()
+            .product(productRepository.getRef(productId))
+            .warehouse(warehouseRepository.getRef(warehouseId))
+            .movementType(type)
+            .quantity(quantity)
+            .referenceType(referenceType)
+            .referenceId(referenceId)
+            .occurredAt(occurredAt)
+            .build();
+    }
+
+    /** Apply each delta to its stock level (conditional for outbound), then persist the ledger rows. */
+    private List<StockMovement> append(List<StockMovement> movements) {
+        Set<StockLevelId> touched = new HashSet<>();
+        for (StockMovement m : movements) { touched.add(new StockLevelId(m.getProduct().getId(), m.getWarehouse().getId())); }
+        ledgerLocks.lockShared(touched);
+        for (StockMovement m : movements) {
+            Long productId = m.getProduct().getId();
+            Long warehouseId = m.getWarehouse().getId();
+            if (m.getQuantity().signum() >= 0) {
+                stockLevelRepository.receive(productId, warehouseId, m.getQuantity());
+            } else if (stockLevelRepository.issue(productId, warehouseId, m.getQuantity().negate()) == 0) {
+                throw new InsufficientStockException("not enough stock to " + m.getMovementType() + " " + m.getQuantity().negate().toPlainString()
+                    + " of product_id=" + productId + " from warehouse_id=" + warehouseId);
+            }
+        }
+        events.publishEvent(StockLevelChangedEvent.of(touched));
+        return repository.saveAll(movements);
+    }
+}
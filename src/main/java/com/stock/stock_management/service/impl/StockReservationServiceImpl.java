@@ -0,0 +1,142 @@
+package com.stock.stock_management.service.impl;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.entity.StockMovement;
+
+import com.stock.stock_management.error.InsufficientStockException;
+import com.stock.stock_management.error.InvalidValueException;
+import com.stock.stock_management.error.ResourceNotFoundException;
+
+import com.stock.stock_management.mapper.StockLevelMapper;
+import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.repository.StockLevelRepository;
+import com.stock.stock_management.repository.StockMovementRepository;
+import com.stock.stock_management.repository.WarehouseRepository;
+import com.stock.stock_management.service.StockReservationService;
+import com.stock.stock_management.service.support.LedgerLocks;
+import com.stock.stock_management.service.support.StockLevelChangedEvent;
+
+/**
+ * Serializes quantity moves per (productId, warehouseId) on a fixed set of lock stripes, then applies
+ * them with a single conditional UPDATE. The stripe is held across the whole transaction so that hot SKUs
+ * queue in memory instead of piling up on the row lock while each holds a pooled connection.
+ * Correctness across several application instances still rests on the conditional UPDATE alone.
+ */
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private final StockLevelRepository repository;
+    private final StockLevelMapper mapper;
+    private final StockMovementRepository stockMovementRepository;
+    private final ProductRepository productRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final LedgerLocks ledgerLocks;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final ReentrantLock[] stripes;
+
+    public StockReservationServiceImpl(StockLevelRepository repository,
+                                       StockLevelMapper mapper,
+                                       StockMovementRepository stockMovementRepository,
+                                       ProductRepository productRepository,
+                                       WarehouseRepository warehouseRepository,
+                                       LedgerLocks ledgerLocks,
+                                       ApplicationEventPublisher events,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${stock.reservation.stripes:64}") int stripeCount) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.stockMovementRepository = stockMovementRepository;
+        this.productRepository = productRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.ledgerLocks = ledgerLocks;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        // Round up to a power of two so the stripe index is a mask
+        int n = 1;
+        while (n < stripeCount) { n <<= 1; }
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) { stripes[i] = new ReentrantLock(); }
+    }
+
+    @Override
+    public StockLevelDto reserve(StockLevelId id, BigDecimal qty) {
+        return apply(id, qty, repository::reserve, "reserve");
+    }
+
+    @Override
+    public StockLevelDto release(StockLevelId id, BigDecimal qty) {
+        return apply(id, qty, repository::release, "release");
+    }
+
+    @Override
+    public StockLevelDto commit(StockLevelId id, BigDecimal qty) {
+        return apply(id, qty, (productId, warehouseId, q) -> {
+            // Moves current_qty with the ledger, so it must not interleave with a rebuild of this partition
+            ledgerLocks.lockShared(List.of(id));
+            int rows = repository.commit(productId, warehouseId, q);
+            // Stock actually left the warehouse: record it in the ledger in the same transaction
+            if (rows > 0) {
+                stockMovementRepository.save(StockMovement.builder()
+                    .product(productRepository.getRef(productId))
+                    .warehouse(warehouseRepository.getRef(warehouseId))
+                    .movementType(StockMovement.TYPE_ISSUE)
+                    .quantity(q.negate())
+                    .referenceType("reservation")
+                    .occurredAt(OffsetDateTime.now())
+                    .build());
+            }
+            return rows;
+        }, "commit");
+    }
+
+    // ========= Internals =========
+    @FunctionalInterface
+    private interface QuantityMove {
+        int apply(Long productId, Long warehouseId, BigDecimal qty);
+    }
+
+    private StockLevelDto apply(StockLevelId id, BigDecimal qty, QuantityMove move, String action) {
+        if (id == null || id.getProductId() == null || id.getWarehouseId() == null) { throw new InvalidValueException("product_id and warehouse_id are required"); }
+        if (qty == null || qty.signum() <= 0) { throw new InvalidValueException("quantity must be positive"); }
+
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            return tx.execute(status -> {
+                if (move.apply(id.getProductId(), id.getWarehouseId(), qty) == 0) {
+                    // Only pay for the extra lookup on the failure path
+                    if (!repository.existsById(id)) { throw new ResourceNotFoundException("stockLevel not found with " + describe(id)); }
+                    throw new InsufficientStockException("cannot " + action + " " + qty.toPlainString() + " on stockLevel " + describe(id));
+                }
+                events.publishEvent(StockLevelChangedEvent.of(id));
+                return repository.findById(id).map(mapper::toDto)
+                    .orElseThrow(() -> new ResourceNotFoundException("stockLevel not found with " + describe(id)));
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(StockLevelId id) {
+        int h = id.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private static String describe(StockLevelId id) {
+        return "product_id=" + id.getProductId() + ", warehouse_id=" + id.getWarehouseId();
+    }
+}
@@ -1,9 +1,12 @@
 package com.stock.stock_management.service.impl;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +14,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.SupplierDto;
 import com.stock.stock_management.entity.Supplier;
 
@@ -19,21 +23,33 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.WarehouseRepository;
-import com.stock.stock_management.repository.PurchaseOrderRepository;
+import com.stock.stock_management.repository.EntityFilter;
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.SupplierMapper;
 import com.stock.stock_management.repository.SupplierRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.SupplierService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class SupplierServiceImpl implements SupplierService {
 
+    private static final EntityFilter<Supplier> FILTER = EntityFilter.<Supplier>of()
+        .field("warehouseId", "warehouse.id", Long.class);
+
     private final SupplierRepository repository;
     private final SupplierMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final WarehouseRepository warehouseRepository;
-    private final PurchaseOrderRepository purchaseOrderRepository;
 
     // ========= Create =========
     @Override
@@ -86,6 +102,10 @@ public class SupplierServiceImpl implements SupplierService {
             .orElseThrow(() -> new ResourceNotFoundException("supplier not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getWarehouseId() != null) { entity.setWarehouse(warehouseRepository.getRef(dto.getWarehouseId())); }
@@ -106,6 +126,18 @@ public class SupplierServiceImpl implements SupplierService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SupplierDto> findAll() {
@@ -118,12 +150,44 @@ public class SupplierServiceImpl implements SupplierService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<SupplierDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(Supplier.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SupplierDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<SupplierDto> scroll(String after, int size) {
+        List<Supplier> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<SupplierDto> sink) {
+        try (Stream<Supplier> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
@@ -148,21 +212,27 @@ public class SupplierServiceImpl implements SupplierService {
     private void precheckCreate(SupplierDto dto) {
         if (dto.getFullname() == null) { throw new MissingRequiredFieldException("fullname is required"); }
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getEmail() != null && repository.existsByEmail(dto.getEmail())) { throw new DuplicateResourceException("supplier with email already exists"); }
-        if (dto.getRib() != null && repository.existsByRib(dto.getRib())) { throw new DuplicateResourceException("supplier with rib already exists"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("supplier", "precheck_create")
+            .unique("supplier", "email", dto.getEmail(), null, () -> new DuplicateResourceException("supplier with email already exists"))
+            .unique("supplier", "rib", dto.getRib(), null, () -> new DuplicateResourceException("supplier with rib already exists"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, SupplierDto dto) {
         if (dto.getFullname() == null) { throw new MissingRequiredFieldException("fullname is required"); }
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getEmail() != null && repository.existsByEmailAndIdNot(dto.getEmail(), id)) { throw new DuplicateResourceException("supplier with email already exists"); }
-        if (dto.getRib() != null && repository.existsByRibAndIdNot(dto.getRib(), id)) { throw new DuplicateResourceException("supplier with rib already exists"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("supplier", "precheck_update")
+            .unique("supplier", "email", dto.getEmail(), id, () -> new DuplicateResourceException("supplier with email already exists"))
+            .unique("supplier", "rib", dto.getRib(), id, () -> new DuplicateResourceException("supplier with rib already exists"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
     private void guardDelete(Long id) {
-        if (purchaseOrderRepository.countBySupplierId(id) > 0) { throw new ReferentialIntegrityException("supplier has dependent purchase_order records"); }
+        validator.checks("supplier", "guard_delete")
+            .noChildren("purchase_order", "supplier_id", id, () -> new ReferentialIntegrityException("supplier has dependent purchase_order records"))
+            .verify();
     }
 }
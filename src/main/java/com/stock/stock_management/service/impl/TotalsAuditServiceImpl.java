@@ -0,0 +1,157 @@
+package com.stock.stock_management.service.impl;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.stock_management.dto.TotalsAuditDto;
+import com.stock.stock_management.dto.TotalsDriftDto;
+import com.stock.stock_management.repository.PurchaseInvoiceRepository;
+import com.stock.stock_management.repository.PurchaseOrderRepository;
+import com.stock.stock_management.repository.SalesInvoiceRepository;
+import com.stock.stock_management.repository.SalesOrderRepository;
+import com.stock.stock_management.repository.TotalsDrift;
+import com.stock.stock_management.service.TotalsAuditService;
+import com.stock.stock_management.service.support.DbAdmissionGate;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+@Slf4j
+@Service
+public class TotalsAuditServiceImpl implements TotalsAuditService {
+
+    /** Drifted fields listed in a report; the rest is only flagged as truncated. */
+    public static final int MAX_REPORTED = 100;
+
+    private final SalesOrderRepository salesOrderRepository;
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final SalesInvoiceRepository salesInvoiceRepository;
+    private final PurchaseInvoiceRepository purchaseInvoiceRepository;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+    private final DbAdmissionGate gate;
+    private final Executor executor;
+    private final int partitions;
+
+    private final AtomicLong lastDrifted = new AtomicLong();
+
+    public TotalsAuditServiceImpl(SalesOrderRepository salesOrderRepository,
+                                  PurchaseOrderRepository purchaseOrderRepository,
+                                  SalesInvoiceRepository salesInvoiceRepository,
+                                  PurchaseInvoiceRepository purchaseInvoiceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  DbAdmissionGate gate,
+                                  @Qualifier("applicationTaskExecutor") Executor executor,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${stock.totals.audit-partitions:4}") int partitions) {
+        this.salesOrderRepository = salesOrderRepository;
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.salesInvoiceRepository = salesInvoiceRepository;
+        this.purchaseInvoiceRepository = purchaseInvoiceRepository;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.gate = gate;
+        this.executor = executor;
+        this.partitions = Math.max(1, partitions);
+        Gauge.builder("stock.totals.drift", lastDrifted, AtomicLong::get)
+            .description("Drifted order/invoice rows found by the last totals audit")
+            .register(meterRegistry);
+    }
+
+    private record Part(List<TotalsDriftDto> drifts, long drifted, long repaired) {}
+
+    // ========= Verify =========
+    @Override
+    @DbLane(Lane.BULK)
+    public TotalsAuditDto verify(boolean repair) {
+        OffsetDateTime checkedAt = OffsetDateTime.now();
+        TransactionTemplate tx = repair ? writeTx : readTx;
+        // Each order-id partition is checked in its own transaction; partitions touch disjoint rows.
+        // The gate runs no more partitions at once than this call holds bulk permits for.
+        List<Supplier<Part>> parts = IntStream.range(0, partitions)
+            .<Supplier<Part>>mapToObj(k -> () -> tx.execute(status -> check(k, repair)))
+            .toList();
+
+        List<TotalsDriftDto> drifts = new ArrayList<>();
+        long drifted = 0;
+        long repaired = 0;
+        for (Part part : gate.fanOut(parts, executor)) {
+            drifts.addAll(part.drifts());
+            drifted += part.drifted();
+            repaired += part.repaired();
+        }
+        lastDrifted.set(repair ? 0 : drifted);
+
+        boolean truncated = drifts.size() > MAX_REPORTED;
+        return TotalsAuditDto.builder()
+            .checkedAt(checkedAt)
+            .partitions(partitions)
+            .drifted(drifted)
+            .repaired(repaired)
+            .truncated(truncated)
+            .drifts(truncated ? new ArrayList<>(drifts.subList(0, MAX_REPORTED)) : drifts)
+            .build();
+    }
+
+    /** Periodic check-only run; {@code stock.totals.audit-cron} is off ("-") unless configured. */
+    @Scheduled(cron = "${stock.totals.audit-cron:-}")
+    @DbLane(Lane.BULK)
+    public void scheduledVerify() {
+        TotalsAuditDto report = verify(false);
+        if (report.getDrifted() > 0) {
+            log.warn("totals audit found {} drifted rows, first: {}", report.getDrifted(), report.getDrifts().get(0));
+        }
+    }
+
+    // ========= Internals =========
+    private Part check(int partition, boolean repair) {
+        List<TotalsDriftDto> drifts = new ArrayList<>();
+        long drifted = 0;
+        int limit = MAX_REPORTED + 1;
+        drifted += collect("sales_order", "amount_paid", salesOrderRepository.findTotalsDrift(partitions, partition, limit), drifts);
+        drifted += collect("purchase_order", null, purchaseOrderRepository.findTotalsDrift(partitions, partition, limit), drifts);
+        drifted += collect("sales_invoice", "paid_amount", salesInvoiceRepository.findTotalsDrift(partitions, partition, limit), drifts);
+        drifted += collect("purchase_invoice", null, purchaseInvoiceRepository.findTotalsDrift(partitions, partition, limit), drifts);
+        long repaired = 0;
+        if (repair && drifted > 0) {
+            // Orders first: invoices are repaired from the corrected order totals
+            repaired += salesOrderRepository.repairTotals(partitions, partition);
+            repaired += purchaseOrderRepository.repairTotals(partitions, partition);
+            repaired += salesInvoiceRepository.repairTotals(partitions, partition);
+            repaired += purchaseInvoiceRepository.repairTotals(partitions, partition);
+        }
+        return new Part(drifts, drifted, repaired);
+    }
+
+    private static int collect(String entity, String paidField, List<TotalsDrift> rows, List<TotalsDriftDto> out) {
+        for (TotalsDrift row : rows) {
+            if (differs(row.getActualTotal(), row.getExpectedTotal())) {
+                out.add(new TotalsDriftDto(entity, row.getId(), "total_amount", row.getActualTotal(), row.getExpectedTotal()));
+            }
+            if (paidField != null && differs(row.getActualPaid(), row.getExpectedPaid())) {
+                out.add(new TotalsDriftDto(entity, row.getId(), paidField, row.getActualPaid(), row.getExpectedPaid()));
+            }
+        }
+        return rows.size();
+    }
+
+    private static boolean differs(BigDecimal a, BigDecimal b) {
+        if (a == null || b == null) return a != b;
+        return a.compareTo(b) != 0;
+    }
+}
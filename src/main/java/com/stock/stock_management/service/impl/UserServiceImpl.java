@@ -1,9 +1,12 @@
 package com.stock.stock_management.service.impl;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +14,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.UserDto;
 import com.stock.stock_management.entity.User;
 
@@ -19,18 +23,32 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.WarehouseRepository;
+import com.stock.stock_management.repository.EntityFilter;
 
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.UserMapper;
 import com.stock.stock_management.repository.UserRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.UserService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final EntityFilter<User> FILTER = EntityFilter.<User>of()
+        .field("warehouseId", "warehouse.id", Long.class);
+
     private final UserRepository repository;
     private final UserMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final WarehouseRepository warehouseRepository;
 
@@ -85,6 +103,10 @@ public class UserServiceImpl implements UserService {
             .orElseThrow(() -> new ResourceNotFoundException("user not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getWarehouseId() != null) { entity.setWarehouse(warehouseRepository.getRef(dto.getWarehouseId())); }
@@ -105,6 +127,18 @@ public class UserServiceImpl implements UserService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<UserDto> findAll() {
@@ -117,12 +151,44 @@ public class UserServiceImpl implements UserService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(User.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<UserDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserDto> scroll(String after, int size) {
+        List<User> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<UserDto> sink) {
+        try (Stream<User> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
@@ -151,11 +217,13 @@ public class UserServiceImpl implements UserService {
         if (dto.getEmail() == null) { throw new MissingRequiredFieldException("email is required"); }
         if (dto.getKeycloakId() == null) { throw new MissingRequiredFieldException("keycloak_id is required"); }
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getUsername() != null && repository.existsByUsername(dto.getUsername())) { throw new DuplicateResourceException("user with username already exists"); }
-        if (dto.getRib() != null && repository.existsByRib(dto.getRib())) { throw new DuplicateResourceException("user with rib already exists"); }
-        if (dto.getEmail() != null && repository.existsByEmail(dto.getEmail())) { throw new DuplicateResourceException("user with email already exists"); }
-        if (dto.getKeycloakId() != null && repository.existsByKeycloakId(dto.getKeycloakId())) { throw new DuplicateResourceException("user with keycloak_id already exists"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("user", "precheck_create")
+            .unique("user", "username", dto.getUsername(), null, () -> new DuplicateResourceException("user with username already exists"))
+            .unique("user", "rib", dto.getRib(), null, () -> new DuplicateResourceException("user with rib already exists"))
+            .unique("user", "email", dto.getEmail(), null, () -> new DuplicateResourceException("user with email already exists"))
+            .unique("user", "keycloak_id", dto.getKeycloakId(), null, () -> new DuplicateResourceException("user with keycloak_id already exists"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, UserDto dto) {
@@ -165,11 +233,13 @@ public class UserServiceImpl implements UserService {
         if (dto.getEmail() == null) { throw new MissingRequiredFieldException("email is required"); }
         if (dto.getKeycloakId() == null) { throw new MissingRequiredFieldException("keycloak_id is required"); }
         if (dto.getWarehouseId() == null) { throw new MissingRequiredFieldException("warehouse_id is required"); }
-        if (dto.getUsername() != null && repository.existsByUsernameAndIdNot(dto.getUsername(), id)) { throw new DuplicateResourceException("user with username already exists"); }
-        if (dto.getRib() != null && repository.existsByRibAndIdNot(dto.getRib(), id)) { throw new DuplicateResourceException("user with rib already exists"); }
-        if (dto.getEmail() != null && repository.existsByEmailAndIdNot(dto.getEmail(), id)) { throw new DuplicateResourceException("user with email already exists"); }
-        if (dto.getKeycloakId() != null && repository.existsByKeycloakIdAndIdNot(dto.getKeycloakId(), id)) { throw new DuplicateResourceException("user with keycloak_id already exists"); }
-        if (dto.getWarehouseId() != null && !warehouseRepository.existsById(dto.getWarehouseId())) { throw new ForeignKeyNotFoundException("warehouse_id references missing warehouse"); }
+        validator.checks("user", "precheck_update")
+            .unique("user", "username", dto.getUsername(), id, () -> new DuplicateResourceException("user with username already exists"))
+            .unique("user", "rib", dto.getRib(), id, () -> new DuplicateResourceException("user with rib already exists"))
+            .unique("user", "email", dto.getEmail(), id, () -> new DuplicateResourceException("user with email already exists"))
+            .unique("user", "keycloak_id", dto.getKeycloakId(), id, () -> new DuplicateResourceException("user with keycloak_id already exists"))
+            .exists("warehouse", dto.getWarehouseId(), () -> new ForeignKeyNotFoundException("warehouse_id references missing warehouse"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
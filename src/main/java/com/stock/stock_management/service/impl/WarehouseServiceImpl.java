@@ -1,16 +1,23 @@
 package com.stock.stock_management.service.impl;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.UUID;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.stock.stock_management.config.CacheConfig;
+import com.stock.stock_management.dto.CursorPageDto;
 import com.stock.stock_management.dto.WarehouseDto;
 import com.stock.stock_management.entity.Warehouse;
 
@@ -19,31 +26,33 @@ import com.stock.stock_management.error.DuplicateResourceException;
 import com.stock.stock_management.error.ForeignKeyNotFoundException;
 import com.stock.stock_management.error.MissingRequiredFieldException;
 import com.stock.stock_management.error.ReferentialIntegrityException;
+import com.stock.stock_management.error.PreconditionFailedException;
 import com.stock.stock_management.repository.EnterpriseRepository;
-import com.stock.stock_management.repository.ClientRepository;
-import com.stock.stock_management.repository.PurchaseOrderRepository;
-import com.stock.stock_management.repository.SalesOrderRepository;
-import com.stock.stock_management.repository.StockLevelRepository;
-import com.stock.stock_management.repository.SupplierRepository;
-import com.stock.stock_management.repository.UserRepository;
+import com.stock.stock_management.repository.EntityFilter;
+import com.stock.stock_management.repository.KeysetCursor;
 import com.stock.stock_management.mapper.WarehouseMapper;
 import com.stock.stock_management.repository.WarehouseRepository;
+import com.stock.stock_management.repository.VersionView;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.ReferentialValidator;
 import com.stock.stock_management.service.WarehouseService;
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
 
 @Service
 @RequiredArgsConstructor
 public class WarehouseServiceImpl implements WarehouseService {
 
+    private static final EntityFilter<Warehouse> FILTER = EntityFilter.<Warehouse>of()
+        .field("enterpriseId", "enterprise.id", Long.class);
+
     private final WarehouseRepository repository;
     private final WarehouseMapper mapper;
+    private final FieldProjection fieldProjection;
+    private final EntityManager entityManager;
+    private final ReferentialValidator validator;
 
     private final EnterpriseRepository enterpriseRepository;
-    private final UserRepository userRepository;
-    private final SupplierRepository supplierRepository;
-    private final ClientRepository clientRepository;
-    private final PurchaseOrderRepository purchaseOrderRepository;
-    private final SalesOrderRepository salesOrderRepository;
-    private final StockLevelRepository stockLevelRepository;
 
     // ========= Create =========
     @Override
@@ -59,6 +68,7 @@ public class WarehouseServiceImpl implements WarehouseService {
     // ========= Update (full replace) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.WAREHOUSES, key = "#id")
     public WarehouseDto update(Long id, WarehouseDto dto) {
         // Load current (404 if missing)
         Warehouse current = repository.findById(id)
@@ -91,11 +101,16 @@ public class WarehouseServiceImpl implements WarehouseService {
     // ========= Patch (partial update) =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.WAREHOUSES, key = "#id")
     public WarehouseDto patch(Long id, WarehouseDto dto) {
         Warehouse entity = repository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("warehouse not found with id=" + id));
 
         precheckUpdate(id, dto);
+        // If-Match / client-supplied version: refuse to patch a newer row than the one the client saw
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new PreconditionFailedException("version " + dto.getVersion() + " is stale, current version is " + entity.getVersion());
+        }
         // Non-null fields only (per mapper config)
         mapper.updateEntityFromDto(dto, entity);
         if (dto.getEnterpriseId() != null) { entity.setEnterprise(enterpriseRepository.getRef(dto.getEnterpriseId())); }
@@ -106,6 +121,7 @@ public class WarehouseServiceImpl implements WarehouseService {
     // ========= Queries =========
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.WAREHOUSES, key = "#id", unless = "#result == null")
     public Optional<WarehouseDto> findById(Long id) {
         return repository.findById(id).map(mapper::toDto);
     }
@@ -116,6 +132,18 @@ public class WarehouseServiceImpl implements WarehouseService {
         return repository.findByUuid(uuid).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionView> findVersionByUuid(UUID uuid) {
+        return repository.findVersionByUuid(uuid);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<WarehouseDto> findAll() {
@@ -128,15 +156,48 @@ public class WarehouseServiceImpl implements WarehouseService {
         return repository.findAll(pageable).map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<WarehouseDto> findAll(String filter, Pageable pageable) {
+        return repository.findAll(FILTER.parse(filter), pageable).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findFields(String fields, String filter, Pageable pageable) {
+        return fieldProjection.page(Warehouse.class, fields, FILTER.parse(filter), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<WarehouseDto> findAll(Sort sort) {
         return repository.findAll(sort).stream().map(mapper::toDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<WarehouseDto> scroll(String after, int size) {
+        List<Warehouse> rows = repository.findAfter(KeysetCursor.decode(after), size + 1);
+        return KeysetCursor.window(rows, size, mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @DbLane(Lane.BULK)
+    public void streamAll(Consumer<WarehouseDto> sink) {
+        try (Stream<Warehouse> rows = repository.streamAllBy()) {
+            rows.forEach(entity -> {
+                sink.accept(mapper.toDto(entity));
+                // Keep the persistence context flat while the cursor advances
+                entityManager.detach(entity);
+            });
+        }
+    }
+
     // ========= Delete =========
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.WAREHOUSES, key = "#id")
     public void deleteById(Long id) {
         if (!repository.existsById(id)) {
             throw new ResourceNotFoundException("warehouse not found with id=" + id);
@@ -147,6 +208,7 @@ public class WarehouseServiceImpl implements WarehouseService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.WAREHOUSES, allEntries = true)
     public void deleteByUuid(UUID uuid) {
         repository.findByUuid(uuid).ifPresent(entity -> {
             guardDelete(entity.getId());
@@ -159,25 +221,32 @@ public class WarehouseServiceImpl implements WarehouseService {
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
         if (dto.getCode() == null) { throw new MissingRequiredFieldException("code is required"); }
         if (dto.getEnterpriseId() == null) { throw new MissingRequiredFieldException("enterprise_id is required"); }
-        if (dto.getCode() != null && repository.existsByCode(dto.getCode())) { throw new DuplicateResourceException("warehouse with code already exists"); }
-        if (dto.getEnterpriseId() != null && !enterpriseRepository.existsById(dto.getEnterpriseId())) { throw new ForeignKeyNotFoundException("enterprise_id references missing enterprise"); }
+        validator.checks("warehouse", "precheck_create")
+            .unique("warehouse", "code", dto.getCode(), null, () -> new DuplicateResourceException("warehouse with code already exists"))
+            .exists("enterprise", dto.getEnterpriseId(), () -> new ForeignKeyNotFoundException("enterprise_id references missing enterprise"))
+            .verify();
     }
 
     private void precheckUpdate(Long id, WarehouseDto dto) {
         if (dto.getName() == null) { throw new MissingRequiredFieldException("name is required"); }
         if (dto.getCode() == null) { throw new MissingRequiredFieldException("code is required"); }
         if (dto.getEnterpriseId() == null) { throw new MissingRequiredFieldException("enterprise_id is required"); }
-        if (dto.getCode() != null && repository.existsByCodeAndIdNot(dto.getCode(), id)) { throw new DuplicateResourceException("warehouse with code already exists"); }
-        if (dto.getEnterpriseId() != null && !enterpriseRepository.existsById(dto.getEnterpriseId())) { throw new ForeignKeyNotFoundException("enterprise_id references missing enterprise"); }
+        validator.checks("warehouse", "precheck_update")
+            .unique("warehouse", "code", dto.getCode(), id, () -> new DuplicateResourceException("warehouse with code already exists"))
+            .exists("enterprise", dto.getEnterpriseId(), () -> new ForeignKeyNotFoundException("enterprise_id references missing enterprise"))
+            .verify();
     }
 
     // ========= Delete guard (child refs) =========
     private void guardDelete(Long id) {
-        if (userRepository.countByWarehouseId(id) > 0) { throw new ReferentialIntegrityException("warehouse has dependent user records"); }
-        if (supplierRepository.countByWarehouseId(id) > 0) { throw new ReferentialIntegrityException("warehouse has dependent supplier records"); }
-        if (clientRepository.countByWarehouseId(id) > 0) { throw new ReferentialIntegrityException("warehouse has dependent client records"); }
-        if (purchaseOrderRepository.countByWarehouseId(id) > 0) { throw new ReferentialIntegrityException("warehouse has dependent purchase_order records"); }
-        if (salesOrderRepository.countByWarehouseId(id) > 0) { throw new ReferentialIntegrityException("warehouse has dependent sales_order records"); }
-        if (stockLevelRepository.countByWarehouseId(id) > 0) { throw new ReferentialIntegrityException("warehouse has dependent stock_level records"); }
+        validator.checks("warehouse", "guard_delete")
+            .noChildren("user", "warehouse_id", id, () -> new ReferentialIntegrityException("warehouse has dependent user records"))
+            .noChildren("supplier", "warehouse_id", id, () -> new ReferentialIntegrityException("warehouse has dependent supplier records"))
+            .noChildren("client", "warehouse_id", id, () -> new ReferentialIntegrityException("warehouse has dependent client records"))
+            .noChildren("purchase_order", "warehouse_id", id, () -> new ReferentialIntegrityException("warehouse has dependent purchase_order records"))
+            .noChildren("sales_order", "warehouse_id", id, () -> new ReferentialIntegrityException("warehouse has dependent sales_order records"))
+            .noChildren("stock_level", "warehouse_id", id, () -> new ReferentialIntegrityException("warehouse has dependent stock_level records"))
+            .noChildren("stock_movement", "warehouse_id", id, () -> new ReferentialIntegrityException("warehouse has dependent stock_movement records"))
+            .verify();
     }
 }
@@ -0,0 +1,196 @@
+package com.stock.stock_management.service.support;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.stock.stock_management.error.ServiceBusyException;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+/**
+ * Admission control for database work when requests run on virtual threads. Platform-thread Tomcat capped
+ * concurrency at its pool size; with virtual threads nothing does, so callers queue here (fairly) instead of
+ * inside Hikari. Permits add up to the connection pool, one per connection in use, and are split into two
+ * lanes picked by {@link DbLane}: long-running bulk work gets a few, everything else gets the rest, so an
+ * export burst cannot starve quick lookups. Service methods are gated by default; other beans opt in with
+ * {@code @DbLane}, and work that leaves the calling thread goes through {@link #admit} or {@link #fanOut}.
+ * Cache hits never reach the gate (the cache advice is ordered outside it), and nested calls on the same
+ * thread reuse the permit of the outer one. Off (pass-through) unless {@code spring.threads.virtual.enabled}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class DbAdmissionGate {
+
+    static final String METRIC_PREFIX = "stock.db.gate";
+
+    private static final ThreadLocal<Permits> ADMITTED = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Map<Lane, Permits> lanes = new EnumMap<>(Lane.class);
+    private final Map<Method, Lane> laneByMethod = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+
+    public DbAdmissionGate(MeterRegistry meterRegistry,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean enabled,
+                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                           @Value("${stock.db-gate.bulk-permits:2}") int bulkPermits,
+                           @Value("${stock.db-gate.acquire-timeout:2s}") Duration acquireTimeout) {
+        this.enabled = enabled;
+        this.timeoutNanos = acquireTimeout.toNanos();
+        if (enabled) {
+            int bulkShare = Math.max(1, Math.min(bulkPermits, poolSize - 1));
+            lanes.put(Lane.BULK, new Permits("bulk", bulkShare, meterRegistry));
+            lanes.put(Lane.INTERACTIVE, new Permits("interactive", Math.max(1, poolSize - bulkShare), meterRegistry));
+        }
+    }
+
+    @Around("execution(public * com.stock.stock_management.service.impl.*ServiceImpl.*(..)) "
+        + "|| @annotation(com.stock.stock_management.service.support.DbLane)")
+    public Object gate(ProceedingJoinPoint pjp) throws Throwable {
+        if (!enabled || ADMITTED.get() != null) {
+            return pjp.proceed();
+        }
+        Permits lane = lanes.get(laneOf(pjp));
+        acquire(lane);
+        ADMITTED.set(lane);
+        try {
+            return pjp.proceed();
+        } finally {
+            ADMITTED.remove();
+            lane.permits.release();
+        }
+    }
+
+    /** Runs {@code work} on the calling thread under one permit of {@code lane} (or the caller's, if it holds one). */
+    public <T> T admit(Lane lane, Supplier<T> work) {
+        if (!enabled || ADMITTED.get() != null) {
+            return work.get();
+        }
+        Permits permits = lanes.get(lane);
+        acquire(permits);
+        ADMITTED.set(permits);
+        try {
+            return work.get();
+        } finally {
+            ADMITTED.remove();
+            permits.permits.release();
+        }
+    }
+
+    /**
+     * Runs independent {@code tasks} (each using one connection) on {@code executor} and returns their results in
+     * order. No more run at once than the permits the caller holds: its own plus whatever its lane has free right
+     * now, never waited for, so parallel replays cannot take more connections than the bulk lane allows. A caller
+     * outside the gate is admitted to the bulk lane first. Without the gate, all tasks run at once.
+     */
+    public <T> List<T> fanOut(List<Supplier<T>> tasks, Executor executor) {
+        if (tasks.isEmpty()) return List.of();
+        if (!enabled) return runParallel(tasks, executor, tasks.size(), null);
+        Permits lane = ADMITTED.get();
+        if (lane == null) {
+            return admit(Lane.BULK, () -> fanOut(tasks, executor));
+        }
+        int extra = 0;
+        while (extra < tasks.size() - 1 && lane.permits.tryAcquire()) extra++;
+        try {
+            return runParallel(tasks, executor, 1 + extra, lane);
+        } finally {
+            lane.permits.release(extra);
+        }
+    }
+
+    // ========= Internals =========
+    private Lane laneOf(ProceedingJoinPoint pjp) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Class<?> target = pjp.getTarget() != null ? pjp.getTarget().getClass() : method.getDeclaringClass();
+        return laneByMethod.computeIfAbsent(AopUtils.getMostSpecificMethod(method, target), m -> {
+            DbLane annotation = AnnotatedElementUtils.findMergedAnnotation(m, DbLane.class);
+            return annotation != null ? annotation.value() : Lane.INTERACTIVE;
+        });
+    }
+
+    private void acquire(Permits lane) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lane.permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        lane.wait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            lane.rejected.increment();
+            throw new ServiceBusyException("database busy (" + lane.name + " lane), retry shortly");
+        }
+    }
+
+    /** {@code parallelism} workers pull tasks by index; each runs as admitted to {@code lane}, covered by the caller's permits. */
+    private static <T> List<T> runParallel(List<Supplier<T>> tasks, Executor executor, int parallelism, Permits lane) {
+        Object[] results = new Object[tasks.size()];
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(parallelism, tasks.size())];
+        for (int w = 0; w < workers.length; w++) {
+            workers[w] = CompletableFuture.runAsync(() -> {
+                if (lane != null) ADMITTED.set(lane);
+                try {
+                    for (int k = next.getAndIncrement(); k < results.length; k = next.getAndIncrement()) {
+                        results[k] = tasks.get(k).get();
+                    }
+                } finally {
+                    ADMITTED.remove();
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(workers).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+        @SuppressWarnings("unchecked")
+        List<T> out = (List<T>) Arrays.asList(results);
+        return out;
+    }
+
+    private static final class Permits {
+        final String name;
+        final Semaphore permits;
+        final Timer wait;
+        final Counter rejected;
+
+        Permits(String name, int size, MeterRegistry registry) {
+            this.name = name;
+            this.permits = new Semaphore(size, true);
+            this.wait = Timer.builder(METRIC_PREFIX + ".wait").tag("lane", name)
+                .publishPercentileHistogram().register(registry);
+            this.rejected = Counter.builder(METRIC_PREFIX + ".rejected").tag("lane", name).register(registry);
+            Gauge.builder(METRIC_PREFIX + ".available", permits, Semaphore::availablePermits).tag("lane", name).register(registry);
+            Gauge.builder(METRIC_PREFIX + ".queued", permits, Semaphore::getQueueLength).tag("lane", name).register(registry);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.stock.stock_management.service.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Admission lane of a method that uses the database, when the {@link DbAdmissionGate} is active. Service
+ * methods without it run in the interactive lane; on other beans it is what puts the method behind the gate.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DbLane {
+
+    Lane value();
+
+    enum Lane {
+        /** Short request-scoped work: lookups and single writes. */
+        INTERACTIVE,
+        /** Long-running work (exports, bulk upserts, batches, replays, audits) with a small share of the pool. */
+        BULK
+    }
+}
@@ -0,0 +1,137 @@
+package com.stock.stock_management.service.support;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EmbeddableType;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+
+import com.stock.stock_management.entity.BaseEntity;
+import com.stock.stock_management.error.InvalidValueException;
+
+/**
+ * Sparse fieldsets ({@code ?fields=id,name,price}): a Criteria tuple SELECT of just the requested columns,
+ * returned as field-name → value maps, so neither the full entity nor MapStruct is involved.
+ * Field names are the DTO ones: scalar attributes keep their name, a to-one association is exposed as
+ * {@code <name>Id} and read from its foreign-key column without a join.
+ */
+@Component
+public class FieldProjection {
+
+    public static final int MAX_FIELDS = 32;
+
+    /** Internal soft-delete bookkeeping, never part of a DTO. */
+    private static final Set<String> HIDDEN = Set.of("deleted", "deletedAt");
+
+    private final EntityManager entityManager;
+    private final Map<Class<?>, Map<String, List<String>>> selectable = new ConcurrentHashMap<>();
+
+    public FieldProjection(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** One page of the requested fields, restricted by {@code spec} (may be null) and ordered by the pageable's sort. */
+    public <T extends BaseEntity> Page<Map<String, Object>> page(Class<T> type, String fields, Specification<T> spec, Pageable pageable) {
+        Map<String, List<String>> wanted = resolve(type, fields);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        query.multiselect(selections(root, wanted));
+        Predicate where = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (where != null) query.where(where);
+        if (pageable.getSort().isSorted()) query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> content = toMaps(typed.getResultList(), wanted.keySet());
+
+        if (pageable.isUnpaged() || (pageable.getOffset() == 0 && content.size() < pageable.getPageSize())) {
+            return new PageImpl<>(content, pageable, content.size());
+        }
+        return new PageImpl<>(content, pageable, count(type, spec));
+    }
+
+    // ========= Internals =========
+    private <T> long count(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        Predicate where = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (where != null) query.where(where);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private Map<String, List<String>> resolve(Class<?> type, String fields) {
+        Map<String, List<String>> available = selectable.computeIfAbsent(type, this::describe);
+        Map<String, List<String>> wanted = new LinkedHashMap<>();
+        for (String raw : fields.split(",")) {
+            String name = raw.trim();
+            if (name.isEmpty()) continue;
+            List<String> path = available.get(name);
+            if (path == null) { throw new InvalidValueException("unknown field '" + name + "', selectable fields: " + available.keySet()); }
+            wanted.put(name, path);
+        }
+        if (wanted.isEmpty()) { throw new InvalidValueException("fields must name at least one field"); }
+        if (wanted.size() > MAX_FIELDS) { throw new InvalidValueException("fields accepts at most " + MAX_FIELDS + " names"); }
+        return wanted;
+    }
+
+    /** Selectable field name → attribute path, derived once per entity from the JPA metamodel. */
+    private Map<String, List<String>> describe(Class<?> type) {
+        EntityType<?> entity = entityManager.getMetamodel().entity(type);
+        Map<String, List<String>> out = new TreeMap<>();
+        for (SingularAttribute<?, ?> attr : entity.getSingularAttributes()) {
+            String name = attr.getName();
+            if (HIDDEN.contains(name)) continue;
+            switch (attr.getPersistentAttributeType()) {
+                case BASIC -> out.put(name, List.of(name));
+                case MANY_TO_ONE, ONE_TO_ONE -> out.putIfAbsent(name + "Id", List.of(name, "id"));
+                case EMBEDDED -> {
+                    // Composite key (stock_level): expose its parts, they are the FK columns themselves
+                    for (Attribute<?, ?> part : ((EmbeddableType<?>) attr.getType()).getAttributes()) {
+                        out.put(part.getName(), List.of(name, part.getName()));
+                    }
+                }
+                default -> { }
+            }
+        }
+        return Collections.unmodifiableMap(out);
+    }
+
+    private static List<Selection<?>> selections(Root<?> root, Map<String, List<String>> wanted) {
+        List<Selection<?>> out = new ArrayList<>(wanted.size());
+        for (Map.Entry<String, List<String>> e : wanted.entrySet()) {
+            Path<?> p = root;
+            for (String attr : e.getValue()) { p = p.get(attr); }
+            out.add(p.alias(e.getKey()));
+        }
+        return out;
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> rows, Set<String> names) {
+        List<Map<String, Object>> out = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> m = new LinkedHashMap<>(names.size() * 2);
+            for (String name : names) { m.put(name, row.get(name)); }
+            out.add(m);
+        }
+        return out;
+    }
+}
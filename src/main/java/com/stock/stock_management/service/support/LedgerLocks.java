@@ -0,0 +1,52 @@
+package com.stock.stock_management.service.support;
+
+import java.util.*;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.stock.stock_management.entity.StockLevelId;
+
+/**
+ * Transaction-scoped Postgres advisory locks keyed by (warehouse, product-hash partition), the unit a ledger
+ * rebuild replays. Every write that moves current_qty together with the ledger holds the shared lock for the
+ * levels it touches; the rebuild of a partition holds the exclusive lock, so it never sums a ledger that
+ * misses a committed delta nor overwrites one that lands while it runs. Locks are released at commit/rollback.
+ */
+@Component
+public class LedgerLocks {
+
+    private static final String SHARED_SQL = "SELECT pg_advisory_xact_lock_shared(hashtextextended(?, 0))";
+    private static final String EXCLUSIVE_SQL = "SELECT pg_advisory_xact_lock(hashtextextended(?, 0))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int partitions;
+
+    public LedgerLocks(JdbcTemplate jdbcTemplate,
+                       @Value("${stock.ledger.rebuild-partitions:4}") int partitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitions = Math.max(1, partitions);
+    }
+
+    /** Number of product-hash partitions a warehouse rebuild is split into. */
+    public int partitions() {
+        return partitions;
+    }
+
+    /** Shared lock on the partitions holding {@code ids}, taken in a fixed order so writers cannot deadlock behind a rebuild. */
+    public void lockShared(Collection<StockLevelId> ids) {
+        SortedSet<String> keys = new TreeSet<>();
+        for (StockLevelId id : ids) { keys.add(key(id.getWarehouseId(), Math.floorMod(id.getProductId(), partitions))); }
+        for (String key : keys) { jdbcTemplate.query(SHARED_SQL, rs -> { }, key); }
+    }
+
+    /** Exclusive lock on one partition of a warehouse; waits for in-flight writers and holds off new ones. */
+    public void lockPartition(Long warehouseId, int partition) {
+        jdbcTemplate.query(EXCLUSIVE_SQL, rs -> { }, key(warehouseId, partition));
+    }
+
+    private static String key(Long warehouseId, int partition) {
+        return "stock_level:" + warehouseId + ":" + partition;
+    }
+}
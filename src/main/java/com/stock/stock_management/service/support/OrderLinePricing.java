@@ -0,0 +1,63 @@
+package com.stock.stock_management.service.support;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+import org.springframework.stereotype.Component;
+
+import com.stock.stock_management.entity.Product;
+import com.stock.stock_management.error.ForeignKeyNotFoundException;
+import com.stock.stock_management.error.InvalidValueException;
+import com.stock.stock_management.error.MissingRequiredFieldException;
+import com.stock.stock_management.repository.ProductRepository;
+
+/**
+ * Shared line handling for the order aggregates: resolves every product of an order in one query and
+ * prices a line as {@code quantity * unitPrice * (1 - discount) * (1 + tva / 100)}.
+ */
+@Component
+public class OrderLinePricing {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final ProductRepository productRepository;
+
+    public OrderLinePricing(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /** Products by id; fails listing every id that does not resolve to a live product. */
+    public Map<Long, Product> products(Collection<Long> productIds) {
+        Set<Long> wanted = new HashSet<>(productIds);
+        Map<Long, Product> found = new HashMap<>(wanted.size() * 2);
+        for (Product p : productRepository.findAllById(wanted)) {
+            found.put(p.getId(), p);
+        }
+        if (found.size() != wanted.size()) {
+            wanted.removeAll(found.keySet());
+            throw new ForeignKeyNotFoundException("product_id references missing product: " + new TreeSet<>(wanted));
+        }
+        return found;
+    }
+
+    public static void requireLine(int index, Long productId, BigDecimal quantity, BigDecimal unitPrice, BigDecimal discount) {
+        if (productId == null) { throw new MissingRequiredFieldException("lines[" + index + "].product_id is required"); }
+        if (quantity == null) { throw new MissingRequiredFieldException("lines[" + index + "].quantity is required"); }
+        if (unitPrice == null) { throw new MissingRequiredFieldException("lines[" + index + "].unit_price is required"); }
+        if (discount == null) { throw new MissingRequiredFieldException("lines[" + index + "].discount is required"); }
+        if (quantity.signum() <= 0) { throw new InvalidValueException("lines[" + index + "].quantity must be positive"); }
+        if (unitPrice.signum() < 0) { throw new InvalidValueException("lines[" + index + "].unit_price must not be negative"); }
+        if (discount.signum() < 0 || discount.compareTo(BigDecimal.ONE) > 0) { throw new InvalidValueException("lines[" + index + "].discount must be between 0 and 1"); }
+    }
+
+    /** Tax-inclusive line amount, unrounded; round the order total once. */
+    public static BigDecimal lineTotal(BigDecimal quantity, BigDecimal unitPrice, BigDecimal discount, BigDecimal tva) {
+        BigDecimal net = quantity.multiply(unitPrice).multiply(BigDecimal.ONE.subtract(discount));
+        return tva == null ? net : net.multiply(BigDecimal.ONE.add(tva.divide(HUNDRED)));
+    }
+
+    public static BigDecimal roundAmount(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,94 @@
+package com.stock.stock_management.service.support;
+
+import java.math.BigDecimal;
+
+import org.springframework.stereotype.Component;
+
+import com.stock.stock_management.entity.PurchaseInvoice;
+import com.stock.stock_management.entity.PurchaseOrder;
+import com.stock.stock_management.repository.PurchaseInvoiceRepository;
+import com.stock.stock_management.repository.PurchaseOrderRepository;
+import com.stock.stock_management.repository.SalesInvoiceRepository;
+import com.stock.stock_management.repository.SalesOrderRepository;
+
+/**
+ * Server-maintained order totals. Line and payment writes apply the difference they make
+ * (new line_total - old line_total, new amount - old amount) to their order with a single
+ * {@code UPDATE ... SET x = x + :delta}, never re-summing the children; the row lock it takes
+ * serializes concurrent writers of the same order until commit.
+ * A change of amount_paid is then allocated to the order's open sales invoices, oldest first.
+ * Purchase invoices mirror their order's total. {@code TotalsAuditService} recomputes everything to catch drift.
+ */
+@Component
+public class OrderTotals {
+
+    private final SalesOrderRepository salesOrderRepository;
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final SalesInvoiceRepository salesInvoiceRepository;
+    private final PurchaseInvoiceRepository purchaseInvoiceRepository;
+
+    public OrderTotals(SalesOrderRepository salesOrderRepository,
+                       PurchaseOrderRepository purchaseOrderRepository,
+                       SalesInvoiceRepository salesInvoiceRepository,
+                       PurchaseInvoiceRepository purchaseInvoiceRepository) {
+        this.salesOrderRepository = salesOrderRepository;
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.salesInvoiceRepository = salesInvoiceRepository;
+        this.purchaseInvoiceRepository = purchaseInvoiceRepository;
+    }
+
+    /** The line's contribution to its order: tax-inclusive and rounded to cents, so totals add up exactly. */
+    public static BigDecimal lineAmount(BigDecimal quantity, BigDecimal unitPrice, BigDecimal discount, BigDecimal tva) {
+        return OrderLinePricing.roundAmount(OrderLinePricing.lineTotal(nz(quantity), nz(unitPrice), nz(discount), tva));
+    }
+
+    public static BigDecimal nz(BigDecimal v) {
+        return v != null ? v : BigDecimal.ZERO;
+    }
+
+    // ========= Sales =========
+    public void adjustSalesOrder(Long orderId, BigDecimal totalDelta, BigDecimal paidDelta) {
+        if (orderId == null || (totalDelta.signum() == 0 && paidDelta.signum() == 0)) return;
+        salesOrderRepository.addTotals(orderId, totalDelta, paidDelta);
+        if (paidDelta.signum() != 0) salesInvoiceRepository.allocate(orderId);
+    }
+
+    /** Move a child's contribution when it changes order (or stays: then only the difference is applied). */
+    public void moveSales(Long oldOrderId, BigDecimal oldTotal, BigDecimal oldPaid,
+                          Long newOrderId, BigDecimal newTotal, BigDecimal newPaid) {
+        if (oldOrderId != null && oldOrderId.equals(newOrderId)) {
+            adjustSalesOrder(newOrderId, newTotal.subtract(oldTotal), newPaid.subtract(oldPaid));
+            return;
+        }
+        adjustSalesOrder(oldOrderId, oldTotal.negate(), oldPaid.negate());
+        adjustSalesOrder(newOrderId, newTotal, newPaid);
+    }
+
+    /** Re-spread the order's amount_paid over its invoices after an invoice was added, changed or removed. */
+    public void allocateSales(Long orderId) {
+        if (orderId == null) return;
+        // Same lock as a payment write, so allocation never interleaves with one
+        salesOrderRepository.lockById(orderId);
+        salesInvoiceRepository.allocate(orderId);
+    }
+
+    // ========= Purchases =========
+    public void adjustPurchaseOrder(Long orderId, BigDecimal totalDelta) {
+        if (orderId == null || totalDelta.signum() == 0) return;
+        purchaseOrderRepository.addTotal(orderId, totalDelta);
+        purchaseInvoiceRepository.mirrorTotal(orderId);
+    }
+
+    public void movePurchase(Long oldOrderId, BigDecimal oldTotal, Long newOrderId, BigDecimal newTotal) {
+        if (oldOrderId != null && oldOrderId.equals(newOrderId)) {
+            adjustPurchaseOrder(newOrderId, newTotal.subtract(oldTotal));
+            return;
+        }
+        adjustPurchaseOrder(oldOrderId, oldTotal.negate());
+        adjustPurchaseOrder(newOrderId, newTotal);
+    }
+
+    public static void mirror(PurchaseInvoice invoice, PurchaseOrder order) {
+        invoice.setTotalAmount(nz(order.getTotalAmount()));
+    }
+}
@@ -0,0 +1,59 @@
+package com.stock.stock_management.service.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public {@code *ServiceImpl} method as {@code stock.service}, tagged with the entity
+ * (ProductServiceImpl → product), the operation (method name), the outcome and the exception class.
+ * Ordered outermost, so cache hits and transaction commit are both inside the measured span.
+ * Repository calls are timed by Spring Data's own {@code spring.data.repository.invocations}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    static final String METRIC = "stock.service";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> entityNames = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.stock.stock_management.service.impl.*ServiceImpl.*(..))")
+    public Object time(ProceedingJoinPoint pjp) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return pjp.proceed();
+        } catch (Throwable ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(METRIC)
+                .tag("entity", entityNames.computeIfAbsent(pjp.getSignature().getDeclaringType(), ServiceMetricsAspect::entityOf))
+                .tag("operation", pjp.getSignature().getName())
+                .tag("outcome", "none".equals(exception) ? "success" : "error")
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+    }
+
+    private static String entityOf(Class<?> type) {
+        String name = type.getSimpleName().replace("ServiceImpl", "");
+        return name.replaceAll("(?<!^)(?=[A-Z])", "_").toLowerCase(java.util.Locale.ROOT);
+    }
+}
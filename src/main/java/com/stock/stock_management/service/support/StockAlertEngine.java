@@ -0,0 +1,162 @@
+package com.stock.stock_management.service.support;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.stock.stock_management.dto.StockAlertDto;
+import com.stock.stock_management.entity.StockLevel;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.repository.StockLevelRepository;
+import com.stock.stock_management.web.SseHub;
+import com.stock.stock_management.web.SseSubscriber;
+
+/**
+ * Keeps the set of stock levels whose available quantity is under stock_alert_qty, incrementally: it only
+ * looks at the rows {@link StockLevelChangeDispatcher} hands over after each commit. Crossing the threshold
+ * either way publishes a {@link StockAlertDto} on the application event bus and to SSE subscribers.
+ * The set is seeded once at startup from the partial index; reading it costs O(alerts), not O(catalog).
+ */
+@Component
+public class StockAlertEngine implements StockLevelChangeListener {
+
+    /** Alert transitions are rare; a subscriber this far behind is dropped. */
+    private static final int MAX_PENDING_PER_SUBSCRIBER = 10_000;
+
+    private final StockLevelRepository repository;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate readTx;
+    private final SseHub hub;
+    private final long sseTimeoutMillis;
+
+    private final Map<StockLevelId, StockAlertDto> active = new ConcurrentHashMap<>();
+    private final Set<SseSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public StockAlertEngine(StockLevelRepository repository,
+                            ApplicationEventPublisher events,
+                            PlatformTransactionManager transactionManager,
+                            SseHub hub,
+                            MeterRegistry meterRegistry,
+                            @Value("${stock.alerts.sse-timeout:30m}") Duration sseTimeout) {
+        this.repository = repository;
+        this.events = events;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.hub = hub;
+        this.sseTimeoutMillis = sseTimeout.toMillis();
+        Gauge.builder("stock.alerts.active", active, Map::size)
+            .description("Stock levels currently under their alert threshold")
+            .register(meterRegistry);
+    }
+
+    // ========= Queries =========
+    /** Current alerts, optionally for one warehouse; oldest first. */
+    public List<StockAlertDto> current(Long warehouseId) {
+        List<StockAlertDto> out = new ArrayList<>();
+        for (StockAlertDto alert : active.values()) {
+            if (warehouseId == null || warehouseId.equals(alert.getWarehouseId())) out.add(alert);
+        }
+        out.sort(Comparator.comparing(StockAlertDto::getSince));
+        return out;
+    }
+
+    public SseEmitter subscribe() {
+        SseSubscriber subscriber = hub.open(sseTimeoutMillis, MAX_PENDING_PER_SUBSCRIBER, subscribers::remove);
+        subscribers.add(subscriber);
+        // Closed before it was registered: drop the stale entry
+        if (subscriber.isClosed()) subscribers.remove(subscriber);
+        return subscriber.emitter();
+    }
+
+    // ========= Change intake =========
+    @EventListener(ApplicationReadyEvent.class)
+    @DbLane(DbLane.Lane.BULK)
+    public void seed() {
+        readTx.executeWithoutResult(status -> {
+            for (StockLevel level : repository.findBelowAlert()) {
+                active.put(level.getId(), low(level, OffsetDateTime.now()));
+            }
+        });
+    }
+
+    @Override
+    public void levelsChanged(Collection<StockLevelId> ids, Map<StockLevelId, StockLevel> current) {
+        for (StockLevelId id : ids) {
+            StockLevel level = current.get(id);
+            // Deleted rows are no longer alerting
+            apply(id, level, level != null && isLow(level));
+        }
+    }
+
+    @Override
+    public void warehouseChanged(Long warehouseId) {
+        Map<StockLevelId, StockLevel> low = new HashMap<>();
+        for (StockLevel level : repository.findBelowAlertInWarehouse(warehouseId)) { low.put(level.getId(), level); }
+        for (StockLevelId id : List.copyOf(active.keySet())) {
+            if (warehouseId.equals(id.getWarehouseId()) && !low.containsKey(id)) apply(id, null, false);
+        }
+        low.forEach((id, level) -> apply(id, level, true));
+    }
+
+    // ========= Internals =========
+    private void apply(StockLevelId id, StockLevel level, boolean isLow) {
+        StockAlertDto previous = active.get(id);
+        if (isLow) {
+            StockAlertDto alert = low(level, previous != null ? previous.getSince() : OffsetDateTime.now());
+            active.put(id, alert);
+            if (previous == null) emit(alert);
+        } else if (previous != null) {
+            active.remove(id);
+            emit(StockAlertDto.builder()
+                .productId(id.getProductId())
+                .warehouseId(id.getWarehouseId())
+                .state(StockAlertDto.STATE_RECOVERED)
+                .availableQty(level != null ? available(level) : null)
+                .stockAlertQty(level != null ? level.getStockAlertQty() : null)
+                .since(previous.getSince())
+                .build());
+        }
+    }
+
+    private void emit(StockAlertDto alert) {
+        events.publishEvent(alert);
+        StockLevelId key = new StockLevelId(alert.getProductId(), alert.getWarehouseId());
+        for (SseSubscriber subscriber : subscribers) {
+            subscriber.offer(key, "stock-alert", alert);
+        }
+    }
+
+    private static boolean isLow(StockLevel level) {
+        return level.getStockAlertQty() != null && available(level).compareTo(level.getStockAlertQty()) < 0;
+    }
+
+    private static BigDecimal available(StockLevel level) {
+        BigDecimal current = level.getCurrentQty() != null ? level.getCurrentQty() : BigDecimal.ZERO;
+        BigDecimal reserved = level.getReservedQty() != null ? level.getReservedQty() : BigDecimal.ZERO;
+        return current.subtract(reserved);
+    }
+
+    private static StockAlertDto low(StockLevel level, OffsetDateTime since) {
+        return StockAlertDto.builder()
+            .productId(level.getId().getProductId())
+            .warehouseId(level.getId().getWarehouseId())
+            .state(StockAlertDto.STATE_LOW)
+            .availableQty(available(level))
+            .stockAlertQty(level.getStockAlertQty())
+            .since(since)
+            .build();
+    }
+}
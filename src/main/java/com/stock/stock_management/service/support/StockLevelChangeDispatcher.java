@@ -0,0 +1,104 @@
+package com.stock.stock_management.service.support;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stock.stock_management.entity.StockLevel;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.repository.StockLevelRepository;
+
+/**
+ * Turns {@link StockLevelChangedEvent}s into re-read rows for the {@link StockLevelChangeListener}s.
+ * After commit the touched keys are queued and a single drain task on the application executor loads them,
+ * so the writer's connection is already released and a burst on one SKU is read once. Every listener is
+ * served from the same read. The drain's read passes the {@link DbAdmissionGate} like a service call would.
+ */
+@Slf4j
+@Component
+public class StockLevelChangeDispatcher {
+
+    private static final int LOAD_CHUNK = 500;
+
+    private final StockLevelRepository repository;
+    private final List<StockLevelChangeListener> listeners;
+    private final TransactionTemplate readTx;
+    private final DbAdmissionGate gate;
+    private final Executor executor;
+
+    private final Set<StockLevelId> pendingIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingWarehouses = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public StockLevelChangeDispatcher(StockLevelRepository repository,
+                                      List<StockLevelChangeListener> listeners,
+                                      PlatformTransactionManager transactionManager,
+                                      DbAdmissionGate gate,
+                                      @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.repository = repository;
+        this.listeners = listeners;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.gate = gate;
+        this.executor = executor;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockLevelChanged(StockLevelChangedEvent event) {
+        pendingIds.addAll(event.ids());
+        if (event.warehouseId() != null) pendingWarehouses.add(event.warehouseId());
+        schedule();
+    }
+
+    // ========= Internals =========
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!pendingIds.isEmpty() || !pendingWarehouses.isEmpty()) {
+                // Admitted before taking the keys: a busy gate leaves them pending for the next round
+                gate.admit(DbLane.Lane.INTERACTIVE, () -> readTx.execute(status -> {
+                    List<Long> warehouses = take(pendingWarehouses);
+                    List<StockLevelId> ids = take(pendingIds);
+                    for (Long warehouseId : warehouses) {
+                        for (StockLevelChangeListener l : listeners) l.warehouseChanged(warehouseId);
+                    }
+                    for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+                        List<StockLevelId> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size()));
+                        Map<StockLevelId, StockLevel> current = new HashMap<>(chunk.size() * 2);
+                        for (StockLevel level : repository.findAllById(chunk)) { current.put(level.getId(), level); }
+                        for (StockLevelChangeListener l : listeners) l.levelsChanged(chunk, current);
+                    }
+                    return null;
+                }));
+            }
+        } catch (RuntimeException ex) {
+            // The keys taken in this round are not re-delivered; their next write will be
+            log.warn("stock level change dispatch failed", ex);
+        } finally {
+            draining.set(false);
+            if (!pendingIds.isEmpty() || !pendingWarehouses.isEmpty()) schedule();
+        }
+    }
+
+    private static <T> List<T> take(Set<T> pending) {
+        List<T> out = new ArrayList<>();
+        for (Iterator<T> it = pending.iterator(); it.hasNext(); ) {
+            out.add(it.next());
+            it.remove();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,17 @@
+package com.stock.stock_management.service.support;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.stock.stock_management.entity.StockLevel;
+import com.stock.stock_management.entity.StockLevelId;
+
+/** Receives committed stock_level changes from {@link StockLevelChangeDispatcher}, inside its read-only transaction. */
+public interface StockLevelChangeListener {
+
+    /** @param current the re-read rows by key; a key of {@code ids} missing from it was deleted. */
+    void levelsChanged(Collection<StockLevelId> ids, Map<StockLevelId, StockLevel> current);
+
+    /** Any level of the warehouse may have changed (ledger replay). */
+    void warehouseChanged(Long warehouseId);
+}
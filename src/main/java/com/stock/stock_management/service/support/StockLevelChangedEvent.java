@@ -0,0 +1,26 @@
+package com.stock.stock_management.service.support;
+
+import java.util.Collection;
+import java.util.Set;
+
+import com.stock.stock_management.entity.StockLevelId;
+
+/**
+ * Published by every writer of stock_level, inside its transaction, naming the rows it touched.
+ * A non-null {@code warehouseId} means "any row of that warehouse may have changed" (ledger replay).
+ * Listeners act after commit and re-read the rows, so the event carries keys only.
+ */
+public record StockLevelChangedEvent(Set<StockLevelId> ids, Long warehouseId) {
+
+    public static StockLevelChangedEvent of(StockLevelId id) {
+        return new StockLevelChangedEvent(Set.of(id), null);
+    }
+
+    public static StockLevelChangedEvent of(Collection<StockLevelId> ids) {
+        return new StockLevelChangedEvent(Set.copyOf(ids), null);
+    }
+
+    public static StockLevelChangedEvent warehouse(Long warehouseId) {
+        return new StockLevelChangedEvent(Set.of(), warehouseId);
+    }
+}
@@ -0,0 +1,102 @@
+package com.stock.stock_management.service.support;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.stock.stock_management.dto.StockLevelIdDto;
+import com.stock.stock_management.entity.StockLevel;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.mapper.StockLevelMapper;
+import com.stock.stock_management.repository.WarehouseRepository;
+import com.stock.stock_management.web.SseHub;
+import com.stock.stock_management.web.SseSubscriber;
+
+/**
+ * Pushes committed stock level changes to SSE subscribers of a warehouse, replacing per-SKU polling.
+ * Events: {@code stock-level} (the full StockLevelDto), {@code stock-level-deleted} (its id) and
+ * {@code resync} (after a ledger replay: re-read the warehouse). Each subscriber keeps only the latest
+ * unsent event per product; see {@link SseSubscriber} for the back-pressure rules. A warehouse's entry goes
+ * away with its last subscriber.
+ */
+@Component
+public class StockLevelFeed implements StockLevelChangeListener {
+
+    private final StockLevelMapper mapper;
+    private final WarehouseRepository warehouseRepository;
+    private final SseHub hub;
+    private final long sseTimeoutMillis;
+    private final int maxPending;
+
+    private final Map<Long, Set<SseSubscriber>> byWarehouse = new ConcurrentHashMap<>();
+
+    public StockLevelFeed(StockLevelMapper mapper,
+                          WarehouseRepository warehouseRepository,
+                          SseHub hub,
+                          MeterRegistry meterRegistry,
+                          @Value("${stock.feed.sse-timeout:30m}") Duration sseTimeout,
+                          @Value("${stock.feed.max-pending:10000}") int maxPending) {
+        this.mapper = mapper;
+        this.warehouseRepository = warehouseRepository;
+        this.hub = hub;
+        this.sseTimeoutMillis = sseTimeout.toMillis();
+        this.maxPending = Math.max(1, maxPending);
+        Gauge.builder("stock.feed.subscribers", byWarehouse, m -> m.values().stream().mapToInt(Set::size).sum())
+            .description("Open stock level SSE subscriptions")
+            .register(meterRegistry);
+    }
+
+    @DbLane(DbLane.Lane.INTERACTIVE)
+    public SseEmitter subscribe(Long warehouseId) {
+        if (!warehouseRepository.existsById(warehouseId)) {
+            throw new ResourceNotFoundException("warehouse not found with id=" + warehouseId);
+        }
+        SseSubscriber subscriber = hub.open(sseTimeoutMillis, maxPending, closed -> unsubscribe(warehouseId, closed));
+        // Add and remove go through compute, so a set is never dropped while a subscriber is joining it
+        byWarehouse.compute(warehouseId, (k, subscribers) -> {
+            Set<SseSubscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            if (!subscriber.isClosed()) set.add(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        return subscriber.emitter();
+    }
+
+    private void unsubscribe(Long warehouseId, SseSubscriber subscriber) {
+        byWarehouse.computeIfPresent(warehouseId, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    @Override
+    public void levelsChanged(Collection<StockLevelId> ids, Map<StockLevelId, StockLevel> current) {
+        if (byWarehouse.isEmpty()) return;
+        for (StockLevelId id : ids) {
+            Set<SseSubscriber> subscribers = byWarehouse.get(id.getWarehouseId());
+            if (subscribers == null || subscribers.isEmpty()) continue;
+            StockLevel level = current.get(id);
+            // Map once per change, not once per subscriber
+            Object data = level != null ? mapper.toDto(level) : new StockLevelIdDto(id.getProductId(), id.getWarehouseId());
+            String name = level != null ? "stock-level" : "stock-level-deleted";
+            for (SseSubscriber subscriber : subscribers) {
+                subscriber.offer(id.getProductId(), name, data);
+            }
+        }
+    }
+
+    @Override
+    public void warehouseChanged(Long warehouseId) {
+        Set<SseSubscriber> subscribers = byWarehouse.get(warehouseId);
+        if (subscribers == null) return;
+        for (SseSubscriber subscriber : subscribers) {
+            subscriber.offer("resync", "resync", Map.of("warehouseId", warehouseId));
+        }
+    }
+}
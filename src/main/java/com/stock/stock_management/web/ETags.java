@@ -0,0 +1,81 @@
+package com.stock.stock_management.web;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.stock.stock_management.dto.BaseDto;
+import com.stock.stock_management.error.PreconditionFailedException;
+import com.stock.stock_management.repository.VersionView;
+
+/**
+ * Strong ETags for single resources, built from (uuid, version) rather than from the serialized body:
+ * uuid never changes and every committed update bumps version, so the pair identifies one representation.
+ * A conditional GET only probes those two columns; the entity is loaded and mapped only when it changed.
+ */
+public final class ETags {
+
+    private ETags() {}
+
+    public static String of(UUID uuid, Long version) {
+        return "\"" + uuid + "-" + version + "\"";
+    }
+
+    public static String of(VersionView v) {
+        return of(v.getUuid(), v.getVersion());
+    }
+
+    /** 200 with the DTO and its ETag. */
+    public static <T extends BaseDto> ResponseEntity<T> tagged(T dto) {
+        return ResponseEntity.ok().eTag(of(dto.getUuid(), dto.getVersion())).body(dto);
+    }
+
+    /**
+     * {@code If-None-Match} handling: 304 after a version-only lookup when the client's copy is current,
+     * otherwise the loaded DTO. Without the header this is a plain read, so no extra query is made.
+     */
+    public static <T extends BaseDto> ResponseEntity<T> conditionalGet(String ifNoneMatch,
+                                                                       Supplier<Optional<VersionView>> version,
+                                                                       Supplier<Optional<T>> load,
+                                                                       Supplier<? extends RuntimeException> notFound) {
+        if (ifNoneMatch != null) {
+            String etag = of(version.get().orElseThrow(notFound));
+            if (matches(ifNoneMatch, etag, true)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        return tagged(load.get().orElseThrow(notFound));
+    }
+
+    /**
+     * {@code If-Match} handling for PUT/PATCH: 412 unless the current ETag is listed, then pins the DTO to
+     * that version so the write itself fails if the row moves on before it commits.
+     */
+    public static void requireMatch(String ifMatch, Supplier<Optional<VersionView>> version, BaseDto dto,
+                                    Supplier<? extends RuntimeException> notFound) {
+        if (ifMatch == null) return;
+        VersionView current = version.get().orElseThrow(notFound);
+        if (!matches(ifMatch, of(current), false)) {
+            throw new PreconditionFailedException("If-Match does not match the current version " + current.getVersion());
+        }
+        dto.setVersion(current.getVersion());
+    }
+
+    // ========= Internals =========
+    /** RFC 9110 list match: {@code *} matches anything, weak tags only match under weak comparison. */
+    static boolean matches(String header, String etag, boolean weak) {
+        for (String raw : header.split(",")) {
+            String candidate = raw.trim();
+            if (candidate.equals("*")) return true;
+            if (candidate.startsWith("W/")) {
+                if (!weak) continue;
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) return true;
+        }
+        return false;
+    }
+}
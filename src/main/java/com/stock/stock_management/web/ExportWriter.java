@@ -0,0 +1,126 @@
+package com.stock.stock_management.web;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes DTOs to the servlet response one at a time as NDJSON or CSV, so exports never
+ * hold more than one row in memory. Rows are pushed by a producer (typically a service
+ * {@code streamAll}) that runs inside its own read-only transaction.
+ */
+@Component
+public class ExportWriter {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private final ObjectMapper objectMapper;
+
+    public ExportWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** CSV when asked for explicitly ({@code format=csv} or an Accept of text/csv), NDJSON otherwise. */
+    public static boolean wantsCsv(String format, String accept) {
+        if (format != null) return "csv".equalsIgnoreCase(format);
+        return accept != null && accept.toLowerCase(Locale.ROOT).contains(CSV) && !accept.toLowerCase(Locale.ROOT).contains(NDJSON);
+    }
+
+    public <D> void write(HttpServletResponse response, boolean csv, Class<D> type, String name,
+                          Consumer<Consumer<D>> producer) throws IOException {
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(csv ? CSV : NDJSON);
+        if (csv) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".csv\"");
+        }
+        OutputStream out = response.getOutputStream();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (csv) {
+                List<String> columns = columnsOf(type);
+                writer.write(String.join(",", columns));
+                writer.write('\n');
+                producer.accept(dto -> writeCsvRow(writer, columns, dto));
+            } else {
+                producer.accept(dto -> writeJsonLine(writer, dto));
+            }
+        } catch (UncheckedIOException ex) {
+            // Client went away mid-export; nothing left to answer
+            throw ex.getCause();
+        }
+        writer.flush();
+    }
+
+    // ========= Internals =========
+    private void writeJsonLine(Writer writer, Object dto) {
+        try {
+            writer.write(objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeCsvRow(Writer writer, List<String> columns, Object dto) {
+        JsonNode node = objectMapper.valueToTree(dto);
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) writer.write(',');
+                JsonNode value = node.at("/" + columns.get(i).replace('.', '/'));
+                if (!value.isMissingNode() && !value.isNull()) writer.write(escape(value.asText()));
+            }
+            writer.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Flattened Jackson property names for a DTO type; nested value objects become {@code parent.child}. */
+    private List<String> columnsOf(Class<?> type) {
+        List<String> columns = new ArrayList<>();
+        collectColumns(objectMapper.constructType(type), "", columns);
+        return columns;
+    }
+
+    private void collectColumns(JavaType type, String prefix, List<String> out) {
+        BeanDescription desc = objectMapper.getSerializationConfig().introspect(type);
+        for (BeanPropertyDefinition prop : desc.findProperties()) {
+            if (!prop.couldSerialize()) continue;
+            Class<?> raw = prop.getRawPrimaryType();
+            String name = prefix + prop.getName();
+            if (isScalar(raw)) {
+                out.add(name);
+            } else {
+                collectColumns(prop.getPrimaryType(), name + ".", out);
+            }
+        }
+    }
+
+    private static boolean isScalar(Class<?> raw) {
+        return raw.isPrimitive() || raw.isEnum()
+            || Number.class.isAssignableFrom(raw) || CharSequence.class.isAssignableFrom(raw)
+            || Boolean.class == raw || UUID.class == raw || Temporal.class.isAssignableFrom(raw);
+    }
+
+    private static String escape(String v) {
+        if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0) return v;
+        return '"' + v.replace("\"", "\"\"") + '"';
+    }
+}
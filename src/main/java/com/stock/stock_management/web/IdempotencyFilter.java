@@ -0,0 +1,355 @@
+package com.stock.stock_management.web;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.stock.stock_management.error.ErrorClassifier;
+import com.stock.stock_management.error.ErrorCode;
+import com.stock.stock_management.error.ErrorResponse;
+
+/**
+ * {@code Idempotency-Key} on every {@code POST /api/**}: the first request with a key runs and its successful
+ * response is recorded; a repeat with the same key and body gets that response back (with
+ * {@code Idempotent-Replayed: true}) without reaching the controller. A repeat while the first is still
+ * running gets 409, the same key with a different body 422. Failed requests are not recorded, so their
+ * retry runs again. Requests without the header are untouched.
+ * <p>
+ * Bodies of any size are accepted, including the streaming {@code /bulk} loads: the request is hashed as it is
+ * read and kept in memory up to {@code stock.idempotency.memory-body}, in a temp file past it. The response
+ * streams to the client as usual and is recorded up to {@code stock.idempotency.max-response}; a larger one
+ * replays as its status and Location with an empty body.
+ * <p>
+ * Payments also carry a durable {@code idempotencyKey} of their own; {@code PaymentService#create} describes how
+ * the two combine.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final int memoryBodyBytes;
+    private final int maxResponseBytes;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             ObjectMapper objectMapper,
+                             @Value("${stock.idempotency.memory-body:1MB}") DataSize memoryBody,
+                             @Value("${stock.idempotency.max-response:1MB}") DataSize maxResponse) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.memoryBodyBytes = (int) Math.min(Integer.MAX_VALUE - 1, memoryBody.toBytes());
+        this.maxResponseBytes = (int) Math.min(Integer.MAX_VALUE - 1, maxResponse.toBytes());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+            || request.getHeader(HEADER) == null
+            || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, ErrorCode.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        try (SpooledBody body = SpooledBody.read(request.getInputStream(), memoryBodyBytes)) {
+            run(key, body, request, response, chain);
+        }
+    }
+
+    private void run(String key, SpooledBody body, HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+        String fingerprint = body.fingerprint();
+
+        IdempotencyStore.Stored stored = store.find(key, path);
+        UUID token = null;
+        if (stored == null || !stored.completed()) {
+            // Unused key, or an in-flight one whose lease may have lapsed
+            token = store.claim(key, path, fingerprint);
+            if (token != null) {
+                stored = null;
+            } else if (stored == null) {
+                // Lost the race to a concurrent first request
+                stored = store.find(key, path);
+                if (stored == null) { stored = new IdempotencyStore.Stored(fingerprint, null, null, null, null); }
+            }
+        }
+        if (stored != null) {
+            answer(stored, fingerprint, response);
+            return;
+        }
+
+        RecordingResponse recording = new RecordingResponse(response, maxResponseBytes);
+        boolean completed = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), recording);
+            recording.flushBuffer();
+            int status = recording.getStatus();
+            if (status >= 200 && status < 300) {
+                byte[] recorded = recording.recorded();
+                store.complete(key, path, token, new IdempotencyStore.Stored(fingerprint, status,
+                    recorded != null ? recording.getContentType() : null, recording.getHeader(HttpHeaders.LOCATION), recorded));
+                completed = true;
+            }
+        } finally {
+            if (!completed) store.release(key, path, token);
+        }
+    }
+
+    // ========= Internals =========
+    private void answer(IdempotencyStore.Stored stored, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            reject(response, ErrorCode.IDEMPOTENCY_KEY_MISMATCH, HEADER + " was already used with a different request body");
+        } else if (!stored.completed()) {
+            reject(response, ErrorCode.IDEMPOTENCY_IN_PROGRESS, "a request with this " + HEADER + " is still in progress, retry shortly");
+        } else {
+            response.setStatus(stored.status());
+            if (stored.contentType() != null) response.setContentType(stored.contentType());
+            if (stored.location() != null) response.setHeader(HttpHeaders.LOCATION, stored.location());
+            response.setHeader(REPLAYED_HEADER, "true");
+            byte[] body = stored.body() != null ? stored.body() : new byte[0];
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void reject(HttpServletResponse response, ErrorCode code, String message) throws IOException {
+        response.setStatus(ErrorClassifier.statusOf(code).value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ErrorResponse.of(code.name(), message, Map.of()));
+    }
+
+    /**
+     * Request body read once: hashed on the way in, held in memory up to {@code memoryBytes} and spooled to a
+     * temp file past that. Closing it deletes the file.
+     */
+    static final class SpooledBody implements Closeable {
+
+        private final String fingerprint;
+        private final byte[] memory;
+        private final Path file;
+        private final long length;
+
+        private SpooledBody(String fingerprint, byte[] memory, Path file, long length) {
+            this.fingerprint = fingerprint;
+            this.memory = memory;
+            this.file = file;
+            this.length = length;
+        }
+
+        static SpooledBody read(InputStream in, int memoryBytes) throws IOException {
+            MessageDigest digest = sha256();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            Path file = null;
+            OutputStream spool = null;
+            long length = 0;
+            byte[] chunk = new byte[8192];
+            try {
+                for (int n; (n = in.read(chunk)) != -1; ) {
+                    digest.update(chunk, 0, n);
+                    length += n;
+                    if (spool == null && length > memoryBytes) {
+                        file = Files.createTempFile("idempotency-", ".body");
+                        spool = new BufferedOutputStream(Files.newOutputStream(file));
+                        buffer.writeTo(spool);
+                        buffer = null;
+                    }
+                    if (spool != null) spool.write(chunk, 0, n); else buffer.write(chunk, 0, n);
+                }
+                if (spool != null) spool.close();
+            } catch (IOException | RuntimeException ex) {
+                if (spool != null) { try { spool.close(); } catch (IOException ignored) { /* reported below */ } }
+                if (file != null) Files.deleteIfExists(file);
+                throw ex;
+            }
+            return new SpooledBody(HexFormat.of().formatHex(digest.digest()), buffer != null ? buffer.toByteArray() : null, file, length);
+        }
+
+        String fingerprint() {
+            return fingerprint;
+        }
+
+        long length() {
+            return length;
+        }
+
+        InputStream open() throws IOException {
+            return file != null ? new BufferedInputStream(Files.newInputStream(file)) : new ByteArrayInputStream(memory);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (file != null) Files.deleteIfExists(file);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    /** Replays the already-read body to the rest of the chain. */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final SpooledBody body;
+        private ServletInputStream stream;
+        private BufferedReader reader;
+
+        CachedBodyRequest(HttpServletRequest request, SpooledBody body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                InputStream in = body.open();
+                stream = new ServletInputStream() {
+                    private boolean finished;
+                    @Override public int read() throws IOException { return track(in.read()); }
+                    @Override public int read(byte[] b, int off, int len) throws IOException { return track(in.read(b, off, len)); }
+                    @Override public void close() throws IOException { in.close(); }
+                    @Override public boolean isFinished() { return finished; }
+                    @Override public boolean isReady() { return true; }
+                    @Override public void setReadListener(ReadListener listener) {
+                        // The whole body is already at hand: it is available at once, then done
+                        try {
+                            listener.onDataAvailable();
+                            listener.onAllDataRead();
+                        } catch (IOException ex) {
+                            listener.onError(ex);
+                        }
+                    }
+                    private int track(int n) {
+                        if (n == -1) finished = true;
+                        return n;
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+            }
+            return reader;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length() > Integer.MAX_VALUE ? -1 : (int) body.length();
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length();
+        }
+    }
+
+    /**
+     * Streams the response through to the client and keeps a copy of the first {@code maxBytes} bytes;
+     * {@link #recorded()} is null once the body outgrew that.
+     */
+    static final class RecordingResponse extends HttpServletResponseWrapper {
+
+        private final int maxBytes;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+
+        RecordingResponse(HttpServletResponse response, int maxBytes) {
+            super(response);
+            this.maxBytes = maxBytes;
+        }
+
+        byte[] recorded() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream out = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override public void write(int b) throws IOException {
+                        out.write(b);
+                        keep(new byte[] { (byte) b }, 0, 1);
+                    }
+                    @Override public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        keep(b, off, len);
+                    }
+                    @Override public void flush() throws IOException { out.flush(); }
+                    @Override public boolean isReady() { return out.isReady(); }
+                    @Override public void setWriteListener(WriteListener listener) { out.setWriteListener(listener); }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) writer.flush();
+            super.flushBuffer();
+        }
+
+        private void keep(byte[] b, int off, int len) {
+            if (copy == null) return;
+            if (copy.size() + len > maxBytes) {
+                copy = null;
+            } else {
+                copy.write(b, off, len);
+            }
+        }
+    }
+}
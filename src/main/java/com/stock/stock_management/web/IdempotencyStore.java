@@ -0,0 +1,138 @@
+package com.stock.stock_management.web;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.stock.stock_management.service.support.DbLane;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+/**
+ * Responses recorded per (Idempotency-Key, request path). The idempotency_record table is the source of truth
+ * and doubles as the claim: the first request inserts an in-flight row carrying a random claim token, concurrent
+ * ones see it. Only the token holder may complete or release the row, and this instance renews the lease of its
+ * running claims every heartbeat, so a slow request keeps its key; a claim is only taken over once its owner has
+ * stopped renewing it (crashed or lost its database connection) for a whole lease. Completed
+ * responses are also kept in a Caffeine cache, bounded by total body bytes and evicted after the TTL,
+ * so a burst of retries is answered from memory. Database calls pass the {@link DbLane} admission gate.
+ */
+@Component
+public class IdempotencyStore {
+
+    /** A recorded request; {@code status} is null while the first request is still running. */
+    public record Stored(String fingerprint, Integer status, String contentType, String location, byte[] body) {
+        public boolean completed() {
+            return status != null;
+        }
+    }
+
+    private static final String SELECT_SQL = "SELECT fingerprint, status, content_type, location, body FROM idempotency_record "
+        + "WHERE idem_key = ? AND request_path = ? AND created_at >= ?";
+    // Takes over a key whose row expired, or whose first request died before completing (lease not renewed)
+    private static final String CLAIM_SQL = "INSERT INTO idempotency_record (idem_key, request_path, fingerprint, claim_token, lease_until, created_at) "
+        + "VALUES (?, ?, ?, ?, now() + ? * INTERVAL '1 millisecond', now()) ON CONFLICT (idem_key, request_path) DO UPDATE "
+        + "SET fingerprint = EXCLUDED.fingerprint, claim_token = EXCLUDED.claim_token, lease_until = EXCLUDED.lease_until, "
+        + "status = NULL, content_type = NULL, location = NULL, body = NULL, created_at = now() "
+        + "WHERE idempotency_record.created_at < ? OR (idempotency_record.status IS NULL AND idempotency_record.lease_until < now())";
+    private static final String RENEW_SQL = "UPDATE idempotency_record SET lease_until = now() + ? * INTERVAL '1 millisecond' "
+        + "WHERE claim_token = ? AND status IS NULL";
+    private static final String COMPLETE_SQL = "UPDATE idempotency_record SET status = ?, content_type = ?, location = ?, body = ?, lease_until = NULL "
+        + "WHERE idem_key = ? AND request_path = ? AND claim_token = ? AND status IS NULL";
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_record WHERE idem_key = ? AND request_path = ? AND claim_token = ? AND status IS NULL";
+    private static final String PURGE_SQL = "DELETE FROM idempotency_record WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Cache<String, Stored> cache;
+    private final Set<UUID> running = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${stock.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${stock.idempotency.lease:1m}") Duration lease,
+                            @Value("${stock.idempotency.cache-size:32MB}") DataSize cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(cacheSize.toBytes())
+            .weigher((String k, Stored v) -> 64 + (v.body() != null ? v.body().length : 0))
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    /** @return the recorded request, or null when the key is unused (or expired) for this path. */
+    @DbLane(Lane.INTERACTIVE)
+    public Stored find(String key, String path) {
+        Stored hit = cache.getIfPresent(cacheKey(key, path));
+        if (hit != null) return hit;
+        List<Stored> rows = jdbcTemplate.query(SELECT_SQL, (rs, n) -> new Stored(
+                rs.getString(1), (Integer) rs.getObject(2), rs.getString(3), rs.getString(4), rs.getBytes(5)),
+            key, path, OffsetDateTime.now().minus(ttl));
+        if (rows.isEmpty()) return null;
+        Stored stored = rows.get(0);
+        if (stored.completed()) cache.put(cacheKey(key, path), stored);
+        return stored;
+    }
+
+    /** Record an in-flight request. @return its claim token, or null when another request already holds the key. */
+    @DbLane(Lane.INTERACTIVE)
+    public UUID claim(String key, String path, String fingerprint) {
+        UUID token = UUID.randomUUID();
+        if (jdbcTemplate.update(CLAIM_SQL, key, path, fingerprint, token, lease.toMillis(), OffsetDateTime.now().minus(ttl)) == 0) {
+            return null;
+        }
+        running.add(token);
+        return token;
+    }
+
+    /** Record the response of the claim {@code token}; ignored when the claim was lost in the meantime. */
+    @DbLane(Lane.INTERACTIVE)
+    public void complete(String key, String path, UUID token, Stored response) {
+        running.remove(token);
+        if (jdbcTemplate.update(COMPLETE_SQL, response.status(), response.contentType(), response.location(), response.body(),
+                key, path, token) > 0) {
+            cache.put(cacheKey(key, path), response);
+        }
+    }
+
+    /** Forget the in-flight claim {@code token} whose request failed, so a retry runs again. */
+    @DbLane(Lane.INTERACTIVE)
+    public void release(String key, String path, UUID token) {
+        running.remove(token);
+        jdbcTemplate.update(RELEASE_SQL, key, path, token);
+    }
+
+    /** Keeps the leases of this instance's running requests ahead of now(). */
+    @Scheduled(fixedDelayString = "${stock.idempotency.heartbeat:20s}")
+    @DbLane(Lane.INTERACTIVE)
+    public void renew() {
+        if (running.isEmpty()) return;
+        List<UUID> tokens = List.copyOf(running);
+        jdbcTemplate.batchUpdate(RENEW_SQL, tokens, tokens.size(), (ps, token) -> {
+            ps.setLong(1, lease.toMillis());
+            ps.setObject(2, token);
+        });
+    }
+
+    @Scheduled(cron = "${stock.idempotency.purge-cron:-}")
+    @DbLane(Lane.BULK)
+    public void purge() {
+        jdbcTemplate.update(PURGE_SQL, OffsetDateTime.now().minus(ttl));
+    }
+
+    private static String cacheKey(String key, String path) {
+        return key + '\n' + path;
+    }
+}
@@ -0,0 +1,30 @@
+package com.stock.stock_management.web;
+
+import java.util.regex.Pattern;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Weak ETags on collection reads ({@code GET /api/<entity>}, {@code /page}, {@code /sorted}, {@code /scroll}):
+ * the body is still built, but an unchanged list goes back as a bodiless 304. Single resources get their
+ * strong, version-based ETag from the controllers ({@link ETags}); streaming exports and SSE are never
+ * buffered.
+ */
+@Component
+public class ListETagFilter extends ShallowEtagHeaderFilter {
+
+    private static final Pattern LIST_PATH = Pattern.compile("^/api/[a-z-]+(/(page|sorted|scroll))?$");
+
+    public ListETagFilter() {
+        setWriteWeakETag(true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+            || !LIST_PATH.matcher(request.getRequestURI()).matches();
+    }
+}
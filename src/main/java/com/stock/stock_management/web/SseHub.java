@@ -0,0 +1,69 @@
+package com.stock.stock_management.web;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the threads that write SSE events, separate from applicationTaskExecutor so a stalled client can never
+ * starve the change dispatcher, ledger rebuilds or audits. The pool and its queue are bounded: a subscriber
+ * whose drain cannot be queued is dropped. A send blocked for longer than {@code stock.sse.send-timeout}
+ * (a client that stopped reading) is cut off by the sweep, which frees its thread.
+ */
+@Component
+public class SseHub implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final long sendTimeoutNanos;
+    private final Counter dropped;
+    private final Set<SseSubscriber> open = ConcurrentHashMap.newKeySet();
+
+    public SseHub(MeterRegistry meterRegistry,
+                  @Value("${stock.sse.threads:8}") int threads,
+                  @Value("${stock.sse.queue-capacity:1000}") int queueCapacity,
+                  @Value("${stock.sse.send-timeout:10s}") Duration sendTimeout) {
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sse-");
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setDaemon(true);
+        executor.initialize();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.dropped = Counter.builder("stock.sse.dropped")
+            .description("SSE subscribers disconnected for falling behind or blocking a send")
+            .register(meterRegistry);
+    }
+
+    /** A new subscriber writing on the SSE pool; {@code onClose} runs once when it ends, for any reason. */
+    public SseSubscriber open(long timeoutMillis, int maxPending, Consumer<SseSubscriber> onClose) {
+        SseSubscriber subscriber = new SseSubscriber(timeoutMillis, executor, maxPending, dropped, s -> {
+            open.remove(s);
+            onClose.accept(s);
+        });
+        open.add(subscriber);
+        return subscriber;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.sse.sweep-interval:2s}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (SseSubscriber subscriber : open) {
+            subscriber.expireSend(now, sendTimeoutNanos);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,142 @@
+package com.stock.stock_management.web;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * One SSE client with its own send queue, so a slow consumer never holds up the producer or other clients.
+ * Events are keyed: an unsent event is replaced by a newer one with the same key (per-SKU coalescing),
+ * which bounds the queue by the number of distinct keys. A client whose backlog still exceeds
+ * {@code maxPending}, whose drain the executor refuses, or whose send blocks past the {@link SseHub} send
+ * timeout is disconnected and expected to reconnect and resync. Created through {@link SseHub#open}.
+ */
+public final class SseSubscriber {
+
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final int maxPending;
+    private final Counter dropped;
+    private final Consumer<SseSubscriber> onClose;
+
+    /** Guarded by {@code this}; insertion order is kept when an event is replaced. */
+    private final Map<Object, SseEmitter.SseEventBuilder> pending = new LinkedHashMap<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    /** System.nanoTime() when the current send started, 0 when none is in progress. */
+    private volatile long sendStartedAt;
+
+    SseSubscriber(long timeoutMillis, Executor executor, int maxPending, Counter dropped, Consumer<SseSubscriber> onClose) {
+        this.emitter = new SseEmitter(timeoutMillis);
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.dropped = dropped;
+        this.onClose = onClose;
+        emitter.onCompletion(this::markClosed);
+        emitter.onTimeout(this::markClosed);
+        emitter.onError(ex -> markClosed());
+    }
+
+    public SseEmitter emitter() {
+        return emitter;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /** Queue {@code data} as event {@code name}, replacing any unsent event with the same key. */
+    public void offer(Object key, String name, Object data) {
+        if (closed.get()) return;
+        boolean overflow;
+        synchronized (this) {
+            pending.put(key, SseEmitter.event().name(name).data(data));
+            overflow = pending.size() > maxPending;
+            if (overflow) pending.clear();
+        }
+        if (overflow) {
+            drop(null);
+            return;
+        }
+        if (sending.compareAndSet(false, true)) {
+            schedule();
+        }
+    }
+
+    /** Cut the client off when its current send has been blocked for longer than {@code timeoutNanos}. */
+    void expireSend(long now, long timeoutNanos) {
+        long started = sendStartedAt;
+        if (!closed.get() && started != 0 && now - started > timeoutNanos) {
+            drop(new TimeoutException("SSE send blocked for more than " + timeoutNanos / 1_000_000 + " ms"));
+        }
+    }
+
+    // ========= Internals =========
+    private void schedule() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+            sending.set(false);
+            drop(ex);
+        }
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder next;
+            while (!closed.get() && (next = poll()) != null) {
+                sendStartedAt = System.nanoTime();
+                emitter.send(next);
+                sendStartedAt = 0;
+            }
+        } catch (IOException | IllegalStateException ex) {
+            markClosed();
+            emitter.completeWithError(ex);
+        } finally {
+            sendStartedAt = 0;
+            sending.set(false);
+            if (!closed.get() && hasPending() && sending.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+    }
+
+    private void drop(Throwable cause) {
+        if (!markClosed()) return;
+        synchronized (this) { pending.clear(); }
+        dropped.increment();
+        if (cause != null) {
+            emitter.completeWithError(cause);
+        } else {
+            emitter.complete();
+        }
+    }
+
+    private synchronized SseEmitter.SseEventBuilder poll() {
+        Iterator<SseEmitter.SseEventBuilder> it = pending.values().iterator();
+        if (!it.hasNext()) return null;
+        SseEmitter.SseEventBuilder next = it.next();
+        it.remove();
+        return next;
+    }
+
+    private synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /** @return true for the call that actually closed it. */
+    private boolean markClosed() {
+        if (!closed.compareAndSet(false, true)) return false;
+        onClose.accept(this);
+        return true;
+    }
+}
@@ -0,0 +1,36 @@
+package com.stock.stock_management;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Race helpers for the tests that check locking and conditional updates. */
+public final class Concurrency {
+
+    private Concurrency() {}
+
+    /** Runs {@code n} copies of {@code task} released together; rethrows the first failure. */
+    public static <T> List<T> concurrently(int n, Callable<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>(n);
+            for (Future<T> future : futures) { results.add(future.get()); }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
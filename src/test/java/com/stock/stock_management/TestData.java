@@ -0,0 +1,130 @@
+package com.stock.stock_management;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.stock.stock_management.dto.EnterpriseDto;
+import com.stock.stock_management.dto.ProductDto;
+import com.stock.stock_management.dto.SalesInvoiceDto;
+import com.stock.stock_management.dto.SalesOrderDto;
+import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.dto.StockLevelIdDto;
+import com.stock.stock_management.dto.WarehouseDto;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.service.EnterpriseService;
+import com.stock.stock_management.service.ProductService;
+import com.stock.stock_management.service.SalesInvoiceService;
+import com.stock.stock_management.service.SalesOrderService;
+import com.stock.stock_management.service.StockLevelService;
+import com.stock.stock_management.service.WarehouseService;
+
+/**
+ * Fixture rows for the integration tests, created through the services so every write path runs.
+ * Names carry a random suffix: the tests commit (concurrency needs it) and share one database, so each test
+ * calls {@link #cleanup()} afterwards to hard-delete what it made.
+ */
+@TestComponent
+public class TestData {
+
+    private final EnterpriseService enterpriseService;
+    private final WarehouseService warehouseService;
+    private final ProductService productService;
+    private final SalesOrderService salesOrderService;
+    private final SalesInvoiceService salesInvoiceService;
+    private final StockLevelService stockLevelService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<Long> warehouses = new CopyOnWriteArrayList<>();
+    private final List<Long> products = new CopyOnWriteArrayList<>();
+
+    public TestData(EnterpriseService enterpriseService,
+                    WarehouseService warehouseService,
+                    ProductService productService,
+                    SalesOrderService salesOrderService,
+                    SalesInvoiceService salesInvoiceService,
+                    StockLevelService stockLevelService,
+                    JdbcTemplate jdbcTemplate) {
+        this.enterpriseService = enterpriseService;
+        this.warehouseService = warehouseService;
+        this.productService = productService;
+        this.salesOrderService = salesOrderService;
+        this.salesInvoiceService = salesInvoiceService;
+        this.stockLevelService = stockLevelService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Long warehouse() {
+        Long enterpriseId = enterpriseService.create(EnterpriseDto.builder().name("test-" + suffix()).build()).getId();
+        Long warehouseId = warehouseService.create(WarehouseDto.builder()
+            .name("test warehouse")
+            .code("T-" + suffix())
+            .enterpriseId(enterpriseId)
+            .build()).getId();
+        warehouses.add(warehouseId);
+        return warehouseId;
+    }
+
+    public Long product(BigDecimal tva) {
+        String name = "test-" + suffix();
+        Long productId = productService.create(ProductDto.builder()
+            .name(name)
+            .description(name)
+            .price(BigDecimal.TEN)
+            .tva(tva)
+            .build()).getId();
+        products.add(productId);
+        return productId;
+    }
+
+    public Long salesOrder(Long warehouseId) {
+        return salesOrderService.create(SalesOrderDto.builder().warehouseId(warehouseId).build()).getId();
+    }
+
+    /** An invoice for part of an order, issued {@code daysAgo} days ago (allocation goes by issue date). */
+    public Long invoice(Long orderId, String total, int daysAgo, String status) {
+        return salesInvoiceService.create(SalesInvoiceDto.builder()
+            .salesOrderId(orderId)
+            .totalAmount(new BigDecimal(total))
+            .issueDate(OffsetDateTime.now().minusDays(daysAgo))
+            .status(status)
+            .build()).getId();
+    }
+
+    public StockLevelId stockLevel(Long productId, Long warehouseId, String currentQty) {
+        stockLevelService.create(StockLevelDto.builder()
+            .id(new StockLevelIdDto(productId, warehouseId))
+            .currentQty(new BigDecimal(currentQty))
+            .reservedQty(BigDecimal.ZERO)
+            .build());
+        return new StockLevelId(productId, warehouseId);
+    }
+
+    /** Hard-deletes every row hanging off the warehouses and products made since the last cleanup. */
+    public void cleanup() {
+        Long[] w = warehouses.toArray(Long[]::new);
+        Long[] p = products.toArray(Long[]::new);
+        String orders = "SELECT id FROM sales_order WHERE warehouse_id = ANY(?)";
+        jdbcTemplate.update("DELETE FROM payment WHERE sales_order_id IN (" + orders + ")", (Object) w);
+        jdbcTemplate.update("DELETE FROM sales_invoice WHERE sales_order_id IN (" + orders + ")", (Object) w);
+        jdbcTemplate.update("DELETE FROM sales_order_line WHERE sales_order_id IN (" + orders + ") OR product_id = ANY(?)", w, p);
+        jdbcTemplate.update("DELETE FROM sales_order WHERE warehouse_id = ANY(?)", (Object) w);
+        jdbcTemplate.update("DELETE FROM stock_movement WHERE warehouse_id = ANY(?) OR product_id = ANY(?)", w, p);
+        jdbcTemplate.update("DELETE FROM stock_level WHERE warehouse_id = ANY(?) OR product_id = ANY(?)", w, p);
+        jdbcTemplate.update("DELETE FROM product WHERE id = ANY(?)", (Object) p);
+        List<Long> enterprises = jdbcTemplate.queryForList("SELECT enterprise_id FROM warehouse WHERE id = ANY(?)", Long.class, (Object) w);
+        jdbcTemplate.update("DELETE FROM warehouse WHERE id = ANY(?)", (Object) w);
+        jdbcTemplate.update("DELETE FROM enterprise WHERE id = ANY(?)", (Object) enterprises.toArray(Long[]::new));
+        warehouses.clear();
+        products.clear();
+    }
+
+    private static String suffix() {
+        return UUID.randomUUID().toString().substring(0, 12);
+    }
+}
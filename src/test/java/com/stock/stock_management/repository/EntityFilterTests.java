@@ -0,0 +1,139 @@
+package com.stock.stock_management.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.stock.stock_management.entity.Product;
+import com.stock.stock_management.error.InvalidValueException;
+
+/** The {@code ?filter=} parser: grammar, whitelist, per-type operators and value conversion. Criteria API is mocked. */
+class EntityFilterTests {
+
+    private static final EntityFilter<Product> FILTER = EntityFilter.<Product>of()
+        .field("categoryId", "category.id", Long.class)
+        .field("name", String.class)
+        .field("price", BigDecimal.class)
+        .field("uuid", UUID.class)
+        .field("active", Boolean.class);
+
+    private Root<Product> root;
+    private CriteriaBuilder cb;
+    private Path<Object> category;
+    private Path<Object> leaf;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        root = mock(Root.class);
+        cb = mock(CriteriaBuilder.class);
+        category = mock(Path.class);
+        leaf = mock(Path.class);
+        when(root.get(any(String.class))).thenReturn(leaf);
+        when(root.get("category")).thenReturn(category);
+        when(category.get("id")).thenReturn(leaf);
+        when(cb.and(any(Predicate[].class))).thenReturn(mock(Predicate.class));
+    }
+
+    @Test
+    void blankFilterIsNoRestriction() {
+        assertThat(FILTER.parse(null)).isNull();
+        assertThat(FILTER.parse("  ")).isNull();
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void dottedPathsAndTypedValues() {
+        toPredicate("categoryId:eq:42");
+        verify(cb).equal(leaf, 42L);
+
+        toPredicate("price:gte:9.90");
+        verify(cb).greaterThanOrEqualTo((Path) leaf, (Comparable) new BigDecimal("9.90"));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void plainDateIsMidnightUtc() {
+        toPredicate("createdAt:lt:2024-03-01");
+        verify(cb).lessThan((Path) leaf, (Comparable) OffsetDateTime.of(2024, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test
+    void inSplitsOnPipe() {
+        when(leaf.in(any(java.util.Collection.class))).thenReturn(mock(Predicate.class));
+        toPredicate("categoryId:in:1|2| 3");
+        verify(leaf).in(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void clausesAreAnded() {
+        Specification<Product> spec = FILTER.parse("categoryId:eq:1, name:ne:x");
+        spec.toPredicate(root, mock(CriteriaQuery.class), cb);
+        verify(cb).equal(leaf, 1L);
+        verify(cb).notEqual(leaf, "x");
+    }
+
+    @Test
+    void onlyWhitelistedFields() {
+        assertBadRequest("description:eq:x", "cannot filter on 'description'");
+    }
+
+    @Test
+    void malformedClausesAndOperators() {
+        assertBadRequest("categoryId:eq", "expected field:op:value");
+        assertBadRequest("categoryId:like:4", "unknown filter operator");
+    }
+
+    @Test
+    void unorderedTypesOnlyTakeEqualityOperators() {
+        assertBadRequest("name:gt:a", "operator gt is not supported on 'name'");
+        assertBadRequest("active:lte:true", "operator lte is not supported on 'active'");
+        assertBadRequest("uuid:lt:" + UUID.randomUUID(), "operator lt is not supported on 'uuid'");
+    }
+
+    @Test
+    void valuesMustParseAsTheFieldType() {
+        assertBadRequest("categoryId:eq:abc", "invalid value 'abc'");
+        assertBadRequest("active:eq:yes", "invalid value 'yes'");
+        assertBadRequest("createdAt:gt:yesterday", "invalid value 'yesterday'");
+        assertBadRequest("uuid:eq:123", "invalid value '123'");
+    }
+
+    @Test
+    void clauseAndInValueCountsAreBounded() {
+        assertBadRequest("name:eq:a,".repeat(EntityFilter.MAX_CLAUSES) + "name:eq:b", "at most " + EntityFilter.MAX_CLAUSES + " clauses");
+        assertBadRequest("categoryId:in:" + "1|".repeat(EntityFilter.MAX_IN_VALUES) + "2", "at most " + EntityFilter.MAX_IN_VALUES + " values");
+    }
+
+    @Test
+    void unsupportedFieldTypesAreRejectedAtRegistration() {
+        assertThatThrownBy(() -> EntityFilter.<Product>of().field("qty", Integer.class)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ========= Helpers =========
+    private void toPredicate(String filter) {
+        FILTER.parse(filter).toPredicate(root, mock(CriteriaQuery.class), cb);
+    }
+
+    private static void assertBadRequest(String filter, String message) {
+        assertThatThrownBy(() -> FILTER.parse(filter)).isInstanceOf(InvalidValueException.class).hasMessageContaining(message);
+    }
+}
@@ -0,0 +1,86 @@
+package com.stock.stock_management.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.stock.stock_management.dto.CursorPageDto;
+import com.stock.stock_management.entity.Warehouse;
+import com.stock.stock_management.error.InvalidValueException;
+
+/** Token round trip and the size + 1 windowing of keyset scrolls. */
+class KeysetCursorTests {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000, ZoneOffset.UTC);
+
+    @Test
+    void tokenRoundTripsAndIsUrlSafe() {
+        KeysetCursor cursor = new KeysetCursor(T0.withOffsetSameInstant(ZoneOffset.ofHours(2)), UUID.randomUUID());
+
+        String token = cursor.encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void blankTokenStartsFromTheBeginning() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void malformedTokensAreBadRequests() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!")).isInstanceOf(InvalidValueException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("no separator"))).isInstanceOf(InvalidValueException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("yesterday|" + UUID.randomUUID()))).isInstanceOf(InvalidValueException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token(T0 + "|not-a-uuid"))).isInstanceOf(InvalidValueException.class);
+    }
+
+    @Test
+    void windowTrimsTheExtraRowAndPointsAfterTheLastKept() {
+        List<Warehouse> rows = rows(4);
+
+        CursorPageDto<UUID> page = KeysetCursor.window(rows, 3, Warehouse::getUuid);
+
+        assertThat(page.getContent()).containsExactly(rows.get(0).getUuid(), rows.get(1).getUuid(), rows.get(2).getUuid());
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(KeysetCursor.decode(page.getNext())).isEqualTo(KeysetCursor.of(rows.get(2)));
+    }
+
+    @Test
+    void lastWindowHasNoNextCursor() {
+        List<Warehouse> rows = rows(2);
+
+        CursorPageDto<UUID> page = KeysetCursor.window(rows, 3, Warehouse::getUuid);
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNext()).isNull();
+    }
+
+    // ========= Helpers =========
+    private static List<Warehouse> rows(int n) {
+        List<Warehouse> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Warehouse row = new Warehouse();
+            row.setCreatedAt(T0.plusSeconds(i));
+            row.setUuid(UUID.randomUUID());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
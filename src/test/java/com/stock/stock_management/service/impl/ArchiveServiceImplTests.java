@@ -0,0 +1,165 @@
+package com.stock.stock_management.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.stock.stock_management.dto.ArchiveRunDto;
+
+/**
+ * Batching and the generated move statements of {@link ArchiveServiceImpl}, with the JdbcTemplate answering
+ * per table from a queue of batch sizes (0 once the queue is empty).
+ */
+class ArchiveServiceImplTests {
+
+    private static final Pattern TABLE = Pattern.compile("^WITH moved AS \\(DELETE FROM \"([a-z_]+)\"");
+    private static final int BATCH = 3;
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meters;
+    private ArchiveServiceImpl service;
+
+    /** Every statement in the order it ran, keyed by table. */
+    private final Map<String, String> sql = new LinkedHashMap<>();
+    private final Map<String, Queue<Integer>> batches = new HashMap<>();
+    private final List<Object[]> args = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(jdbcTemplate.update(anyString(), any(), eq(BATCH))).thenAnswer(inv -> {
+            String statement = inv.getArgument(0);
+            String table = tableOf(statement);
+            sql.put(table, statement);
+            args.add(new Object[] { inv.getArgument(1), inv.getArgument(2) });
+            Integer next = batches.getOrDefault(table, new ArrayDeque<>()).poll();
+            return next != null ? next : 0;
+        });
+        meters = new SimpleMeterRegistry();
+        service = new ArchiveServiceImpl(jdbcTemplate, transactionManager, meters, Duration.ofDays(90), BATCH, 4);
+    }
+
+    @Test
+    void tableIsDoneOnTheFirstShortBatch() {
+        batches("payment", 3, 3, 1, 3);
+
+        ArchiveRunDto report = service.archive();
+
+        assertThat(report.getTables()).containsEntry("payment", 7L);
+        assertThat(report.getArchived()).isEqualTo(7);
+        assertThat(report.isTruncated()).isFalse();
+        assertThat(meters.get("stock.archive.rows").tag("table", "payment").counter().count()).isEqualTo(7);
+    }
+
+    @Test
+    void maxBatchesTruncatesTheTableButNotTheRun() {
+        batches("sales_invoice", 3, 3, 3, 3, 3);
+        batches("enterprise", 2);
+
+        ArchiveRunDto report = service.archive();
+
+        assertThat(report.getTables()).containsEntry("sales_invoice", 12L).containsEntry("enterprise", 2L);
+        assertThat(report.isTruncated()).isTrue();
+    }
+
+    @Test
+    void everyBatchGetsTheRetentionCutoffAndTheBatchSize() {
+        ArchiveRunDto report = service.archive();
+
+        assertThat(report.getCutoff()).isEqualTo(report.getStartedAt().minus(Duration.ofDays(90)));
+        assertThat(args).isNotEmpty().allSatisfy(a -> {
+            assertThat((OffsetDateTime) a[0]).isEqualTo(report.getCutoff());
+            assertThat(a[1]).isEqualTo(BATCH);
+        });
+    }
+
+    @Test
+    void tablesRunAfterEveryTableReferencingThem() {
+        service.archive();
+
+        List<String> order = new ArrayList<>(sql.keySet());
+        sql.forEach((table, statement) -> {
+            for (String child : referencingTables(statement)) {
+                // category.parent_id is a self-reference: a parent waits for the next run, not another table
+                if (!child.equals(table) && order.contains(child)) {
+                    assertThat(order.indexOf(child)).as(child + " before " + table).isLessThan(order.indexOf(table));
+                }
+            }
+        });
+        assertThat(order).doesNotContain("stock_movement");
+    }
+
+    @Test
+    void statementMovesCandidatesIntoTheArchiveTable() {
+        service.archive();
+
+        assertThat(sql.get("sales_order")).isEqualTo(
+            "WITH moved AS (DELETE FROM \"sales_order\" WHERE (id) IN ("
+                + "SELECT id FROM \"sales_order\" t WHERE t.deleted = true AND t.deleted_at < ?"
+                + " AND NOT EXISTS (SELECT 1 FROM \"sales_order_line\" r WHERE r.sales_order_id = t.id)"
+                + " AND NOT EXISTS (SELECT 1 FROM \"sales_invoice\" r WHERE r.sales_order_id = t.id)"
+                + " AND NOT EXISTS (SELECT 1 FROM \"payment\" r WHERE r.sales_order_id = t.id)"
+                + " ORDER BY t.deleted_at LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING *) "
+                + "INSERT INTO \"sales_order_archive\" SELECT * FROM moved");
+    }
+
+    @Test
+    void orderLinesAreDeletedByTheirPartitionedKey() {
+        service.archive();
+
+        assertThat(sql.get("sales_order_line")).contains("WHERE (id, sales_order_id) IN (SELECT id, sales_order_id FROM");
+        assertThat(sql.get("purchase_order_line")).contains("WHERE (id, purchase_order_id) IN (SELECT id, purchase_order_id FROM");
+        assertThat(sql.get("stock_level")).contains("WHERE (product_id, warehouse_id) IN (");
+    }
+
+    @Test
+    void productRefsToOrderLinesGoThroughTheKeyTables() {
+        service.archive();
+
+        assertThat(referencingTables(sql.get("product")))
+            .contains("sales_order_line_key", "purchase_order_line_key")
+            .doesNotContain("sales_order_line", "purchase_order_line");
+    }
+
+    // ========= Helpers =========
+    private void batches(String table, Integer... sizes) {
+        batches.put(table, new ArrayDeque<>(List.of(sizes)));
+    }
+
+    private static String tableOf(String statement) {
+        Matcher matcher = TABLE.matcher(statement);
+        assertThat(matcher.find()).as(statement).isTrue();
+        return matcher.group(1);
+    }
+
+    private static List<String> referencingTables(String statement) {
+        List<String> tables = new ArrayList<>();
+        Matcher matcher = Pattern.compile("NOT EXISTS \\(SELECT 1 FROM \"([a-z_]+)\"").matcher(statement);
+        while (matcher.find()) { tables.add(matcher.group(1)); }
+        return tables;
+    }
+}
@@ -0,0 +1,257 @@
+package com.stock.stock_management.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.stock.stock_management.dto.CategoryDto;
+import com.stock.stock_management.entity.Category;
+import com.stock.stock_management.error.InvalidValueException;
+import com.stock.stock_management.mapper.CategoryMapperImpl;
+import com.stock.stock_management.mapper.ProductMapper;
+import com.stock.stock_management.repository.CategoryRepository;
+import com.stock.stock_management.repository.ProductRepository;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.ReferentialValidator;
+
+/**
+ * Closure maintenance of {@link CategoryServiceImpl} without a database: the closure statements of
+ * {@link CategoryRepository} run against an in-memory {@code category_closure}, each answer mirroring its SQL, and
+ * every test compares the result with the closure recomputed from the parent links.
+ */
+class CategoryServiceImplTests {
+
+    private CategoryRepository repository;
+    private CategoryServiceImpl service;
+
+    /** category_closure rows as (ancestor_id, descendant_id) → depth. */
+    private final Map<List<Long>, Integer> closure = new HashMap<>();
+    /** The category table: id → parent id (null for a root). */
+    private final Map<Long, Long> parents = new HashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CategoryRepository.class);
+        ReferentialValidator validator = mock(ReferentialValidator.class);
+        ReferentialValidator.Checks checks = mock(ReferentialValidator.Checks.class, RETURNS_SELF);
+        when(validator.checks(anyString(), anyString())).thenReturn(checks);
+        service = new CategoryServiceImpl(repository, new CategoryMapperImpl(), mock(FieldProjection.class),
+            mock(EntityManager.class), validator, mock(ProductRepository.class), mock(ProductMapper.class));
+        stubTable();
+        stubClosure();
+    }
+
+    @Test
+    void createAddsTheParentsAncestorsAndTheSelfPair() {
+        Long root = create(null);
+        Long child = create(root);
+        Long grandchild = create(child);
+
+        assertThat(closure).containsEntry(List.of(root, grandchild), 2)
+            .containsEntry(List.of(child, grandchild), 1)
+            .containsEntry(List.of(grandchild, grandchild), 0);
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    void createTakesTheTreeLockBeforeWritingTheClosure() {
+        Long root = create(null);
+        create(root);
+
+        InOrder order = inOrder(repository);
+        order.verify(repository).lockTree();
+        order.verify(repository).save(any());
+        order.verify(repository).insertClosure(anyLong(), any());
+    }
+
+    @Test
+    void updateMovesTheWholeSubtreeWithItsDepths() {
+        Long a = create(null);
+        Long b = create(null);
+        Long moved = create(a);
+        Long leaf = create(create(moved));
+
+        service.update(moved, dto(b));
+
+        assertThat(closure).containsEntry(List.of(b, leaf), 3)
+            .doesNotContainKey(List.of(a, leaf))
+            .containsEntry(List.of(moved, leaf), 2);
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    void updateWithoutParentMakesTheSubtreeARoot() {
+        Long root = create(null);
+        Long moved = create(root);
+        Long leaf = create(moved);
+
+        service.update(moved, dto(null));
+
+        verify(repository, never()).attachSubtree(any(), any());
+        assertThat(closure).doesNotContainKeys(List.of(root, moved), List.of(root, leaf));
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    void patchUnderTheSameParentLeavesTheClosureAlone() {
+        Long root = create(null);
+        Long child = create(root);
+
+        service.patch(child, dto(root));
+
+        verify(repository, never()).detachSubtree(any());
+        verify(repository, never()).attachSubtree(any(), any());
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    void patchMovesLikeUpdate() {
+        Long a = create(null);
+        Long b = create(a);
+        Long moved = create(null);
+        Long leaf = create(moved);
+
+        service.patch(moved, dto(b));
+
+        assertThat(closure).containsEntry(List.of(a, leaf), 3);
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    void moveUnderItsOwnSubtreeIsRefused() {
+        Long root = create(null);
+        Long child = create(root);
+        Long grandchild = create(child);
+        Map<List<Long>, Integer> before = Map.copyOf(closure);
+
+        assertThatThrownBy(() -> service.update(child, dto(grandchild))).isInstanceOf(InvalidValueException.class);
+        assertThatThrownBy(() -> service.patch(child, dto(child))).isInstanceOf(InvalidValueException.class);
+
+        verify(repository, never()).detachSubtree(any());
+        assertThat(closure).isEqualTo(before);
+    }
+
+    @Test
+    void deleteOfALeafDropsItsPairsOnly() {
+        Long root = create(null);
+        Long child = create(root);
+        Long leaf = create(child);
+
+        service.deleteById(leaf);
+
+        assertThat(closure.keySet()).noneMatch(pair -> pair.contains(leaf));
+        assertClosureMatchesParents();
+    }
+
+    // ========= Helpers =========
+    private Long create(Long parentId) {
+        return service.create(CategoryDto.builder().name("category-" + ids.get()).parentId(parentId).build()).getId();
+    }
+
+    private static CategoryDto dto(Long parentId) {
+        return CategoryDto.builder().name("renamed").parentId(parentId).build();
+    }
+
+    /** The closure every (ancestor, descendant) path of the parent links gives, with its length as depth. */
+    private void assertClosureMatchesParents() {
+        Map<List<Long>, Integer> expected = new HashMap<>();
+        for (Long id : parents.keySet()) {
+            int depth = 0;
+            for (Long up = id; up != null; up = parents.get(up)) {
+                expected.put(List.of(up, id), depth++);
+            }
+        }
+        assertThat(closure).isEqualTo(expected);
+    }
+
+    private void stubTable() {
+        when(repository.save(any(Category.class))).thenAnswer(inv -> {
+            Category entity = inv.getArgument(0);
+            if (entity.getId() == null) { entity.setId(ids.incrementAndGet()); }
+            parents.put(entity.getId(), entity.getParent() != null ? entity.getParent().getId() : null);
+            return entity;
+        });
+        when(repository.findById(anyLong())).thenAnswer(inv -> {
+            Long id = inv.getArgument(0);
+            if (!parents.containsKey(id)) { return Optional.empty(); }
+            Long parentId = parents.get(id);
+            return Optional.of(Category.builder().id(id).name("category-" + id)
+                .parent(parentId != null ? Category.builder().id(parentId).build() : null).build());
+        });
+        when(repository.existsById(anyLong())).thenAnswer(inv -> parents.containsKey(inv.<Long>getArgument(0)));
+        when(repository.getRef(anyLong())).thenAnswer(inv -> Category.builder().id(inv.getArgument(0)).build());
+        doAnswer(inv -> parents.remove(inv.<Long>getArgument(0))).when(repository).deleteById(anyLong());
+    }
+
+    /** Each answer is the statement of the same name in {@link CategoryRepository}, clause for clause. */
+    private void stubClosure() {
+        // SELECT ancestor_id, :id, depth + 1 ... WHERE descendant_id = :parentId UNION ALL SELECT :id, :id, 0
+        when(repository.insertClosure(anyLong(), any())).thenAnswer(inv -> {
+            Long id = inv.getArgument(0);
+            Long parentId = inv.getArgument(1);
+            Map<List<Long>, Integer> rows = new HashMap<>();
+            closure.forEach((pair, depth) -> {
+                if (pair.get(1).equals(parentId)) { rows.put(List.of(pair.get(0), id), depth + 1); }
+            });
+            rows.put(List.of(id, id), 0);
+            closure.putAll(rows);
+            return rows.size();
+        });
+        // DELETE WHERE descendant_id IN (subtree of :id) AND ancestor_id IN (strict ancestors of :id)
+        when(repository.detachSubtree(anyLong())).thenAnswer(inv -> {
+            Long id = inv.getArgument(0);
+            Set<Long> subtree = new HashSet<>();
+            Set<Long> ancestors = new HashSet<>();
+            closure.keySet().forEach(pair -> {
+                if (pair.get(0).equals(id)) { subtree.add(pair.get(1)); }
+                if (pair.get(1).equals(id) && !pair.get(0).equals(id)) { ancestors.add(pair.get(0)); }
+            });
+            int before = closure.size();
+            closure.keySet().removeIf(pair -> subtree.contains(pair.get(1)) && ancestors.contains(pair.get(0)));
+            return before - closure.size();
+        });
+        // SELECT a.ancestor_id, d.descendant_id, a.depth + d.depth + 1
+        //   FROM closure a JOIN closure d ON d.ancestor_id = :id WHERE a.descendant_id = :parentId
+        when(repository.attachSubtree(anyLong(), anyLong())).thenAnswer(inv -> {
+            Long id = inv.getArgument(0);
+            Long parentId = inv.getArgument(1);
+            Map<List<Long>, Integer> rows = new HashMap<>();
+            closure.forEach((a, aDepth) -> closure.forEach((d, dDepth) -> {
+                if (d.get(0).equals(id) && a.get(1).equals(parentId)) { rows.put(List.of(a.get(0), d.get(1)), aDepth + dDepth + 1); }
+            }));
+            closure.putAll(rows);
+            return rows.size();
+        });
+        // DELETE WHERE descendant_id = :id
+        when(repository.deleteClosure(anyLong())).thenAnswer(inv -> {
+            int before = closure.size();
+            closure.keySet().removeIf(pair -> pair.get(1).equals(inv.getArgument(0)));
+            return before - closure.size();
+        });
+        when(repository.isInSubtree(anyLong(), anyLong()))
+            .thenAnswer(inv -> closure.containsKey(List.of(inv.<Long>getArgument(0), inv.<Long>getArgument(1))));
+    }
+}
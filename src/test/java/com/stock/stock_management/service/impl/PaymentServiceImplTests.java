@@ -0,0 +1,155 @@
+package com.stock.stock_management.service.impl;
+
+import static com.stock.stock_management.Concurrency.concurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import com.stock.stock_management.TestData;
+import com.stock.stock_management.dto.PaymentDto;
+import com.stock.stock_management.dto.SalesInvoiceDto;
+import com.stock.stock_management.error.IdempotencyKeyMismatchException;
+import com.stock.stock_management.service.PaymentService;
+import com.stock.stock_management.service.SalesInvoiceService;
+import com.stock.stock_management.service.SalesOrderService;
+
+/**
+ * Payments against the real schema: amount_paid deltas and their oldest-first allocation over the
+ * order's invoices ({@code SalesInvoiceRepository.ALLOCATION}), refunds, cancelled invoices and concurrency.
+ */
+@SpringBootTest
+@Import(TestData.class)
+class PaymentServiceImplTests {
+
+    @Autowired private PaymentService paymentService;
+    @Autowired private SalesInvoiceService salesInvoiceService;
+    @Autowired private SalesOrderService salesOrderService;
+    @Autowired private TestData data;
+
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        orderId = data.salesOrder(data.warehouse());
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.cleanup();
+    }
+
+    @Test
+    void paymentsFillInvoicesOldestFirst() {
+        // Created newest first: allocation goes by issue date, not by id
+        Long newest = data.invoice(orderId, "50.00", 1, null);
+        Long middle = data.invoice(orderId, "100.00", 5, null);
+        Long oldest = data.invoice(orderId, "100.00", 10, null);
+
+        pay("150.00", null);
+
+        assertInvoice(oldest, "100.00", "paid");
+        assertInvoice(middle, "50.00", "partial");
+        assertInvoice(newest, "0.00", "pending");
+        assertPaid("150.00");
+    }
+
+    @Test
+    void refundsGiveBackTheNewestAllocationFirst() {
+        Long oldest = data.invoice(orderId, "100.00", 10, null);
+        Long newest = data.invoice(orderId, "100.00", 5, null);
+        PaymentDto first = pay("150.00", null);
+
+        // Partial refund: the payment is lowered to 80
+        paymentService.update(first.getId(), first.toBuilder().amount(new BigDecimal("80.00")).version(null).build());
+        assertInvoice(oldest, "80.00", "partial");
+        assertInvoice(newest, "0.00", "pending");
+        assertPaid("80.00");
+
+        PaymentDto second = pay("20.00", null);
+        paymentService.deleteById(first.getId());
+        assertInvoice(oldest, "20.00", "partial");
+        assertPaid("20.00");
+
+        paymentService.deleteById(second.getId());
+        assertInvoice(oldest, "0.00", "pending");
+        assertInvoice(newest, "0.00", "pending");
+        assertPaid("0.00");
+    }
+
+    @Test
+    void cancelledInvoicesTakeNoPayment() {
+        Long cancelled = data.invoice(orderId, "100.00", 10, "cancelled");
+        Long open = data.invoice(orderId, "100.00", 5, null);
+
+        pay("60.00", null);
+        assertInvoice(cancelled, "0.00", "cancelled");
+        assertInvoice(open, "60.00", "partial");
+
+        // An overpayment stays on the order; no invoice goes beyond its own total
+        pay("200.00", null);
+        assertInvoice(cancelled, "0.00", "cancelled");
+        assertInvoice(open, "100.00", "paid");
+        assertPaid("260.00");
+    }
+
+    @Test
+    void concurrentPaymentsOnOneOrderAllCount() throws Exception {
+        Long invoice = data.invoice(orderId, "100.00", 1, null);
+
+        List<PaymentDto> created = concurrently(16, () -> pay("5.00", null));
+
+        assertThat(created).hasSize(16).extracting(PaymentDto::getId).doesNotHaveDuplicates();
+        assertPaid("80.00");
+        assertInvoice(invoice, "80.00", "partial");
+    }
+
+    @Test
+    void concurrentRetriesWithOneKeyApplyOnce() throws Exception {
+        String key = "test-" + UUID.randomUUID();
+
+        List<PaymentDto> created = concurrently(8, () -> pay("30.00", key));
+
+        assertThat(created).extracting(PaymentDto::getId).containsOnly(created.get(0).getId());
+        assertPaid("30.00");
+    }
+
+    @Test
+    void reusedKeyForAnotherAmountIsRejected() {
+        String key = "test-" + UUID.randomUUID();
+        pay("30.00", key);
+
+        assertThatThrownBy(() -> pay("31.00", key)).isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertPaid("30.00");
+    }
+
+    // ========= Helpers =========
+    private PaymentDto pay(String amount, String idempotencyKey) {
+        return paymentService.create(PaymentDto.builder()
+            .salesOrderId(orderId)
+            .amount(new BigDecimal(amount))
+            .paymentMethod("cash")
+            .paymentType("payment")
+            .idempotencyKey(idempotencyKey)
+            .build());
+    }
+
+    private void assertInvoice(Long id, String paid, String status) {
+        SalesInvoiceDto invoice = salesInvoiceService.findById(id).orElseThrow();
+        assertThat(invoice.getPaidAmount()).isEqualByComparingTo(paid);
+        assertThat(invoice.getStatus()).isEqualTo(status);
+    }
+
+    private void assertPaid(String amount) {
+        assertThat(salesOrderService.findById(orderId).orElseThrow().getAmountPaid()).isEqualByComparingTo(amount);
+    }
+}
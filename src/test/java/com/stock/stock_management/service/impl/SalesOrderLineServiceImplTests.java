@@ -0,0 +1,85 @@
+package com.stock.stock_management.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import com.stock.stock_management.TestData;
+import com.stock.stock_management.dto.SalesOrderLineDto;
+import com.stock.stock_management.service.SalesOrderLineService;
+import com.stock.stock_management.service.SalesOrderService;
+import com.stock.stock_management.service.support.OrderTotals;
+
+/** Line writes move their order's total_amount by the difference they make, never by re-summing. */
+@SpringBootTest
+@Import(TestData.class)
+class SalesOrderLineServiceImplTests {
+
+    private static final BigDecimal TVA = new BigDecimal("20");
+
+    @Autowired private SalesOrderLineService lineService;
+    @Autowired private SalesOrderService salesOrderService;
+    @Autowired private TestData data;
+
+    private Long warehouseId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        warehouseId = data.warehouse();
+        productId = data.product(TVA);
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.cleanup();
+    }
+
+    @Test
+    void totalFollowsCreateUpdateMoveAndDelete() {
+        Long order = data.salesOrder(warehouseId);
+        Long other = data.salesOrder(warehouseId);
+
+        SalesOrderLineDto a = lineService.create(line(order, "3", "9.99", "0.10"));
+        SalesOrderLineDto b = lineService.create(line(order, "2", "5.25", "0"));
+        assertTotal(order, amount("3", "9.99", "0.10").add(amount("2", "5.25", "0")));
+        assertThat(a.getLineTotal()).isEqualByComparingTo(amount("3", "9.99", "0.10"));
+
+        lineService.update(a.getId(), line(order, "1", "9.99", "0.10"));
+        assertTotal(order, amount("1", "9.99", "0.10").add(amount("2", "5.25", "0")));
+
+        // Moving a line takes its whole contribution to the other order
+        lineService.update(b.getId(), line(other, "2", "5.25", "0"));
+        assertTotal(order, amount("1", "9.99", "0.10"));
+        assertTotal(other, amount("2", "5.25", "0"));
+
+        lineService.deleteById(a.getId());
+        assertTotal(order, BigDecimal.ZERO);
+        assertTotal(other, amount("2", "5.25", "0"));
+    }
+
+    private SalesOrderLineDto line(Long orderId, String quantity, String unitPrice, String discount) {
+        return SalesOrderLineDto.builder()
+            .salesOrderId(orderId)
+            .productId(productId)
+            .quantity(new BigDecimal(quantity))
+            .unitPrice(new BigDecimal(unitPrice))
+            .discount(new BigDecimal(discount))
+            .build();
+    }
+
+    private static BigDecimal amount(String quantity, String unitPrice, String discount) {
+        return OrderTotals.lineAmount(new BigDecimal(quantity), new BigDecimal(unitPrice), new BigDecimal(discount), TVA);
+    }
+
+    private void assertTotal(Long orderId, BigDecimal expected) {
+        assertThat(salesOrderService.findById(orderId).orElseThrow().getTotalAmount()).isEqualByComparingTo(expected);
+    }
+}
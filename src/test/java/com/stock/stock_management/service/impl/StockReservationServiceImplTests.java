@@ -0,0 +1,112 @@
+package com.stock.stock_management.service.impl;
+
+import static com.stock.stock_management.Concurrency.concurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.stock.stock_management.TestData;
+import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.entity.StockLevelId;
+import com.stock.stock_management.error.InsufficientStockException;
+import com.stock.stock_management.error.InvalidValueException;
+import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.service.StockLevelService;
+import com.stock.stock_management.service.StockReservationService;
+
+/** The reservation engine against the real schema: conditional updates, concurrency and the ledger. */
+@SpringBootTest
+@Import(TestData.class)
+class StockReservationServiceImplTests {
+
+    @Autowired private StockReservationService reservations;
+    @Autowired private StockLevelService stockLevelService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestData data;
+
+    private Long warehouseId;
+    private StockLevelId id;
+
+    @BeforeEach
+    void setUp() {
+        warehouseId = data.warehouse();
+        id = data.stockLevel(data.product(null), warehouseId, "10");
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.cleanup();
+    }
+
+    @Test
+    void reserveReleaseCommit() {
+        reservations.reserve(id, new BigDecimal("4"));
+        StockLevelDto level = reservations.commit(id, new BigDecimal("3"));
+        assertLevel(level, "7", "1");
+
+        level = reservations.release(id, new BigDecimal("1"));
+        assertLevel(level, "7", "0");
+    }
+
+    @Test
+    void movesBeyondWhatIsAvailableAreRejectedAndChangeNothing() {
+        reservations.reserve(id, new BigDecimal("8"));
+
+        assertThatThrownBy(() -> reservations.reserve(id, new BigDecimal("3"))).isInstanceOf(InsufficientStockException.class);
+        assertThatThrownBy(() -> reservations.commit(id, new BigDecimal("9"))).isInstanceOf(InsufficientStockException.class);
+        assertThatThrownBy(() -> reservations.release(id, new BigDecimal("9"))).isInstanceOf(InsufficientStockException.class);
+        assertLevel(stockLevelService.findById(id).orElseThrow(), "10", "8");
+    }
+
+    @Test
+    void invalidRequests() {
+        StockLevelId missing = new StockLevelId(data.product(null), warehouseId);
+
+        assertThatThrownBy(() -> reservations.reserve(missing, BigDecimal.ONE)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> reservations.reserve(id, BigDecimal.ZERO)).isInstanceOf(InvalidValueException.class);
+        assertThatThrownBy(() -> reservations.reserve(new StockLevelId(null, warehouseId), BigDecimal.ONE)).isInstanceOf(InvalidValueException.class);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        List<Boolean> outcomes = concurrently(20, () -> {
+            try {
+                reservations.reserve(id, BigDecimal.ONE);
+                return true;
+            } catch (InsufficientStockException e) {
+                return false;
+            }
+        });
+
+        assertThat(outcomes).filteredOn(Boolean::booleanValue).hasSize(10);
+        assertLevel(stockLevelService.findById(id).orElseThrow(), "10", "10");
+    }
+
+    @Test
+    void commitsAreRecordedInTheLedger() throws Exception {
+        reservations.reserve(id, new BigDecimal("6"));
+        concurrently(6, () -> reservations.commit(id, BigDecimal.ONE));
+
+        assertLevel(stockLevelService.findById(id).orElseThrow(), "4", "0");
+        // Opening balance plus one issue per commit adds up to current_qty
+        BigDecimal ledger = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(quantity), 0) FROM stock_movement WHERE product_id = ? AND warehouse_id = ? AND deleted = false",
+            BigDecimal.class, id.getProductId(), id.getWarehouseId());
+        assertThat(ledger).isEqualByComparingTo("4");
+    }
+
+    private static void assertLevel(StockLevelDto level, String current, String reserved) {
+        assertThat(level.getCurrentQty()).isEqualByComparingTo(current);
+        assertThat(level.getReservedQty()).isEqualByComparingTo(reserved);
+    }
+}
@@ -0,0 +1,110 @@
+package com.stock.stock_management.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.stock.stock_management.error.InvalidValueException;
+import com.stock.stock_management.service.support.DbLane.Lane;
+
+/** Permit accounting of the admission gate's programmatic entry points; no Spring context. */
+class DbAdmissionGateTests {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fanOutRunsNoMoreTasksAtOnceThanBulkPermits() {
+        DbAdmissionGate gate = gate(true, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        List<Integer> results = gate.fanOut(tasks(6, running, peak), executor);
+
+        assertThat(results).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void fanOutInsideABulkCallSharesTheCallersPermits() {
+        DbAdmissionGate gate = gate(true, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        // A second bulk caller holds one permit: only the caller's own is left for its tasks
+        gate.admit(Lane.BULK, () -> {
+            Thread other = new Thread(() -> gate.admit(Lane.BULK, () -> sleep(300)));
+            other.start();
+            sleep(50);
+            List<Integer> results = gate.fanOut(tasks(4, running, peak), executor);
+            assertThat(results).containsExactly(0, 1, 2, 3);
+            return null;
+        });
+
+        assertThat(peak.get()).isEqualTo(1);
+    }
+
+    @Test
+    void fanOutRethrowsTheTaskFailure() {
+        DbAdmissionGate gate = gate(true, 2);
+        List<Supplier<Integer>> tasks = List.of(() -> 1, () -> { throw new InvalidValueException("boom"); });
+
+        assertThatThrownBy(() -> gate.fanOut(tasks, executor)).isInstanceOf(InvalidValueException.class);
+        // Permits were given back: a full-width fan-out still gets both
+        assertThat(gate.fanOut(List.<Supplier<Integer>>of(() -> 1, () -> 2), executor)).containsExactly(1, 2);
+    }
+
+    @Test
+    void disabledGateRunsEverythingAtOnce() {
+        DbAdmissionGate gate = gate(false, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        assertThat(gate.fanOut(tasks(4, running, peak), executor)).containsExactly(0, 1, 2, 3);
+        assertThat(peak.get()).isEqualTo(4);
+    }
+
+    private static DbAdmissionGate gate(boolean enabled, int bulkPermits) {
+        return new DbAdmissionGate(new SimpleMeterRegistry(), enabled, 4, bulkPermits, Duration.ofSeconds(5));
+    }
+
+    /** Tasks that overlap long enough for the peak to show how many ran at once. */
+    private static List<Supplier<Integer>> tasks(int n, AtomicInteger running, AtomicInteger peak) {
+        return IntStream.range(0, n).<Supplier<Integer>>mapToObj(k -> () -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(100);
+            running.decrementAndGet();
+            return k;
+        }).toList();
+    }
+
+    private static Object sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
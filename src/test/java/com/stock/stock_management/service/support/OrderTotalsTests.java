@@ -0,0 +1,100 @@
+package com.stock.stock_management.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.stock.stock_management.repository.PurchaseInvoiceRepository;
+import com.stock.stock_management.repository.PurchaseOrderRepository;
+import com.stock.stock_management.repository.SalesInvoiceRepository;
+import com.stock.stock_management.repository.SalesOrderRepository;
+
+/** Delta arithmetic of the incremental order totals; no database, the repositories are mocks. */
+class OrderTotalsTests {
+
+    private SalesOrderRepository salesOrders;
+    private PurchaseOrderRepository purchaseOrders;
+    private SalesInvoiceRepository salesInvoices;
+    private PurchaseInvoiceRepository purchaseInvoices;
+    private OrderTotals totals;
+
+    @BeforeEach
+    void setUp() {
+        salesOrders = mock(SalesOrderRepository.class);
+        purchaseOrders = mock(PurchaseOrderRepository.class);
+        salesInvoices = mock(SalesInvoiceRepository.class);
+        purchaseInvoices = mock(PurchaseInvoiceRepository.class);
+        totals = new OrderTotals(salesOrders, purchaseOrders, salesInvoices, purchaseInvoices);
+    }
+
+    @Test
+    void lineAmountIsTaxInclusiveAndRoundedToCents() {
+        // 3 x 9.99 at 10% off = 26.973, plus 20% VAT = 32.3676
+        assertThat(OrderTotals.lineAmount(new BigDecimal("3"), new BigDecimal("9.99"), new BigDecimal("0.10"), new BigDecimal("20")))
+            .isEqualByComparingTo("32.37");
+        assertThat(OrderTotals.lineAmount(new BigDecimal("2"), new BigDecimal("5.005"), BigDecimal.ZERO, null))
+            .isEqualByComparingTo("10.01");
+        assertThat(OrderTotals.lineAmount(null, new BigDecimal("5"), null, null)).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void sameOrderAppliesOnlyTheDifference() {
+        totals.moveSales(7L, new BigDecimal("40.00"), new BigDecimal("10.00"), 7L, new BigDecimal("55.50"), new BigDecimal("4.00"));
+
+        verify(salesOrders).addTotals(7L, new BigDecimal("15.50"), new BigDecimal("-6.00"));
+        verify(salesInvoices).allocate(7L);
+    }
+
+    @Test
+    void unchangedAmountsWriteNothing() {
+        totals.moveSales(7L, new BigDecimal("40.00"), BigDecimal.ZERO, 7L, new BigDecimal("40.0"), BigDecimal.ZERO);
+
+        verifyNoInteractions(salesOrders, salesInvoices);
+    }
+
+    @Test
+    void lineTotalChangeDoesNotReallocatePayments() {
+        totals.adjustSalesOrder(7L, new BigDecimal("12.00"), BigDecimal.ZERO);
+
+        verify(salesOrders).addTotals(7L, new BigDecimal("12.00"), BigDecimal.ZERO);
+        verify(salesInvoices, never()).allocate(anyLong());
+    }
+
+    @Test
+    void changingOrderMovesTheWholeContribution() {
+        totals.moveSales(7L, new BigDecimal("40.00"), new BigDecimal("10.00"), 8L, new BigDecimal("45.00"), new BigDecimal("10.00"));
+
+        verify(salesOrders).addTotals(7L, new BigDecimal("-40.00"), new BigDecimal("-10.00"));
+        verify(salesOrders).addTotals(8L, new BigDecimal("45.00"), new BigDecimal("10.00"));
+        verify(salesInvoices).allocate(7L);
+        verify(salesInvoices).allocate(8L);
+    }
+
+    @Test
+    void detachedChildTouchesNoOrder() {
+        totals.moveSales(null, BigDecimal.ZERO, BigDecimal.ZERO, null, new BigDecimal("45.00"), new BigDecimal("10.00"));
+
+        verifyNoInteractions(salesOrders, salesInvoices);
+    }
+
+    @Test
+    void purchaseDeltaIsMirroredToInvoices() {
+        totals.movePurchase(3L, new BigDecimal("100.00"), 3L, new BigDecimal("80.00"));
+        totals.movePurchase(3L, new BigDecimal("80.00"), 4L, new BigDecimal("80.00"));
+
+        verify(purchaseOrders).addTotal(3L, new BigDecimal("-20.00"));
+        verify(purchaseOrders).addTotal(3L, new BigDecimal("-80.00"));
+        verify(purchaseOrders).addTotal(4L, new BigDecimal("80.00"));
+        verify(purchaseInvoices, times(2)).mirrorTotal(3L);
+        verify(purchaseInvoices).mirrorTotal(4L);
+    }
+}
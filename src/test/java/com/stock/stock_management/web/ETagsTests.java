@@ -0,0 +1,128 @@
+package com.stock.stock_management.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.stock.stock_management.dto.WarehouseDto;
+import com.stock.stock_management.error.PreconditionFailedException;
+import com.stock.stock_management.error.ResourceNotFoundException;
+import com.stock.stock_management.repository.VersionView;
+
+/** If-None-Match / If-Match list matching and the lookups each conditional path makes. */
+class ETagsTests {
+
+    private static final UUID UUID_1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final String CURRENT = ETags.of(UUID_1, 3L);
+
+    @Test
+    void tagIsQuotedUuidAndVersion() {
+        assertThat(CURRENT).isEqualTo("\"00000000-0000-0000-0000-000000000001-3\"");
+    }
+
+    @Test
+    void matchesAnyListedTagOrWildcard() {
+        assertThat(ETags.matches(CURRENT, CURRENT, false)).isTrue();
+        assertThat(ETags.matches("\"other\", " + CURRENT, CURRENT, false)).isTrue();
+        assertThat(ETags.matches(" * ", CURRENT, false)).isTrue();
+        assertThat(ETags.matches("\"other\"", CURRENT, true)).isFalse();
+        assertThat(ETags.matches(ETags.of(UUID_1, 2L), CURRENT, true)).isFalse();
+    }
+
+    @Test
+    void weakTagsOnlyMatchUnderWeakComparison() {
+        assertThat(ETags.matches("W/" + CURRENT, CURRENT, true)).isTrue();
+        assertThat(ETags.matches("W/" + CURRENT, CURRENT, false)).isFalse();
+    }
+
+    @Test
+    void currentCopyGets304WithoutLoadingTheEntity() {
+        AtomicInteger loads = new AtomicInteger();
+
+        ResponseEntity<WarehouseDto> response = ETags.conditionalGet("W/" + CURRENT, () -> Optional.of(version(3L)),
+            () -> { loads.incrementAndGet(); return Optional.of(dto(3L)); }, notFound());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(CURRENT);
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void staleCopyGetsTheTaggedEntity() {
+        ResponseEntity<WarehouseDto> response = ETags.conditionalGet(ETags.of(UUID_1, 2L), () -> Optional.of(version(3L)),
+            () -> Optional.of(dto(3L)), notFound());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo(CURRENT);
+    }
+
+    @Test
+    void plainGetSkipsTheVersionProbe() {
+        AtomicInteger probes = new AtomicInteger();
+
+        ResponseEntity<WarehouseDto> response = ETags.conditionalGet(null,
+            () -> { probes.incrementAndGet(); return Optional.of(version(3L)); }, () -> Optional.of(dto(3L)), notFound());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(probes).hasValue(0);
+    }
+
+    @Test
+    void missingRowIsNotFound() {
+        assertThatThrownBy(() -> ETags.conditionalGet(CURRENT, Optional::empty, () -> Optional.of(dto(3L)), notFound()))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void ifMatchPinsTheWriteToTheMatchedVersion() {
+        WarehouseDto dto = dto(null);
+
+        ETags.requireMatch(CURRENT, () -> Optional.of(version(3L)), dto, notFound());
+
+        assertThat(dto.getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void ifMatchOnAStaleOrWeakTagIs412() {
+        assertThatThrownBy(() -> ETags.requireMatch(ETags.of(UUID_1, 2L), () -> Optional.of(version(3L)), dto(null), notFound()))
+            .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> ETags.requireMatch("W/" + CURRENT, () -> Optional.of(version(3L)), dto(null), notFound()))
+            .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    void noIfMatchLeavesTheDtoAlone() {
+        WarehouseDto dto = dto(7L);
+
+        ETags.requireMatch(null, () -> { throw new AssertionError("no probe expected"); }, dto, notFound());
+
+        assertThat(dto.getVersion()).isEqualTo(7L);
+    }
+
+    // ========= Helpers =========
+    private static VersionView version(Long version) {
+        return new VersionView() {
+            @Override public UUID getUuid() { return UUID_1; }
+            @Override public Long getVersion() { return version; }
+        };
+    }
+
+    private static WarehouseDto dto(Long version) {
+        WarehouseDto dto = new WarehouseDto();
+        dto.setUuid(UUID_1);
+        dto.setVersion(version);
+        return dto;
+    }
+
+    private static Supplier<ResourceNotFoundException> notFound() {
+        return () -> new ResourceNotFoundException("warehouse not found");
+    }
+}
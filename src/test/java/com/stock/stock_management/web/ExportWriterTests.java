@@ -0,0 +1,97 @@
+package com.stock.stock_management.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.stock.stock_management.dto.StockLevelDto;
+import com.stock.stock_management.dto.StockLevelIdDto;
+
+/** CSV/NDJSON export rendering: header, flattened nested ids, RFC 4180 quoting and format negotiation. */
+class ExportWriterTests {
+
+    private final ExportWriter writer = new ExportWriter(JsonMapper.builder().findAndAddModules().build());
+
+    public static class Row {
+        private final String name;
+        private final Long count;
+
+        public Row(String name, Long count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public String getName() { return name; }
+        public Long getCount() { return count; }
+    }
+
+    @Test
+    void csvQuotesOnlyFieldsThatNeedIt() throws Exception {
+        String csv = csv(Row.class, List.of(
+            new Row("plain", 1L),
+            new Row("a,b", 2L),
+            new Row("say \"hi\"", 3L),
+            new Row("two\nlines", 4L),
+            new Row("cr\rhere", 5L),
+            new Row(null, null)));
+
+        assertThat(csv).isEqualTo("name,count\n"
+            + "plain,1\n"
+            + "\"a,b\",2\n"
+            + "\"say \"\"hi\"\"\",3\n"
+            + "\"two\nlines\",4\n"
+            + "\"cr\rhere\",5\n"
+            + ",\n");
+    }
+
+    @Test
+    void nestedValueObjectsBecomeDottedColumns() throws Exception {
+        StockLevelDto level = new StockLevelDto();
+        level.setId(new StockLevelIdDto(7L, 9L));
+
+        String csv = csv(StockLevelDto.class, List.of(level));
+
+        List<String> header = List.of(csv.substring(0, csv.indexOf('\n')).split(","));
+        assertThat(header).contains("id.productId", "id.warehouseId").doesNotContain("id");
+        String row = csv.substring(csv.indexOf('\n') + 1, csv.length() - 1);
+        String[] cells = row.split(",", -1);
+        assertThat(cells[header.indexOf("id.productId")]).isEqualTo("7");
+        assertThat(cells[header.indexOf("id.warehouseId")]).isEqualTo("9");
+    }
+
+    @Test
+    void ndjsonIsOneObjectPerLine() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.write(response, false, Row.class, "rows", rows(List.of(new Row("a,b", 1L), new Row("c", 2L))));
+
+        assertThat(response.getContentType()).startsWith(ExportWriter.NDJSON);
+        assertThat(response.getContentAsString()).isEqualTo("{\"name\":\"a,b\",\"count\":1}\n{\"name\":\"c\",\"count\":2}\n");
+    }
+
+    @Test
+    void csvOnlyWhenAskedFor() {
+        assertThat(ExportWriter.wantsCsv("csv", null)).isTrue();
+        assertThat(ExportWriter.wantsCsv("ndjson", "text/csv")).isFalse();
+        assertThat(ExportWriter.wantsCsv(null, "text/csv")).isTrue();
+        assertThat(ExportWriter.wantsCsv(null, "text/csv, application/x-ndjson")).isFalse();
+        assertThat(ExportWriter.wantsCsv(null, null)).isFalse();
+    }
+
+    // ========= Helpers =========
+    private <D> String csv(Class<D> type, List<D> rows) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(response, true, type, "rows", rows(rows));
+        assertThat(response.getHeader("Content-Disposition")).isEqualTo("attachment; filename=\"rows.csv\"");
+        return response.getContentAsString();
+    }
+
+    private static <D> Consumer<Consumer<D>> rows(List<D> rows) {
+        return sink -> rows.forEach(sink);
+    }
+}
@@ -0,0 +1,214 @@
+package com.stock.stock_management.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+/** Idempotency-Key handling in front of a stub controller; the store is a mock. */
+class IdempotencyFilterTests {
+
+    private static final String PATH = "/api/stock-level/bulk";
+    private static final int MEMORY_BYTES = 64;
+    private static final int MAX_RESPONSE_BYTES = 32;
+
+    private IdempotencyStore store;
+    private IdempotencyFilter filter;
+    private UUID token;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(IdempotencyStore.class);
+        filter = new IdempotencyFilter(store, JsonMapper.builder().findAndAddModules().build(), DataSize.ofBytes(MEMORY_BYTES), DataSize.ofBytes(MAX_RESPONSE_BYTES));
+        token = UUID.randomUUID();
+    }
+
+    @Test
+    void requestsWithoutTheHeaderOrOutsideTheApiAreUntouched() throws Exception {
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", PATH);
+        get.addHeader(IdempotencyFilter.HEADER, "k");
+        filter.doFilter(get, new MockHttpServletResponse(), (req, res) -> {});
+        filter.doFilter(new MockHttpServletRequest("POST", PATH), new MockHttpServletResponse(), (req, res) -> {});
+        MockHttpServletRequest outside = new MockHttpServletRequest("POST", "/actuator/refresh");
+        outside.addHeader(IdempotencyFilter.HEADER, "k");
+        filter.doFilter(outside, new MockHttpServletResponse(), (req, res) -> {});
+
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void blankOrOverlongKeysAreBadRequests() throws Exception {
+        for (String key : new String[] { " ", "k".repeat(IdempotencyFilter.MAX_KEY_LENGTH + 1) }) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(post(key, bytes(1)), response, (req, res) -> { throw new AssertionError("must not run"); });
+            assertThat(response.getStatus()).isEqualTo(400);
+        }
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void bodyPastTheMemoryThresholdIsSpooledAndReachesTheControllerIntact() throws Exception {
+        byte[] body = bytes(MEMORY_BYTES * 100 + 7);
+        when(store.claim(eq("k"), eq(PATH), anyString())).thenReturn(token);
+        AtomicReference<byte[]> seen = new AtomicReference<>();
+        long spoolsBefore = spoolFiles();
+
+        filter.doFilter(post("k", body), new MockHttpServletResponse(), (req, res) -> {
+            assertThat(req.getContentLengthLong()).isEqualTo(body.length);
+            seen.set(req.getInputStream().readAllBytes());
+            ((HttpServletResponse) res).setStatus(200);
+        });
+
+        assertThat(seen.get()).isEqualTo(body);
+        verify(store).claim("k", PATH, sha256(body));
+        assertThat(spoolFiles()).isEqualTo(spoolsBefore);
+    }
+
+    @Test
+    void successfulResponseIsRecordedAndStillReachesTheClient() throws Exception {
+        when(store.claim(eq("k"), eq(PATH), anyString())).thenReturn(token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(post("k", bytes(10)), response, created("{\"upserted\":10}"));
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"upserted\":10}");
+        IdempotencyStore.Stored stored = completed();
+        assertThat(stored.status()).isEqualTo(201);
+        assertThat(stored.location()).isEqualTo("/api/stock-level/1");
+        assertThat(new String(stored.body(), StandardCharsets.UTF_8)).isEqualTo("{\"upserted\":10}");
+    }
+
+    @Test
+    void responsePastTheLimitIsRecordedWithoutItsBody() throws Exception {
+        when(store.claim(eq("k"), eq(PATH), anyString())).thenReturn(token);
+        String large = "x".repeat(MAX_RESPONSE_BYTES + 1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(post("k", bytes(10)), response, created(large));
+
+        assertThat(response.getContentAsString()).isEqualTo(large);
+        IdempotencyStore.Stored stored = completed();
+        assertThat(stored.status()).isEqualTo(201);
+        assertThat(stored.body()).isNull();
+        assertThat(stored.contentType()).isNull();
+    }
+
+    @Test
+    void failedRequestReleasesItsKey() throws Exception {
+        when(store.claim(eq("k"), eq(PATH), anyString())).thenReturn(token);
+
+        filter.doFilter(post("k", bytes(10)), new MockHttpServletResponse(), (req, res) -> ((HttpServletResponse) res).setStatus(500));
+
+        verify(store).release("k", PATH, token);
+        verify(store, never()).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void repeatWhileTheFirstRunsIsConflict() throws Exception {
+        byte[] body = bytes(10);
+        when(store.find("k", PATH)).thenReturn(new IdempotencyStore.Stored(sha256(body), null, null, null, null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(post("k", body), response, (req, res) -> { throw new AssertionError("must not run"); });
+
+        assertThat(response.getStatus()).isEqualTo(409);
+        assertThat(response.getContentAsString()).contains("IDEMPOTENCY_IN_PROGRESS");
+    }
+
+    @Test
+    void completedRepeatIsReplayed() throws Exception {
+        byte[] body = bytes(10);
+        when(store.find("k", PATH)).thenReturn(new IdempotencyStore.Stored(sha256(body), 201, "application/json", "/api/stock-level/1",
+            "{}".getBytes(StandardCharsets.UTF_8)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(post("k", body), response, (req, res) -> { throw new AssertionError("must not run"); });
+
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getHeader("Location")).isEqualTo("/api/stock-level/1");
+        assertThat(response.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(response.getContentAsString()).isEqualTo("{}");
+    }
+
+    @Test
+    void spooledBodyHashesEverythingItRead() throws Exception {
+        byte[] body = bytes(1000);
+        try (IdempotencyFilter.SpooledBody spooled = IdempotencyFilter.SpooledBody.read(new ByteArrayInputStream(body), 16);
+             InputStream replay = spooled.open()) {
+            assertThat(spooled.length()).isEqualTo(body.length);
+            assertThat(spooled.fingerprint()).isEqualTo(sha256(body));
+            assertThat(replay.readAllBytes()).isEqualTo(body);
+        }
+    }
+
+    // ========= Helpers =========
+    private static MockHttpServletRequest post(String key, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("text/csv");
+        request.setContent(body);
+        return request;
+    }
+
+    private static FilterChain created(String json) {
+        return (req, res) -> {
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setStatus(201);
+            response.setHeader("Location", "/api/stock-level/1");
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(json);
+        };
+    }
+
+    private IdempotencyStore.Stored completed() {
+        ArgumentCaptor<IdempotencyStore.Stored> captor = ArgumentCaptor.forClass(IdempotencyStore.Stored.class);
+        verify(store).complete(eq("k"), eq(PATH), eq(token), captor.capture());
+        return captor.getValue();
+    }
+
+    private static byte[] bytes(int n) {
+        byte[] body = new byte[n];
+        Arrays.fill(body, (byte) 'a');
+        body[n - 1] = '\n';
+        return body;
+    }
+
+    private static String sha256(byte[] body) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    }
+
+    private static long spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(p -> p.getFileName().toString().startsWith("idempotency-")).count();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.stock.stock_management.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import com.stock.stock_management.dto.PaymentDto;
+import com.stock.stock_management.entity.Payment;
+import com.stock.stock_management.entity.SalesOrder;
+import com.stock.stock_management.error.ErrorClassifier;
+import com.stock.stock_management.error.IdempotencyKeyMismatchException;
+import com.stock.stock_management.mapper.PaymentMapperImpl;
+import com.stock.stock_management.repository.PaymentRepository;
+import com.stock.stock_management.repository.SalesOrderRepository;
+import com.stock.stock_management.service.impl.PaymentServiceImpl;
+import com.stock.stock_management.service.support.FieldProjection;
+import com.stock.stock_management.service.support.OrderTotals;
+import com.stock.stock_management.service.support.ReferentialValidator;
+
+/**
+ * A payment create carrying both an {@code Idempotency-Key} header and a body {@code idempotencyKey}: the filter
+ * answers header repeats before the service, the service answers body-key repeats under a new header, and a
+ * mismatch on either is a 422. Store and repositories are mocks.
+ */
+class PaymentIdempotencyTests {
+
+    private static final String PATH = "/api/payment";
+    private static final String HEADER_KEY = "header-1";
+    private static final String BODY_KEY = "pay-1";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private IdempotencyStore store;
+    private PaymentRepository payments;
+    private IdempotencyFilter filter;
+    private FilterChain chain;
+    private UUID token;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(IdempotencyStore.class);
+        payments = mock(PaymentRepository.class);
+        PaymentServiceImpl service = new PaymentServiceImpl(payments, new PaymentMapperImpl(), mock(FieldProjection.class),
+            mock(EntityManager.class), mock(ReferentialValidator.class), mock(SalesOrderRepository.class), mock(OrderTotals.class));
+        filter = new IdempotencyFilter(store, objectMapper, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+        chain = (req, res) -> {
+            PaymentDto created = service.create(objectMapper.readValue(req.getInputStream(), PaymentDto.class));
+            ((HttpServletResponse) res).setStatus(HttpStatus.CREATED.value());
+            res.setContentType("application/json");
+            objectMapper.writeValue(res.getOutputStream(), created);
+        };
+        token = UUID.randomUUID();
+        when(payments.findByIdempotencyKey(BODY_KEY)).thenReturn(Optional.of(existingPayment()));
+    }
+
+    @Test
+    void newHeaderWithTakenBodyKeyReplaysThePayment() throws Exception {
+        when(store.claim(eq(HEADER_KEY), eq(PATH), anyString())).thenReturn(token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("30.00"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(objectMapper.readValue(response.getContentAsByteArray(), PaymentDto.class).getId()).isEqualTo(7L);
+        verify(payments, never()).save(any());
+        verify(store).complete(eq(HEADER_KEY), eq(PATH), eq(token), any());
+    }
+
+    @Test
+    void newHeaderWithTakenBodyKeyForAnotherAmountIsUnprocessable() {
+        when(store.claim(eq(HEADER_KEY), eq(PATH), anyString())).thenReturn(token);
+
+        assertThatThrownBy(() -> filter.doFilter(request("31.00"), new MockHttpServletResponse(), chain))
+            .isInstanceOf(IdempotencyKeyMismatchException.class)
+            .satisfies(ex -> assertThat(ErrorClassifier.statusOf(ErrorClassifier.codeOf(ex))).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        verify(payments, never()).save(any());
+        verify(store).release(HEADER_KEY, PATH, token);
+    }
+
+    @Test
+    void repeatedHeaderIsAnsweredWithoutReachingThePayment() throws Exception {
+        byte[] recorded = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+        when(store.find(HEADER_KEY, PATH)).thenReturn(new IdempotencyStore.Stored(fingerprint(body("30.00")), 201, "application/json", null, recorded));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("30.00"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(response.getContentAsByteArray()).isEqualTo(recorded);
+        verifyNoInteractions(payments);
+    }
+
+    @Test
+    void repeatedHeaderWithAnotherBodyIsUnprocessableBeforeThePayment() throws Exception {
+        when(store.find(HEADER_KEY, PATH)).thenReturn(new IdempotencyStore.Stored(fingerprint(body("30.00")), 201, "application/json", null, new byte[0]));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("31.00"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(422);
+        assertThat(response.getContentAsString()).contains("IDEMPOTENCY_KEY_MISMATCH");
+        verifyNoInteractions(payments);
+    }
+
+    // ========= Helpers =========
+    private static Payment existingPayment() {
+        Payment payment = Payment.builder()
+            .id(7L)
+            .amount(new BigDecimal("30.00"))
+            .paymentMethod("cash")
+            .paymentType("payment")
+            .salesOrder(SalesOrder.builder().id(3L).build())
+            .idempotencyKey(BODY_KEY)
+            .build();
+        payment.setUuid(UUID.randomUUID());
+        payment.setVersion(0L);
+        return payment;
+    }
+
+    private static byte[] body(String amount) {
+        return ("{\"salesOrderId\":3,\"amount\":" + amount + ",\"paymentMethod\":\"cash\",\"paymentType\":\"payment\","
+            + "\"idempotencyKey\":\"" + BODY_KEY + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MockHttpServletRequest request(String amount) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.addHeader(IdempotencyFilter.HEADER, HEADER_KEY);
+        request.setContentType("application/json");
+        request.setContent(body(amount));
+        return request;
+    }
+
+    private static String fingerprint(byte[] body) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    }
+}
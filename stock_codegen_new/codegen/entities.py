@@ -94,19 +94,16 @@ ENTITY_TPL = """package {pkg}.entity;
 import jakarta.persistence.*;
 import jakarta.persistence.Index;
 import lombok.*;
-import org.hibernate.annotations.Comment;
-import org.hibernate.annotations.SQLDelete;
-import org.hibernate.annotations.Where;
-
+{hibernate_imports}
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
-@SQLDelete(sql = "UPDATE {table_name} SET deleted = true, deleted_at = now() WHERE uuid = ?")
-@Where(clause = "deleted = false")
-@Table(
+@SQLDelete(sql = "UPDATE {sql_table_name} SET deleted = true, deleted_at = now() WHERE uuid = ?")
+@SQLRestriction("deleted = false")
+{cache_annotations}@Table(
     name = "{table_name}"{schema_part},
     uniqueConstraints = {{
         @UniqueConstraint(name = "uk_{table_name}_uuid", columnNames = {{"uuid"}})
@@ -123,6 +120,12 @@ public class {entity_name} extends BaseEntity {{
 
 FIELD_TPL = "    private {type} {name};\n\n"
 
+# Reference tables read far more than written: entity + natural-id second-level cache regions (see application.conf)
+CACHED_TABLES = {"enterprise", "warehouse", "category", "product"}
+
+# Table names that are reserved words in Postgres and must be quoted in native SQL
+RESERVED_TABLE_NAMES = {"user", "order", "group"}
+
 
 class EntityGenerator:
     def __init__(self, out_dir: str, base_package: str):
@@ -184,7 +187,7 @@ class EntityGenerator:
             jtype = java_type(c.type)
             ann = ""
             if is_pk and not has_composite_pk:
-                ann += "    @Id\n" + pk_generation_strategy(jtype)
+                ann += "    @Id\n" + pk_generation_strategy(jtype, t.name)
             ann += column_annotation(c)
             if getattr(c, "remarks", None):
                 ann += f'    @Comment("{escape_quotes(c.remarks)}")\n'
@@ -193,8 +196,18 @@ class EntityGenerator:
 
         schema_part = f', schema = "{t.schema_name}"' if getattr(t, "schema_name", None) else ""
         indexes_str = ",\n".join(table_indexes(t))
+        cached = t.name in CACHED_TABLES
+        imports = ["Cache", "CacheConcurrencyStrategy"] if cached else []
+        imports += ["Comment"] + (["NaturalIdCache"] if cached else []) + ["SQLDelete", "SQLRestriction"]
+        cache_annotations = (
+            f'@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.{t.name}")\n'
+            f'@NaturalIdCache(region = "naturalid.{t.name}")\n'
+        ) if cached else ""
         content = ENTITY_TPL.format(
             pkg=self.pkg,
+            hibernate_imports="".join(f"import org.hibernate.annotations.{i};\n" for i in imports),
+            sql_table_name=f'\\"{t.name}\\"' if t.name in RESERVED_TABLE_NAMES else t.name,
+            cache_annotations=cache_annotations,
             table_name=t.name,
             schema_part=schema_part,
             indexes=indexes_str,
@@ -95,16 +95,31 @@ def fk_field_name(col_name: str) -> str:
 
 # ===== General helpers =====
 
-def pk_generation_strategy(java_t: str) -> str:
-    """Return GenerationType annotation for numeric PKs."""
+# Ids handed out per sequence call (pooled-lo); must match the sequence INCREMENT BY
+ID_ALLOCATION_SIZE = 50
+
+
+def id_sequence_name(table_name: str) -> str:
+    """Sequence backing a table's numeric id (product → seq_product)."""
+    return f"seq_{table_name}"
+
+
+def pk_generation_strategy(java_t: str, table_name: str) -> str:
+    """Return GenerationType annotations for numeric PKs (pooled sequence, so inserts can be batched)."""
     if java_t in ("Long", "Integer", "Short"):
-        return "    @GeneratedValue(strategy = GenerationType.IDENTITY)\n"
+        seq = id_sequence_name(table_name)
+        return (
+            f'    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "{seq}")\n'
+            f'    @SequenceGenerator(name = "{seq}", sequenceName = "{seq}", allocationSize = {ID_ALLOCATION_SIZE})\n'
+        )
     return ""
 
 
 def table_indexes(t) -> list[str]:
     """Collect @Index definitions for table."""
-    idx = [f'        @Index(name = "idx_{t.name}_uuid", columnList = "uuid")']
+    idx = [f'        @Index(name = "idx_{t.name}_uuid", columnList = "uuid")',
+           # Keyset pagination order (created_at, uuid), see v_1_1_0/101-keyset-indexes.xml
+           f'        @Index(name = "idx_{t.name}_created_at_uuid", columnList = "created_at, uuid")']
     for c in getattr(t, "columns", []):
         if getattr(c, "is_index", False):
             idx.append(f'        @Index(name = "idx_{t.name}_{c.name}", columnList = "{c.name}")')
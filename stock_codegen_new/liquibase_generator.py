@@ -3,6 +3,7 @@ import xml.etree.ElementTree as ET
 from xml.dom import minidom
 from pathlib import Path
 from models import Table, Column
+from codegen.utils import ID_ALLOCATION_SIZE, id_sequence_name
 
 DBCHANGELOG_NS = "http://www.liquibase.org/xml/ns/dbchangelog"
 XSI_NS = "http://www.w3.org/2001/XMLSchema-instance"
@@ -164,8 +165,7 @@ def build_constraints_changeset(t: Table, author: str, idx: int) -> ET.Element:
                        {"id": f"{idx:03d}-{t.name}-constraints", "author": author})
 
     # If 'id' is the only PK we know, add auto-increment for it (Postgres OK)
-    injected_id_pk = any(c.name == "id" and c.primary_key for c in t.columns) and \
-                     not any(c.primary_key and c.name != "id" for c in t.columns)
+    injected_id_pk = _has_id_pk(t)
 
     if injected_id_pk:
         ET.SubElement(cs, ET.QName(DBCHANGELOG_NS, "addAutoIncrement"), {
@@ -242,6 +242,43 @@ def build_postgres_extensions_changeset(author: str) -> ET.Element:
     ET.SubElement(cs, ET.QName(DBCHANGELOG_NS, "sql")).text = "CREATE EXTENSION IF NOT EXISTS pgcrypto;"
     return root
 
+def _has_id_pk(t: Table) -> bool:
+    return any(c.name == "id" and c.primary_key for c in t.columns) and \
+           not any(c.primary_key and c.name != "id" for c in t.columns)
+
+def build_id_sequences_changeset(tables: List[Table], author: str, idx: int) -> ET.Element:
+    """
+    Move every id column from its auto-increment default onto a pooled sequence, seeded past MAX(id).
+    Kept as a follow-up changelog so already-applied constraint changesets keep their checksums.
+    """
+    root = ET.Element(ET.QName(DBCHANGELOG_NS, "databaseChangeLog"),
+                      {ET.QName(XSI_NS, "schemaLocation"): SCHEMA_LOC})
+    for t in tables:
+        t = _ensure_baseline_columns(t)
+        if not _has_id_pk(t):
+            continue
+        seq = id_sequence_name(t.name)
+        cs = ET.SubElement(root, ET.QName(DBCHANGELOG_NS, "changeSet"),
+                           {"id": f"{idx:03d}-{t.name}-id-sequence", "author": author})
+        ET.SubElement(cs, ET.QName(DBCHANGELOG_NS, "createSequence"), {
+            "sequenceName": seq,
+            "startValue": "1",
+            "incrementBy": str(ID_ALLOCATION_SIZE)
+        })
+        for stmt in (
+            f'ALTER TABLE "{t.name}" ALTER COLUMN id DROP IDENTITY IF EXISTS',
+            f"SELECT setval('{seq}', COALESCE((SELECT MAX(id) FROM \"{t.name}\"), 0) + 1, false)",
+            f'ALTER TABLE "{t.name}" ALTER COLUMN id SET DEFAULT nextval(\'{seq}\')',
+        ):
+            ET.SubElement(cs, ET.QName(DBCHANGELOG_NS, "sql")).text = stmt
+    return root
+
+def write_id_sequences_file(version_dir: Path, tables: List[Table], idx: int, author: str = "mehdi") -> Path:
+    version_dir.mkdir(parents=True, exist_ok=True)
+    seq_file = version_dir / f"{idx:03d}-id-sequences.xml"
+    seq_file.write_text(_pretty(build_id_sequences_changeset(tables, author, idx)), encoding="utf-8")
+    return seq_file
+
 def write_versioned_files(version_dir: Path, tables: List[Table], author: str = "mehdi") -> Tuple[list, list, Path | None]:
     version_dir.mkdir(parents=True, exist_ok=True)
 
@@ -263,15 +300,44 @@ def write_versioned_files(version_dir: Path, tables: List[Table], author: str =
 
     return table_files, constraint_files, ext_file
 
+def _existing_includes(master_file: Path) -> List[str]:
+    if not master_file.exists():
+        return []
+    root = ET.parse(master_file).getroot()
+    return [el.get("file") for el in root.iter(ET.QName(DBCHANGELOG_NS, "include").text)]
+
 def write_master(master_file: Path, include_files: List[Path]):
+    """
+    Includes already listed in an existing master keep their place (hand-tuned FK order included). New files,
+    generated or hand-written (every v_*/*.xml next to the master, e.g. v_1_1_0 migrations), are appended
+    version by version in file-number order; in the generated schema directory all tables come before
+    all constraints. Regenerating therefore never drops a changelog the generator does not know about.
+    """
+    base = master_file.parent
+    schema_dirs = {f.parent.resolve() for f in include_files if f.name.endswith("-table.xml")}
+
+    def order(p: Path):
+        constraints = "-constraints" in p.name
+        tables_first = constraints and p.parent.resolve() in schema_dirs
+        return (p.parent.name, tables_first, p.name.split("-", 1)[0], constraints, p.name)
+
+    candidates = {f.resolve(): f for f in include_files}
+    for version_dir in base.glob("v_*"):
+        if version_dir.is_dir():
+            for f in version_dir.glob("*.xml"):
+                candidates.setdefault(f.resolve(), f)
+
+    ordered = _existing_includes(master_file)
+    for f in sorted(candidates.values(), key=order):
+        rel = str(f.relative_to(base)).replace("\\", "/")
+        if rel not in ordered:
+            ordered.append(rel)
+
     root = ET.Element(ET.QName(DBCHANGELOG_NS, "databaseChangeLog"),
                       {ET.QName(XSI_NS, "schemaLocation"): SCHEMA_LOC})
-
-    # 1️⃣ Tables first
-    for f in sorted(include_files, key=lambda p: ("-constraints" in p.name, p.name)):
-        rel = f.relative_to(master_file.parent)
+    for rel in ordered:
         ET.SubElement(root, ET.QName(DBCHANGELOG_NS, "include"), {
-            "file": str(rel).replace("\\", "/"),
+            "file": rel,
             "relativeToChangelogFile": "true"
         })
 
@@ -1,7 +1,7 @@
 import os
 from pathlib import Path
 from schema import tables
-from liquibase_generator import write_versioned_files, write_master
+from liquibase_generator import write_versioned_files, write_id_sequences_file, write_master
 from codegen.exceptions_spec import derive_exception_specs
 from codegen.entities import EntityGenerator
 from codegen.repositories import RepositoryGenerator
@@ -17,12 +17,14 @@ CWD = Path.cwd()
 JAVA_OUT_DIR = Path(os.environ.get("JAVA_OUT_DIR", str(CWD / "out" / "java")))
 PACKAGE = os.environ.get("JAVA_PACKAGE", "com.stock.stock_management")
 VERSION_DIR = Path(os.environ.get("LB_DIR", str(CWD / "db" / "changelog" / "v_1_0_0")))
+SEQ_VERSION_DIR = Path(os.environ.get("LB_SEQ_DIR", str(CWD / "db" / "changelog" / "v_1_1_0")))
 MASTER_FILE = Path(os.environ.get("LB_MASTER", str(CWD / "db" / "changelog" / "master.xml")))
 
 def generate_all(ts):
     # Liquibase: per-table files and master includes (tables first, then constraints)
     table_files, constraint_files, ext_file = write_versioned_files(VERSION_DIR, ts, author="mehdi")
-    include_files = [ext_file] + table_files + constraint_files
+    seq_file = write_id_sequences_file(SEQ_VERSION_DIR, ts, idx=103, author="mehdi")
+    include_files = [ext_file] + table_files + constraint_files + [seq_file]
     write_master(MASTER_FILE, include_files)
     print(f"Wrote master: {MASTER_FILE}\nIncludes: {[f.name for f in include_files]}")
     # Compute exception spec once